@@ -0,0 +1,114 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link CommunicationChannel#tick()} of the timing wheel with the former
+ * implementation, which rebuilt the list of messages in transit on every tick.
+ * <p>
+ * Each invocation sends as many messages as are delivered per tick, so the number
+ * of messages in transit stays at <c>messagesInTransit</c>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CommunicationChannelBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int messagesInTransit;
+
+    @Param({"10", "1000"})
+    public int delay;
+
+    @Param({"wheel", "list"})
+    public String channelType;
+
+    private ICommunicationChannel channel;
+
+    private int messagesPerTick;
+
+    private final Message message = () -> 1;
+
+    @Setup
+    public void setUp() {
+        channel = channelType.equals("wheel") ? new DeterministicChannel(delay) : new ListChannel(delay);
+        messagesPerTick = Math.max(1, messagesInTransit / (delay + 1));
+        for (int i = 0; i <= delay; i++) {
+            sendAndTick(null);
+        }
+    }
+
+    @Benchmark
+    public void tick(Blackhole blackhole) {
+        sendAndTick(blackhole);
+    }
+
+    private void sendAndTick(Blackhole blackhole) {
+        for (int i = 0; i < messagesPerTick; i++) {
+            channel.send(message);
+        }
+        List<Message> delivered = channel.tick();
+        if (blackhole != null) {
+            blackhole.consume(delivered);
+        }
+    }
+
+    /**
+     * The list-based channel as it was implemented before the timing wheel.
+     */
+    static class ListChannel implements ICommunicationChannel {
+        private final int delay;
+
+        private List<MessageInTransit> messagesInDelivery = new ArrayList<>();
+
+        ListChannel(int delay) {
+            this.delay = delay;
+        }
+
+        @Override
+        public void send(Message message) {
+            messagesInDelivery.add(new MessageInTransit(delay, message));
+        }
+
+        @Override
+        public List<Message> tick() {
+            List<Message> messagesDelivered = new ArrayList<>();
+            List<MessageInTransit> newMessagesInDelivery = new ArrayList<>();
+            for (MessageInTransit messageInDelivery : messagesInDelivery) {
+                if (messageInDelivery.remainingTicks == 0) {
+                    messagesDelivered.add(messageInDelivery.message);
+                } else {
+                    messageInDelivery.remainingTicks--;
+                    newMessagesInDelivery.add(messageInDelivery);
+                }
+            }
+            this.messagesInDelivery = newMessagesInDelivery;
+            return messagesDelivered;
+        }
+
+        @Override
+        public int ticksUntilNextDelivery() {
+            return 0;
+        }
+
+        @Override
+        public void skip(int ticks) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    static class MessageInTransit {
+        int remainingTicks;
+        final Message message;
+
+        MessageInTransit(int remainingTicks, Message message) {
+            this.remainingTicks = remainingTicks;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures enqueue and dequeue of mailboxes under contention: three producer threads
+ * offer messages to one mailbox, which is drained by one consumer thread.
+ * <p>
+ * Producers back off while more than <c>MAX_BACKLOG</c> messages are queued,
+ * so the benchmark measures the queue and not the garbage collector.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MailboxBenchmark {
+
+    private static final int MAX_BACKLOG = 100_000;
+
+    @Param({"mpsc", "concurrentLinkedQueue", "linkedBlockingQueue"})
+    public String mailboxType;
+
+    private IMailbox mailbox;
+
+    private final Message message = () -> 1;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        switch (mailboxType) {
+            case "mpsc":
+                mailbox = new MpscArrayMailbox();
+                break;
+            case "concurrentLinkedQueue":
+                mailbox = new QueueMailbox(new ConcurrentLinkedQueue<>());
+                break;
+            default:
+                mailbox = new QueueMailbox(new LinkedBlockingQueue<>());
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public boolean offer() {
+        if (mailbox.size() > MAX_BACKLOG) {
+            Thread.yield();
+            return false;
+        }
+        return mailbox.offer(message);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void poll(Blackhole blackhole) {
+        blackhole.consume(mailbox.poll());
+    }
+
+    /**
+     * Mailbox backed by a concurrent queue from the JDK for comparison.
+     * The size is counted separately, as <c>ConcurrentLinkedQueue.size()</c> traverses the queue.
+     */
+    static class QueueMailbox implements IMailbox {
+        private final Queue<Message> queue;
+
+        private final AtomicInteger size = new AtomicInteger(0);
+
+        QueueMailbox(Queue<Message> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public boolean offer(Message message) {
+            size.incrementAndGet();
+            return queue.offer(message);
+        }
+
+        @Override
+        public Message poll() {
+            Message message = queue.poll();
+            if (message != null)
+                size.decrementAndGet();
+            return message;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return queue.isEmpty();
+        }
+
+        @Override
+        public int size() {
+            return size.get();
+        }
+    }
+}
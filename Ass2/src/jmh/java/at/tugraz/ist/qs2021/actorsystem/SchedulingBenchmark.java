@@ -0,0 +1,86 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one tick of a {@link SimulatedActorSystem} with <c>actors</c> actors in both scheduling modes,
+ * where only two of the actors are busy, passing a message back and forth.
+ * <p>
+ * Tick-by-tick mode ticks every actor, so its time grows linearly with the number of actors and should stay
+ * close to the time of the original implementation. Event-driven mode only ticks the two busy actors.
+ * <p>
+ * {@link #activateAndTick()} additionally sends a message to {@link #ACTIVATIONS} idle actors before running
+ * three ticks, in which these actors become active, process the message and become idle again.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SchedulingBenchmark {
+
+    static final int ACTIVATIONS = 100;
+
+    @Param({"1000", "100000"})
+    public int actors;
+
+    @Param({"TICK_BY_TICK", "EVENT_DRIVEN"})
+    public SchedulingMode schedulingMode;
+
+    private SimulatedActorSystem system;
+
+    private final List<PingPongActor> idleActors = new ArrayList<>();
+
+    private int nextIdleActor = 0;
+
+    private final Message message = () -> 1;
+
+    @Setup
+    public void setUp() {
+        system = new SimulatedActorSystem(schedulingMode);
+        system.setMessageLogFactory(DisabledMessageLog::new);
+        for (int i = 0; i < actors - 2; i++) {
+            PingPongActor actor = new PingPongActor();
+            system.spawn(actor);
+            idleActors.add(actor);
+        }
+        PingPongActor first = new PingPongActor();
+        PingPongActor second = new PingPongActor();
+        system.spawn(first);
+        system.spawn(second);
+        first.partner = second;
+        second.partner = first;
+        first.tell(message);
+    }
+
+    @Benchmark
+    public void tick() throws UnknownClientException {
+        system.runFor(1);
+    }
+
+    @Benchmark
+    public void activateAndTick() throws UnknownClientException {
+        for (int i = 0; i < ACTIVATIONS; i++) {
+            // a stride coprime to the number of actors spreads the activations over all of them
+            nextIdleActor = (nextIdleActor + 7919) % idleActors.size();
+            idleActors.get(nextIdleActor).tell(message);
+        }
+        system.runFor(3);
+    }
+
+    /**
+     * Actor which sends every received message back to its partner, idle if it has none.
+     */
+    static class PingPongActor extends SimulatedActor {
+        PingPongActor partner;
+
+        @Override
+        public void receive(Message message) {
+            if (partner != null)
+                partner.tell(message);
+        }
+    }
+}
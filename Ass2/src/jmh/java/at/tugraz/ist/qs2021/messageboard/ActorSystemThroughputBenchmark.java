@@ -0,0 +1,122 @@
+package at.tugraz.ist.qs2021.messageboard;
+
+import at.tugraz.ist.qs2021.actorsystem.ISimulatedActorSystem;
+import at.tugraz.ist.qs2021.actorsystem.Message;
+import at.tugraz.ist.qs2021.actorsystem.RealTimeActorSystem;
+import at.tugraz.ist.qs2021.actorsystem.SchedulingMode;
+import at.tugraz.ist.qs2021.actorsystem.SimulatedActor;
+import at.tugraz.ist.qs2021.actorsystem.SimulatedActorSystem;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of the message board in the {@link SimulatedActorSystem}
+ * with the {@link RealTimeActorSystem}.
+ * <p>
+ * Every invocation starts a fresh message board and lets <c>clients</c> clients publish,
+ * like and search messages until each of them has performed {@link #OPERATIONS_PER_CLIENT}
+ * operations, always waiting for the reply to the previous operation. The score is the
+ * number of completed workloads per second, i.e. it has to be multiplied by
+ * <c>clients * OPERATIONS_PER_CLIENT</c> to get the number of client operations per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ActorSystemThroughputBenchmark {
+
+    static final int OPERATIONS_PER_CLIENT = 30;
+
+    private static final int NUMBER_OF_WORKERS = 4;
+
+    @Param({"8", "64"})
+    public int clients;
+
+    @Param({"simulated", "event-driven", "realtime"})
+    public String systemType;
+
+    @Benchmark
+    public int publishLikeSearch() throws Exception {
+        CountDownLatch finished = new CountDownLatch(clients);
+        if (systemType.equals("realtime")) {
+            try (RealTimeActorSystem system = new RealTimeActorSystem(Runtime.getRuntime().availableProcessors())) {
+                startClients(system, finished);
+                finished.await();
+                system.runFor(0);
+            }
+        } else {
+            SimulatedActorSystem system = new SimulatedActorSystem(systemType.equals("simulated")
+                    ? SchedulingMode.TICK_BY_TICK : SchedulingMode.EVENT_DRIVEN);
+            startClients(system, finished);
+            while (finished.getCount() > 0) {
+                system.runFor(100);
+            }
+        }
+        return clients * OPERATIONS_PER_CLIENT;
+    }
+
+    private void startClients(ISimulatedActorSystem system, CountDownLatch finished) {
+        Dispatcher dispatcher = new Dispatcher(system, NUMBER_OF_WORKERS);
+        system.spawn(dispatcher);
+        List<LoadClient> loadClients = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            LoadClient client = new LoadClient(i, finished);
+            system.spawn(client);
+            loadClients.add(client);
+        }
+        for (LoadClient client : loadClients) {
+            dispatcher.tell(new InitCommunication(client, client.clientNumber));
+        }
+    }
+
+    /**
+     * Client which cycles through publish, like and search requests and finishes
+     * its communication after {@link #OPERATIONS_PER_CLIENT} replies.
+     */
+    static class LoadClient extends SimulatedActor {
+
+        final int clientNumber;
+
+        private final CountDownLatch finished;
+
+        private SimulatedActor worker;
+
+        private int operations = 0;
+
+        LoadClient(int clientNumber, CountDownLatch finished) {
+            this.clientNumber = clientNumber;
+            this.finished = finished;
+        }
+
+        @Override
+        public void receive(Message message) {
+            if (message instanceof InitAck) {
+                worker = ((InitAck) message).worker;
+                sendNextRequest();
+            } else if (message instanceof FinishAck) {
+                finished.countDown();
+            } else {
+                operations++;
+                sendNextRequest();
+            }
+        }
+
+        private void sendNextRequest() {
+            String name = "user" + clientNumber;
+            long commId = clientNumber;
+            if (operations == OPERATIONS_PER_CLIENT) {
+                worker.tell(new FinishCommunication(commId));
+            } else if (operations % 3 == 0) {
+                worker.tell(new Publish(new UserMessage(name, "msg " + operations), commId));
+            } else if (operations % 3 == 1) {
+                worker.tell(new Like(name, commId, operations));
+            } else {
+                worker.tell(new SearchMessages("msg " + (operations - 2), commId));
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package at.tugraz.ist.qs2021.messageboard;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures retrieving the messages of an author from a {@link MessageStore} holding <c>storedMessages</c>
+ * messages, comparing the author index with the former scan over all stored messages.
+ * <p>
+ * The retrieved author has posted <c>authorMessages</c> of the messages, the others are spread over
+ * 1000 further authors. The store is filled without the duplicate check of <c>update</c>, and all
+ * messages share one text, so 10 million messages fit into a heap of a few gigabytes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class AuthorIndexBenchmark {
+
+    private static final String AUTHOR = "retrieved";
+
+    @Param({"10000", "1000000", "10000000"})
+    public int storedMessages;
+
+    @Param({"2"})
+    public int authorMessages;
+
+    private MessageStore store;
+
+    @Setup
+    public void setUp() {
+        store = new MessageStore();
+        String text = "message text";
+        String[] authors = new String[1000];
+        for (int i = 0; i < authors.length; i++) {
+            authors[i] = "author " + i;
+        }
+        int interval = storedMessages / authorMessages;
+        for (int i = 0; i < storedMessages; i++) {
+            String author = i % interval == interval / 2 ? AUTHOR : authors[i % authors.length];
+            store.store(new UserMessage(author, text));
+        }
+    }
+
+    @Benchmark
+    public List<UserMessage> index() {
+        return store.findByAuthor(AUTHOR);
+    }
+
+    @Benchmark
+    public List<UserMessage> scan() {
+        List<UserMessage> foundMessages = new ArrayList<>();
+        for (UserMessage message : store.messages.values()) {
+            if (message.getAuthor().equals(AUTHOR))
+                foundMessages.add(message);
+        }
+        return foundMessages;
+    }
+}
@@ -0,0 +1,56 @@
+package at.tugraz.ist.qs2021.messageboard;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures publishing new messages to a {@link MessageStore} already holding <c>storedMessages</c> messages,
+ * including the duplicate check of <c>update</c> and the maintenance of the indexes.
+ * <p>
+ * The store is filled once per trial and keeps growing, every iteration publishes {@link #BATCH_SIZE}
+ * further messages, so the iterations show whether the throughput is sustained as the store grows.
+ * Every seventh message repeats an earlier message of its author and is rejected.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class IngestBenchmark {
+
+    static final int BATCH_SIZE = 100_000;
+
+    @Param({"0", "1000000", "3000000"})
+    public int storedMessages;
+
+    private MessageStore store;
+
+    private int published = 0;
+
+    @Setup
+    public void setUp() {
+        store = new MessageStore();
+        while (published < storedMessages) {
+            publish();
+        }
+    }
+
+    private boolean publish() {
+        int i = published++;
+        // message i - 1000 has the same author and has not been rejected itself
+        String text = i % 7 == 6 && i >= 1000 ? "message " + (i - 1000) : "message " + i;
+        return store.update(new UserMessage("author " + i % 1000, text));
+    }
+
+    @Benchmark
+    public int publishBatch() {
+        int stored = 0;
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            if (publish())
+                stored++;
+        }
+        return stored;
+    }
+}
@@ -0,0 +1,90 @@
+package at.tugraz.ist.qs2021.messageboard;
+
+import at.tugraz.ist.qs2021.actorsystem.DisabledMessageLog;
+import at.tugraz.ist.qs2021.actorsystem.Message;
+import at.tugraz.ist.qs2021.actorsystem.SchedulingMode;
+import at.tugraz.ist.qs2021.actorsystem.SimulatedActor;
+import at.tugraz.ist.qs2021.actorsystem.SimulatedActorSystem;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.InitAck;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.InitCommunication;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.Like;
+import at.tugraz.ist.qs2021.messageboard.messagestoremessages.AddLike;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one like request in steady state, from sending the request until the reply has arrived.
+ * Meant to be run with <c>-prof gc</c>, whose <c>gc.alloc.rate.norm</c> is the number of bytes allocated per request.
+ * <p>
+ * For <c>store</c>, the request is sent to the message store directly, i.e. only the reply and the delivery
+ * of both messages allocate. For <c>board</c>, the request is sent to a worker, which spawns a worker helper
+ * for it. Message logs are disabled, as logging every message allocates by design.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RequestAllocationBenchmark {
+
+    private static final long COMMUNICATION_ID = 1000;
+
+    @Param({"store", "board"})
+    public String path;
+
+    private SimulatedActorSystem system;
+
+    private ReplyCounter client;
+
+    private SimulatedActor receiver;
+
+    private Message request;
+
+    @Setup
+    public void setUp() throws UnknownClientException {
+        system = new SimulatedActorSystem(SchedulingMode.EVENT_DRIVEN);
+        system.setMessageLogFactory(DisabledMessageLog::new);
+        client = new ReplyCounter();
+        Dispatcher dispatcher = new Dispatcher(system, 1);
+        system.spawn(dispatcher);
+        system.spawn(client);
+        dispatcher.tell(new InitCommunication(client, COMMUNICATION_ID));
+        system.runUntil(s -> client.worker != null);
+        if (path.equals("store")) {
+            AddLike addLike = new AddLike("client", 0, COMMUNICATION_ID);
+            addLike.storeClient = client;
+            receiver = dispatcher.messageStore;
+            request = addLike;
+        } else {
+            receiver = client.worker;
+            request = new Like("client", COMMUNICATION_ID, 0);
+        }
+    }
+
+    @Benchmark
+    public long like() throws UnknownClientException {
+        long replies = client.replies;
+        receiver.tell(request);
+        // polled instead of runUntil, as a capturing condition would be allocated in every invocation
+        while (client.replies == replies) {
+            system.runFor(1);
+        }
+        return client.replies;
+    }
+
+    /**
+     * Client which counts the replies it receives.
+     */
+    static class ReplyCounter extends SimulatedActor {
+        SimulatedActor worker = null;
+        long replies = 0;
+
+        @Override
+        public void receive(Message message) {
+            if (message instanceof InitAck) {
+                worker = ((InitAck) message).worker;
+            } else {
+                replies++;
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package at.tugraz.ist.qs2021.messageboard;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures searching a {@link MessageStore} holding <c>storedMessages</c> messages, comparing the trigram index
+ * with the former scan over all stored messages, which converts every author and text to lower case.
+ * <p>
+ * Texts consist of two words of a small vocabulary and a number. The search text <c>common</c> is contained in
+ * about every fifth message, <c>rare</c> in a single message, so the index only reduces the checked messages
+ * as far as the trigrams of the search text are selective.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class TrigramIndexBenchmark {
+
+    private static final String[] WORDS = {"hello", "world", "actor", "board", "message", "tick", "like", "report",
+            "search", "store"};
+
+    @Param({"10000", "1000000"})
+    public int storedMessages;
+
+    @Param({"common", "rare"})
+    public String searchTextKind;
+
+    private MessageStore store;
+
+    private String searchText;
+
+    @Setup
+    public void setUp() {
+        store = new MessageStore();
+        for (int i = 0; i < storedMessages; i++) {
+            String text = WORDS[i % WORDS.length] + " " + WORDS[i / WORDS.length % WORDS.length] + " #" + i;
+            store.store(new UserMessage("author " + i % 1000, text));
+        }
+        searchText = searchTextKind.equals("common") ? "ACTOR" : "#" + storedMessages / 2;
+    }
+
+    @Benchmark
+    public List<UserMessage> index() {
+        return store.findByAuthorOrText(searchText);
+    }
+
+    @Benchmark
+    public List<UserMessage> scan() {
+        List<UserMessage> foundMessages = new ArrayList<>();
+        for (UserMessage message : store.messages.values()) {
+            if (message.getAuthor().toLowerCase().contains(searchText.toLowerCase()) ||
+                    message.getMessage().toLowerCase().contains(searchText.toLowerCase()))
+                foundMessages.add(message);
+        }
+        return foundMessages;
+    }
+}
@@ -0,0 +1,71 @@
+package at.tugraz.ist.qs2021.messageboard;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures checking whether a user already liked a message with <c>votes</c> likes, as done for every
+ * <c>AddLike</c>, comparing the {@link VoteSet} with the former list of names.
+ * <p>
+ * The checked users have not voted, so the list is searched completely like for every successful vote.
+ * Voters are users with consecutive IDs, of which every <c>spread</c>-th one voted, so with a spread
+ * of at most 64 the votes are stored in a bitmap, with larger spreads in a hash table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class VoteBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int votes;
+
+    @Param({"2", "100"})
+    public int spread;
+
+    private final List<String> list = new ArrayList<>();
+
+    private final UserDictionary dictionary = new UserDictionary();
+
+    private final VoteSet set = new VoteSet(dictionary);
+
+    private String[] checkedUsers;
+
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        checkedUsers = new String[1024];
+        for (int i = 0; i < votes * spread; i++) {
+            String name = "user " + votes + " " + spread + " " + i;
+            dictionary.intern(name);
+            if (i % spread == 0) {
+                list.add(name);
+                set.add(name);
+            } else if (i % spread == 1 && next < checkedUsers.length) {
+                checkedUsers[next++] = name;
+            }
+        }
+        checkedUsers = Arrays.copyOf(checkedUsers, next);
+        next = 0;
+    }
+
+    private String nextUser() {
+        String user = checkedUsers[next];
+        next = next + 1 == checkedUsers.length ? 0 : next + 1;
+        return user;
+    }
+
+    @Benchmark
+    public boolean list() {
+        return list.contains(nextUser());
+    }
+
+    @Benchmark
+    public boolean voteSet() {
+        return set.containsId(dictionary.intern(nextUser()));
+    }
+}
@@ -0,0 +1,114 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.io.Serializable;
+
+/**
+ * Binary min-heap of actors ordered by their IDs, used by {@link SimulatedActorSystem} for its set of active actors.
+ * Every actor knows the heap it is contained in and its position, so actors can be removed in logarithmic time.
+ * Unlike a TreeMap, the heap does not allocate when actors are added, unless it has to grow.
+ */
+class ActorHeap implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private SimulatedActor[] actors = new SimulatedActor[16];
+
+    private int size = 0;
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param index position in the heap, between 0 and size() - 1
+     * @return the actor at the given position, i.e. iterating over all positions does not visit actors in ID order
+     */
+    SimulatedActor get(int index) {
+        return actors[index];
+    }
+
+    /**
+     * Adds an actor, which must not be contained in any heap.
+     *
+     * @param actor the actor to add
+     */
+    void add(SimulatedActor actor) {
+        if (size == actors.length) {
+            SimulatedActor[] grown = new SimulatedActor[size * 2];
+            System.arraycopy(actors, 0, grown, 0, size);
+            actors = grown;
+        }
+        actor.heap = this;
+        place(actor, size++);
+        siftUp(actor.heapIndex);
+    }
+
+    /**
+     * @return the actor with the lowest ID, which is removed from the heap
+     */
+    SimulatedActor poll() {
+        SimulatedActor first = actors[0];
+        removeAt(0);
+        return first;
+    }
+
+    /**
+     * Removes the given actor, which must be contained in this heap.
+     *
+     * @param actor the actor to remove
+     */
+    void remove(SimulatedActor actor) {
+        removeAt(actor.heapIndex);
+    }
+
+    private void removeAt(int index) {
+        SimulatedActor removed = actors[index];
+        SimulatedActor last = actors[--size];
+        actors[size] = null;
+        if (index < size) {
+            place(last, index);
+            siftDown(index);
+            if (actors[index] == last) {
+                siftUp(index);
+            }
+        }
+        removed.heap = null;
+        removed.heapIndex = -1;
+    }
+
+    private void siftUp(int index) {
+        SimulatedActor actor = actors[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (actors[parent].getId() <= actor.getId())
+                break;
+            place(actors[parent], index);
+            index = parent;
+        }
+        place(actor, index);
+    }
+
+    private void siftDown(int index) {
+        SimulatedActor actor = actors[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && actors[child + 1].getId() < actors[child].getId())
+                child++;
+            if (actor.getId() <= actors[child].getId())
+                break;
+            place(actors[child], index);
+            index = child;
+        }
+        place(actor, index);
+    }
+
+    private void place(SimulatedActor actor, int index) {
+        actors[index] = actor;
+        actor.heapIndex = index;
+    }
+}
@@ -0,0 +1,116 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Runtime metrics of one actor at some point in time, see {@link SimulatedActor#getMetrics()}.
+ */
+public final class ActorMetrics {
+
+    private final long id;
+
+    private final String type;
+
+    private final int mailboxDepth;
+
+    private final int messagesInTransit;
+
+    private final long busyTicks;
+
+    private final int ticksAlive;
+
+    private final long droppedMessages;
+
+    private final Map<String, Long> processedMessages;
+
+    ActorMetrics(long id, String type, int mailboxDepth, int messagesInTransit, long busyTicks, int ticksAlive,
+                 long droppedMessages, Map<String, Long> processedMessages) {
+        this.id = id;
+        this.type = type;
+        this.mailboxDepth = mailboxDepth;
+        this.messagesInTransit = messagesInTransit;
+        this.busyTicks = busyTicks;
+        this.ticksAlive = ticksAlive;
+        this.droppedMessages = droppedMessages;
+        this.processedMessages = Collections.unmodifiableMap(processedMessages);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return The simple class name of the actor.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @return The number of delivered messages waiting in the mailbox.
+     */
+    public int getMailboxDepth() {
+        return mailboxDepth;
+    }
+
+    /**
+     * @return The number of messages which have been sent, but not delivered yet.
+     */
+    public int getMessagesInTransit() {
+        return messagesInTransit;
+    }
+
+    /**
+     * @return The number of ticks in which the actor was processing a message.
+     */
+    public long getBusyTicks() {
+        return busyTicks;
+    }
+
+    /**
+     * @return The number of ticks since the actor has been spawned.
+     */
+    public int getTicksAlive() {
+        return ticksAlive;
+    }
+
+    /**
+     * @return The share of the ticks since the actor has been spawned in which it was busy, between 0 and 1.
+     */
+    public double getUtilization() {
+        return ticksAlive == 0 ? 0 : Math.min(1, (double) busyTicks / ticksAlive);
+    }
+
+    /**
+     * @return The number of messages dropped or rejected, because the capacity of the actor was reached.
+     */
+    public long getDroppedMessages() {
+        return droppedMessages;
+    }
+
+    /**
+     * @return The number of messages the actor started to process by the simple class names of the messages.
+     */
+    public Map<String, Long> getProcessedMessages() {
+        return processedMessages;
+    }
+
+    /**
+     * @return The number of messages the actor started to process.
+     */
+    public long getTotalProcessedMessages() {
+        long total = 0;
+        for (long count : processedMessages.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + id + ", utilization " + String.format("%.2f", getUtilization())
+                + ", mailbox " + mailboxDepth + ", in transit " + messagesInTransit
+                + ", processed " + getTotalProcessedMessages() + ", dropped " + droppedMessages + ')';
+    }
+}
@@ -0,0 +1,34 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.util.ArrayDeque;
+
+/**
+ * Default mailbox for actors run by the {@link SimulatedActorSystem}, backed by
+ * a growing ring buffer. It must only be used by one thread.
+ */
+public class ArrayDequeMailbox implements IMailbox {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ArrayDeque<Message> messages = new ArrayDeque<>();
+
+    @Override
+    public boolean offer(Message message) {
+        return messages.offer(message);
+    }
+
+    @Override
+    public Message poll() {
+        return messages.poll();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return messages.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return messages.size();
+    }
+}
@@ -1,41 +1,243 @@
 package at.tugraz.ist.qs2021.actorsystem;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Abstract CommunicationChannel class implementing the Tick method,
  * which is common to all concrete implementations of communication channels.
+ * <p>
+ * Messages in transit are kept in a hashed timing wheel: every message is stored
+ * in the bucket of the tick at which it arrives, so a call to {@link ICommunicationChannel#tick()}
+ * only touches the messages delivered by it. The wheel grows whenever a message with
+ * a delay greater than the current number of buckets is sent, so every bucket
+ * only holds messages arriving at the same tick.
+ * <p>
+ * When a channel is serialized, e.g. for a {@link SimulationSnapshot}, the messages in transit are written one by one
+ * together with their due ticks, as the default serialization would recurse along the messages of a bucket.
  */
 public abstract class CommunicationChannel implements ICommunicationChannel {
 
-    private List<MessageInDelivery> messagesInDelivery = new ArrayList<>();
+    private static final long serialVersionUID = 1L;
+
+    private static final int INITIAL_WHEEL_SIZE = 4;
+
+    /**
+     * First message of each bucket, messages within a bucket are linked
+     * in the order in which they were sent.
+     */
+    private transient MessageInDelivery[] heads = new MessageInDelivery[INITIAL_WHEEL_SIZE];
+
+    /**
+     * Last message of each bucket, used to append messages in constant time.
+     */
+    private transient MessageInDelivery[] tails = new MessageInDelivery[INITIAL_WHEEL_SIZE];
+
+    /**
+     * Number of calls to {@link ICommunicationChannel#tick()} (including skipped ones) so far.
+     */
+    private long currentTick = 0;
 
     /**
-     * Adds the given message to the list.
+     * Number of messages currently in transit.
+     */
+    private int messagesInTransit = 0;
+
+    /**
+     * Set while {@link CommunicationChannel#sendBackdated(Message)} is executed.
+     */
+    private boolean backdating = false;
+
+    /**
+     * Messages which arrived immediately while backdating.
+     */
+    private List<Message> deliveredWhileBackdating = null;
+
+    /**
+     * Adds the given message to the bucket of the tick at which it arrives.
      *
      * @param messageInDelivery The object to add to the list.
      */
     protected void addMessageInDelivery(MessageInDelivery messageInDelivery) {
-        this.messagesInDelivery.add(messageInDelivery);
+        int delay = messageInDelivery.getDuration();
+        if (backdating) {
+            if (delay == 0) {
+                // already arrived during the last tick
+                deliveredWhileBackdating.add(messageInDelivery.getMessage());
+                return;
+            }
+            delay--;
+        }
+        if (delay >= heads.length) {
+            resize(delay);
+        }
+        messageInDelivery.dueTick = currentTick + delay;
+        append(messageInDelivery);
+        messagesInTransit++;
+    }
+
+    private void append(MessageInDelivery messageInDelivery) {
+        int bucket = bucketOf(messageInDelivery.dueTick);
+        if (heads[bucket] == null) {
+            heads[bucket] = messageInDelivery;
+        } else {
+            tails[bucket].next = messageInDelivery;
+        }
+        tails[bucket] = messageInDelivery;
+    }
+
+    /**
+     * Sends the message as if it had been sent before the last call to {@link ICommunicationChannel#tick()},
+     * i.e. it takes one tick less to arrive. Messages which would have arrived during the last
+     * tick are not added to the channel, but returned.
+     *
+     * @param message The message to send.
+     * @return The message if it would have arrived during the last tick, an empty list otherwise.
+     */
+    List<Message> sendBackdated(Message message) {
+        backdating = true;
+        deliveredWhileBackdating = new ArrayList<>(1);
+        try {
+            send(message);
+            return deliveredWhileBackdating;
+        } finally {
+            backdating = false;
+            deliveredWhileBackdating = null;
+        }
     }
 
     @Override
     public List<Message> tick() {
-        List<Message> messagesDelivered = new ArrayList<>();
-        List<MessageInDelivery> newMessagesInDelivery = new ArrayList<>();
-
-        for (MessageInDelivery messageInDelivery : messagesInDelivery) {
-            if (messageInDelivery.tick()) {
-                // message arrived at destination
-                messagesDelivered.add(messageInDelivery.getMessage());
-            } else {
-                // add message with decremented remainingTicks again
-                newMessagesInDelivery.add(messageInDelivery);
+        int bucket = bucketOf(currentTick);
+        currentTick++;
+        MessageInDelivery messageInDelivery = heads[bucket];
+        if (messageInDelivery == null) {
+            return Collections.emptyList();
+        }
+        heads[bucket] = null;
+        tails[bucket] = null;
+
+        List<Message> delivered = new ArrayList<>();
+        while (messageInDelivery != null) {
+            delivered.add(messageInDelivery.getMessage());
+            MessageInDelivery next = messageInDelivery.next;
+            messageInDelivery.next = null;
+            messageInDelivery = next;
+        }
+        messagesInTransit -= delivered.size();
+        return delivered;
+    }
+
+    @Override
+    public int ticksUntilNextDelivery() {
+        if (messagesInTransit == 0) {
+            return NO_DELIVERY;
+        }
+        int ticksUntilNextDelivery = 0;
+        while (heads[bucketOf(currentTick + ticksUntilNextDelivery)] == null) {
+            ticksUntilNextDelivery++;
+        }
+        return ticksUntilNextDelivery;
+    }
+
+    @Override
+    public void skip(int ticks) {
+        currentTick += ticks;
+    }
+
+    /**
+     * Removes the message in transit which arrives first, used to make room
+     * for newer messages if the receiver is overloaded. Control messages are skipped.
+     *
+     * @return The removed message or null if no message other than control messages is in transit.
+     */
+    Message dropFirst() {
+        if (messagesInTransit == 0) {
+            return null;
+        }
+        for (int i = 0; i < heads.length; i++) {
+            int bucket = bucketOf(currentTick + i);
+            MessageInDelivery previous = null;
+            for (MessageInDelivery current = heads[bucket]; current != null; current = current.next) {
+                if (current.getMessage() instanceof ControlMessage) {
+                    previous = current;
+                    continue;
+                }
+                if (previous == null) {
+                    heads[bucket] = current.next;
+                } else {
+                    previous.next = current.next;
+                }
+                if (tails[bucket] == current) {
+                    tails[bucket] = previous;
+                }
+                current.next = null;
+                messagesInTransit--;
+                return current.getMessage();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Number of messages currently in transit.
+     */
+    public int getMessagesInTransit() {
+        return messagesInTransit;
+    }
+
+    private int bucketOf(long tick) {
+        return (int) (tick & (heads.length - 1));
+    }
+
+    /**
+     * Grows the wheel, such that messages with the given delay do not share a bucket
+     * with messages arriving at an earlier tick. Messages are redistributed bucket by bucket,
+     * which preserves the sending order of messages arriving at the same tick.
+     *
+     * @param delay the delay which has to fit into the wheel
+     */
+    private void resize(int delay) {
+        MessageInDelivery[] oldHeads = heads;
+        int size = Integer.highestOneBit(delay) << 1;
+        heads = new MessageInDelivery[size];
+        tails = new MessageInDelivery[size];
+        for (int i = 0; i < oldHeads.length; i++) {
+            // start with the bucket of the current tick to keep the order of the wheel
+            MessageInDelivery messageInDelivery = oldHeads[(int) ((currentTick + i) & (oldHeads.length - 1))];
+            while (messageInDelivery != null) {
+                MessageInDelivery next = messageInDelivery.next;
+                messageInDelivery.next = null;
+                append(messageInDelivery);
+                messageInDelivery = next;
             }
         }
+    }
+
+    /**
+     * Writes the size of the wheel and the messages in transit in the order of their arrival.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(heads.length);
+        for (int i = 0; i < heads.length; i++) {
+            for (MessageInDelivery current = heads[bucketOf(currentTick + i)]; current != null; current = current.next) {
+                out.writeObject(current);
+            }
+        }
+    }
 
-        this.messagesInDelivery = newMessagesInDelivery;
-        return messagesDelivered;
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int size = in.readInt();
+        heads = new MessageInDelivery[size];
+        tails = new MessageInDelivery[size];
+        for (int i = 0; i < messagesInTransit; i++) {
+            append((MessageInDelivery) in.readObject());
+        }
     }
 }
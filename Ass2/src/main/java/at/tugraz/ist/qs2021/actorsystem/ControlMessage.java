@@ -0,0 +1,10 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+/**
+ * Marker interface for messages controlling actors, e.g. messages used to stop actors.
+ * Actors with a {@link PriorityMailbox} process control messages before all other
+ * messages waiting in their mailbox, and control messages are never dropped because
+ * the capacity of an actor is reached.
+ */
+public interface ControlMessage extends Message {
+}
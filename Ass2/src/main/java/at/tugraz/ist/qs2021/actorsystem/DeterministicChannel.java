@@ -2,6 +2,8 @@ package at.tugraz.ist.qs2021.actorsystem;
 
 public class DeterministicChannel extends CommunicationChannel {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Fixed delay for this channel. All messages transmitted via this
      * channel take (delay + 1) calls to {@link ICommunicationChannel#tick()} to send.
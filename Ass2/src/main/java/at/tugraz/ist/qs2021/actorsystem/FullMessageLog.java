@@ -0,0 +1,29 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Default message log, which keeps all messages ever sent to an actor.
+ * Its memory consumption grows with the number of messages sent.
+ */
+public class FullMessageLog implements IMessageLog {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Message> messages = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public void add(Message message) {
+        messages.add(message);
+    }
+
+    /**
+     * @return The list of all messages itself, not a copy.
+     */
+    @Override
+    public List<Message> getMessages() {
+        return messages;
+    }
+}
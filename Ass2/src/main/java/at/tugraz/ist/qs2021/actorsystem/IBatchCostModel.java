@@ -0,0 +1,18 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Defines how long an actor is busy processing a batch of messages,
+ * see {@link SimulatedActor#enableBatchReceive(int, IBatchCostModel)}.
+ */
+public interface IBatchCostModel extends Serializable {
+
+    /**
+     * @param batch Non-empty list of messages processed together
+     * @return Number of ticks the actor is busy before the batch is passed to
+     * {@link SimulatedActor#receiveBatch(List)}.
+     */
+    int getDuration(List<Message> batch);
+}
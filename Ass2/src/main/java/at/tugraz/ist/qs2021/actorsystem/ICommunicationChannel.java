@@ -1,5 +1,6 @@
 package at.tugraz.ist.qs2021.actorsystem;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
@@ -9,7 +10,13 @@ import java.util.List;
  * causes some delay for the transmission of messages. This corresponds e.g. to
  * TCP/IP connections in actor applications.
  */
-public interface ICommunicationChannel {
+public interface ICommunicationChannel extends Serializable {
+
+    /**
+     * Returned by {@link ICommunicationChannel#ticksUntilNextDelivery()} if no messages
+     * are currently transmitted via this channel.
+     */
+    int NO_DELIVERY = Integer.MAX_VALUE;
 
     /**
      * This method is used to send messages via this channel,
@@ -27,7 +34,27 @@ public interface ICommunicationChannel {
      * except for those having zero ticks left, those messages should be returned,
      * because they reached their destinations.
      *
-     * @return All messages having zero ticks left (upon entering the method).
+     * @return All messages having zero ticks left (upon entering the method), in a list which is not
+     * changed by later calls.
      */
     List<Message> tick();
+
+    /**
+     * Number of calls to {@link ICommunicationChannel#tick()} which will not deliver any message,
+     * i.e. the next message arrives at the destination with call number (ticksUntilNextDelivery() + 1).
+     *
+     * @return Number of ticks without deliveries or {@link ICommunicationChannel#NO_DELIVERY}
+     * if no messages are in transit.
+     */
+    int ticksUntilNextDelivery();
+
+    /**
+     * Advances the channel by the given number of time units at once. This is equivalent
+     * to calling {@link ICommunicationChannel#tick()} the given number of times, which is
+     * only allowed if none of these calls would deliver a message.
+     *
+     * @param ticks Number of time units to skip, must not be greater than
+     *              {@link ICommunicationChannel#ticksUntilNextDelivery()}.
+     */
+    void skip(int ticks);
 }
@@ -0,0 +1,46 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.io.Serializable;
+
+/**
+ * Queue of the messages which have been delivered to an actor, but have not been processed yet.
+ * Messages are taken from the mailbox by the actor owning it only (single consumer),
+ * but implementations used by concurrent runtimes might be filled by several threads.
+ */
+public interface IMailbox extends Serializable {
+
+    /**
+     * Adds a message to the end of the mailbox.
+     *
+     * @param message Non-null message delivered to the actor
+     * @return true if the message has been added
+     */
+    boolean offer(Message message);
+
+    /**
+     * Removes the first message of the mailbox.
+     *
+     * @return The first message or null if the mailbox is empty.
+     */
+    Message poll();
+
+    /**
+     * Removes a message to make room for newer messages if the actor is overloaded,
+     * see {@link OverflowPolicy#DROP_OLDEST}. By default, the first message is removed.
+     *
+     * @return The removed message or null if the mailbox is empty.
+     */
+    default Message dropOldest() {
+        return poll();
+    }
+
+    /**
+     * @return true if no message is in the mailbox
+     */
+    boolean isEmpty();
+
+    /**
+     * @return The number of messages in the mailbox.
+     */
+    int size();
+}
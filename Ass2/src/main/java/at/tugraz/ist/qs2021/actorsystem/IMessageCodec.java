@@ -0,0 +1,77 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Converts messages of one type to the compact binary payload stored in traces, see {@link MessageCodecs}.
+ *
+ * @param <T> type of the messages
+ */
+public interface IMessageCodec<T extends Message> {
+
+    /**
+     * @param message Non-null message to write
+     * @param out     destination of the payload
+     */
+    void encode(T message, DataOutput out) throws IOException;
+
+    /**
+     * @param in     source of the payload written by {@link IMessageCodec#encode(Message, DataOutput)}
+     * @param actors resolves IDs of actors referenced by the message to the actors of the replaying system
+     * @return the decoded message
+     */
+    T decode(DataInput in, ActorResolver actors) throws IOException;
+
+    /**
+     * Combines an encoding and a decoding function into a codec.
+     *
+     * @param encoder writes the payload
+     * @param decoder reads the payload
+     * @param <T>     type of the messages
+     * @return the codec
+     */
+    static <T extends Message> IMessageCodec<T> of(Encoder<T> encoder, Decoder<T> decoder) {
+        return new IMessageCodec<T>() {
+            @Override
+            public void encode(T message, DataOutput out) throws IOException {
+                encoder.encode(message, out);
+            }
+
+            @Override
+            public T decode(DataInput in, ActorResolver actors) throws IOException {
+                return decoder.decode(in, actors);
+            }
+        };
+    }
+
+    /**
+     * @see IMessageCodec#encode(Message, DataOutput)
+     */
+    @FunctionalInterface
+    interface Encoder<T extends Message> {
+        void encode(T message, DataOutput out) throws IOException;
+    }
+
+    /**
+     * @see IMessageCodec#decode(DataInput, ActorResolver)
+     */
+    @FunctionalInterface
+    interface Decoder<T extends Message> {
+        T decode(DataInput in, ActorResolver actors) throws IOException;
+    }
+
+    /**
+     * Looks up actors by their IDs when messages are decoded, e.g. <c>system::getActor</c>.
+     */
+    @FunctionalInterface
+    interface ActorResolver {
+
+        /**
+         * @param id ID of the actor
+         * @return the actor, or null if there is no such actor
+         */
+        SimulatedActor getActor(long id);
+    }
+}
@@ -0,0 +1,26 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Policy deciding which of the messages sent to an actor are kept for
+ * debugging and testing, see {@link ISimulatedActor#getMessageLog()}.
+ * <p>
+ * Implementations must be thread-safe, as messages might be sent to an
+ * actor concurrently, e.g. in a {@link RealTimeActorSystem}.
+ */
+public interface IMessageLog extends Serializable {
+
+    /**
+     * Called whenever a message is sent to the actor owning this log.
+     *
+     * @param message Non-null message sent
+     */
+    void add(Message message);
+
+    /**
+     * @return The logged messages in the order in which they have been sent.
+     */
+    List<Message> getMessages();
+}
@@ -22,6 +22,13 @@ import java.util.List;
  * this is not a requirement for the exercises, unless otherwise specified.
  */
 public interface ISimulatedActor {
+
+    /**
+     * Returned by {@link ISimulatedActor#getIdleTicks()} if the actor has nothing
+     * to do until another message is sent to it.
+     */
+    int NO_EVENT = Integer.MAX_VALUE;
+
     /**
      * @return Unique id assigned to each actor
      */
@@ -38,6 +45,7 @@ public interface ISimulatedActor {
      * @return All messages sent to this actor, this includes messages in transit,
      * already processed messages and messages in the <c>messageBox</c>.
      * It is used to alleviate debugging and testing.
+     * Depending on the {@link IMessageLog} of the actor, only some or none of the messages are returned.
      */
     List<Message> getMessageLog();
 
@@ -90,6 +98,26 @@ public interface ISimulatedActor {
      */
     void tick() throws UnknownClientException;
 
+    /**
+     * Number of upcoming calls to {@link ISimulatedActor#tick()} which only advance time, i.e.
+     * which neither deliver nor process a message. Actors overriding {@link ISimulatedActor#tick()}
+     * with time-dependent logic must take this logic into account as well.
+     * <p>
+     * It is used by the event-driven scheduling mode of the actor system to skip idle periods.
+     *
+     * @return Number of idle ticks or {@link ISimulatedActor#NO_EVENT} if the actor is idle
+     * until another message is sent to it.
+     */
+    int getIdleTicks();
+
+    /**
+     * Advances the actor by the given number of idle ticks at once. This has to have the
+     * same effect as calling {@link ISimulatedActor#tick()} the given number of times.
+     *
+     * @param ticks Number of ticks to skip, must not be greater than {@link ISimulatedActor#getIdleTicks()}.
+     */
+    void skipIdleTicks(int ticks);
+
     /**
      * Method which is called when the actor is spawned.
      */
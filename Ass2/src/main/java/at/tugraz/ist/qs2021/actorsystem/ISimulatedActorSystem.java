@@ -3,6 +3,7 @@ package at.tugraz.ist.qs2021.actorsystem;
 import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
 
 import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Interface for SimulatedActorSystem class.
@@ -16,7 +17,8 @@ import java.util.List;
 public interface ISimulatedActorSystem {
 
     /**
-     * @return A list containing all actors, which have been started but not stopped.
+     * @return A list containing all actors, which have been started but not stopped. The list is a copy,
+     * which does not change when actors are spawned or stopped afterwards, and changing it does not affect the system.
      */
     List<SimulatedActor> getActors();
 
@@ -57,6 +59,27 @@ public interface ISimulatedActorSystem {
      */
     void runUntil(int endTime) throws UnknownClientException;
 
+    /**
+     * Runs the system until the given condition holds, which is checked before the first tick and after every tick.
+     * In event-driven mode, ticks in which nothing happens are skipped, so conditions on the current time only
+     * should be expressed with {@link #runUntil(int)} instead.
+     *
+     * @param condition the condition to wait for
+     * @return true if the condition holds, false if the system became quiescent before
+     */
+    boolean runUntil(Predicate<? super ISimulatedActorSystem> condition) throws UnknownClientException;
+
+    /**
+     * Runs the system until it is quiescent, see {@link #isQuiescent()}.
+     */
+    void runUntilQuiescent() throws UnknownClientException;
+
+    /**
+     * @return true if no messages are in transit or waiting in a mailbox and no actor is busy,
+     * i.e. further ticks would only advance the current time
+     */
+    boolean isQuiescent();
+
     /**
      * Stops the actor passed as parameter,
      * by removing it from the list of active actors.
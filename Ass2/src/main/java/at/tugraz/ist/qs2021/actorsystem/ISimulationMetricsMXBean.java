@@ -0,0 +1,31 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.util.List;
+
+/**
+ * Management interface exporting the metrics of a simulated system via JMX, see {@link SimulationMetrics}.
+ */
+public interface ISimulationMetricsMXBean {
+
+    int getCurrentTime();
+
+    int getLiveActors();
+
+    long getSpawnedActors();
+
+    long getStoppedActors();
+
+    double getSpawnRate();
+
+    double getStopRate();
+
+    /**
+     * @return A description of the most utilized actor, or null if there are no actors.
+     */
+    String getBusiestActor();
+
+    /**
+     * @return The metrics of all live actors, the most utilized actor first.
+     */
+    List<ActorMetrics> getActors();
+}
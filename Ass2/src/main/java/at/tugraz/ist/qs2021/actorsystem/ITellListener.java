@@ -0,0 +1,38 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+/**
+ * Observes all messages sent to the actors of a {@link SimulatedActorSystem},
+ * see {@link SimulatedActorSystem#setTellListener(ITellListener)}.
+ */
+@FunctionalInterface
+public interface ITellListener {
+
+    /**
+     * Sender ID of messages sent from outside of a tick, e.g. by tests.
+     */
+    long EXTERNAL_SENDER = -1;
+
+    /**
+     * Called whenever an actor accepts a message sent to it. Messages dropped or rejected, because the capacity
+     * of the receiver is reached, are not reported, see {@link SimulatedActor#getDroppedMessages()}. A message
+     * dropped later to make room for a newer one, see {@link OverflowPolicy#DROP_OLDEST}, has been reported.
+     *
+     * @param senderId ID of the actor which sent the message while it was ticked, or {@link ITellListener#EXTERNAL_SENDER}
+     * @param receiver the actor the message is sent to
+     * @param message  the message
+     * @param tick     the message is sent as if it was sent from outside of a tick at this time of the system,
+     *                 i.e. the current time, or the next time if the receiver has already been ticked in the current tick
+     */
+    void onTell(long senderId, SimulatedActor receiver, Message message, int tick);
+
+    /**
+     * @param other listener notified after this listener
+     * @return A listener notifying both listeners, e.g. to trace and record the same run.
+     */
+    default ITellListener andThen(ITellListener other) {
+        return (senderId, receiver, message, tick) -> {
+            onTell(senderId, receiver, message, tick);
+            other.onTell(senderId, receiver, message, tick);
+        };
+    }
+}
@@ -0,0 +1,128 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of non-negative latencies in ticks with a bounded relative error, in the style of HdrHistogram.
+ * <p>
+ * Values below {@link LatencyHistogram#SUB_BUCKETS} are counted exactly. Larger values are counted in buckets
+ * covering ranges of values which double from one power of two to the next, with {@link LatencyHistogram#SUB_BUCKETS}
+ * / 2 buckets per power of two, so values are reported with a relative error below 2 percent.
+ * Recording a value does not allocate unless the histogram has to grow to cover a larger value than before.
+ */
+public class LatencyHistogram {
+
+    /**
+     * number of values counted exactly, must be a power of two
+     */
+    static final int SUB_BUCKETS = 128;
+
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+    private long[] counts = new long[SUB_BUCKETS];
+
+    private long totalCount = 0;
+
+    private long sum = 0;
+
+    private long min = Long.MAX_VALUE;
+
+    private long max = 0;
+
+    /**
+     * @param value non-negative latency
+     */
+    public void record(long value) {
+        if (value < 0)
+            throw new IllegalArgumentException("value must not be negative");
+        int index = indexOf(value);
+        if (index >= counts.length)
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+        counts[index]++;
+        totalCount++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds all values recorded by another histogram to this histogram.
+     */
+    public void add(LatencyHistogram other) {
+        if (other.counts.length > counts.length)
+            counts = Arrays.copyOf(counts, other.counts.length);
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return The smallest recorded value, 0 if no values have been recorded.
+     */
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    /**
+     * @param percentile percentile between 0 and 100, e.g. 99.9
+     * @return The value below or at which the given percentage of the recorded values lies,
+     * up to the precision of the histogram, 0 if no values have been recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        if (totalCount == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(highestValueOf(i), max);
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "count " + totalCount + ", p50 " + getValueAtPercentile(50) + ", p99 " + getValueAtPercentile(99)
+                + ", p99.9 " + getValueAtPercentile(99.9) + ", max " + max;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        // value >> shift lies between HALF_SUB_BUCKETS and SUB_BUCKETS
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) (value >> shift) - HALF_SUB_BUCKETS;
+    }
+
+    /**
+     * @return the largest value counted in the bucket with the given index
+     */
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+        int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long top = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
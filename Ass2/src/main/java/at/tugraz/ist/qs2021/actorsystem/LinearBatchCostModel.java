@@ -0,0 +1,32 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.util.List;
+
+/**
+ * Batch cost model charging a fixed cost per batch, e.g. for lookups shared by all
+ * messages of the batch, and a constant cost per message.
+ */
+public class LinearBatchCostModel implements IBatchCostModel {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int costPerBatch;
+
+    private final int costPerMessage;
+
+    /**
+     * Constructs a new LinearBatchCostModel.
+     *
+     * @param costPerBatch   number of ticks charged once per batch
+     * @param costPerMessage number of ticks charged for each message of the batch
+     */
+    public LinearBatchCostModel(int costPerBatch, int costPerMessage) {
+        this.costPerBatch = costPerBatch;
+        this.costPerMessage = costPerMessage;
+    }
+
+    @Override
+    public int getDuration(List<Message> batch) {
+        return costPerBatch + costPerMessage * batch.size();
+    }
+}
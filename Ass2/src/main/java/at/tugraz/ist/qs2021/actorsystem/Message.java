@@ -1,10 +1,12 @@
 package at.tugraz.ist.qs2021.actorsystem;
 
+import java.io.Serializable;
+
 /**
  * Interface which all messages need to implement.
  * Message instances are used for communication between actors.
  */
-public interface Message {
+public interface Message extends Serializable {
 
     /**
      * To simulate that the processing of messages takes a certain amount of time,
@@ -0,0 +1,181 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of the codecs used to write and read the payloads of messages in traces,
+ * see {@link TraceRecorder} and {@link TraceReplayer}.
+ * <p>
+ * Codecs are looked up by the exact class of a message. Messages without a registered codec are written using
+ * Java serialization, which is much larger, but works for all messages. In both cases, references to actors are
+ * written as actor IDs, which are resolved to the actors of the replaying system when messages are decoded.
+ */
+public class MessageCodecs {
+
+    private final Map<String, IMessageCodec<?>> codecs = new HashMap<>();
+
+    /**
+     * Registers the codec used for messages of the given type, replacing a previously registered codec.
+     *
+     * @param type  exact class of the messages
+     * @param codec the codec
+     * @param <T>   type of the messages
+     * @return this registry, to register several codecs in a row
+     */
+    public <T extends Message> MessageCodecs register(Class<T> type, IMessageCodec<T> codec) {
+        codecs.put(type.getName(), codec);
+        return this;
+    }
+
+    /**
+     * Registers a codec consisting of the given functions, see {@link IMessageCodec#of(IMessageCodec.Encoder, IMessageCodec.Decoder)}.
+     */
+    public <T extends Message> MessageCodecs register(Class<T> type, IMessageCodec.Encoder<T> encoder,
+                                                      IMessageCodec.Decoder<T> decoder) {
+        return register(type, IMessageCodec.of(encoder, decoder));
+    }
+
+    /**
+     * Writes the payload of a message.
+     *
+     * @param message Non-null message
+     * @param out     destination of the payload
+     */
+    @SuppressWarnings("unchecked")
+    public void encode(Message message, DataOutput out) throws IOException {
+        IMessageCodec<Message> codec = (IMessageCodec<Message>) codecs.get(message.getClass().getName());
+        if (codec != null) {
+            codec.encode(message, out);
+        } else {
+            try (ObjectOutputStream objects = new ActorReplacingOutputStream(new DataOutputAdapter(out))) {
+                objects.writeObject(message);
+            }
+        }
+    }
+
+    /**
+     * Reads the payload of a message.
+     *
+     * @param type   class name of the message
+     * @param in     source of the payload
+     * @param actors resolves actor IDs to the actors of the replaying system
+     * @return the decoded message
+     */
+    public Message decode(String type, DataInput in, IMessageCodec.ActorResolver actors) throws IOException {
+        IMessageCodec<?> codec = codecs.get(type);
+        if (codec != null)
+            return codec.decode(in, actors);
+        try (ObjectInputStream objects = new ActorResolvingInputStream(new DataInputAdapter(in), actors)) {
+            return (Message) objects.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown message type " + type, e);
+        }
+    }
+
+    /**
+     * Writes a reference to an actor, which may be null.
+     */
+    public static void writeActor(SimulatedActor actor, DataOutput out) throws IOException {
+        out.writeLong(actor == null ? -1 : actor.getId());
+    }
+
+    /**
+     * Reads a reference written by {@link MessageCodecs#writeActor(SimulatedActor, DataOutput)}.
+     */
+    public static SimulatedActor readActor(DataInput in, IMessageCodec.ActorResolver actors) throws IOException {
+        long id = in.readLong();
+        return id < 0 ? null : actors.getActor(id);
+    }
+
+    /**
+     * Placeholder written instead of actors, as actors are not copied into traces.
+     */
+    private static class ActorReference implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long id;
+
+        ActorReference(long id) {
+            this.id = id;
+        }
+    }
+
+    private static class ActorReplacingOutputStream extends ObjectOutputStream {
+        ActorReplacingOutputStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            return obj instanceof SimulatedActor ? new ActorReference(((SimulatedActor) obj).getId()) : obj;
+        }
+    }
+
+    private static class ActorResolvingInputStream extends ObjectInputStream {
+        private final IMessageCodec.ActorResolver actors;
+
+        ActorResolvingInputStream(InputStream in, IMessageCodec.ActorResolver actors) throws IOException {
+            super(in);
+            this.actors = actors;
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) {
+            return obj instanceof ActorReference ? actors.getActor(((ActorReference) obj).id) : obj;
+        }
+    }
+
+    /**
+     * Writes the bytes of an object stream to a {@link DataOutput}, closing it has no effect.
+     */
+    private static class DataOutputAdapter extends OutputStream {
+        private final DataOutput out;
+
+        DataOutputAdapter(DataOutput out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+    }
+
+    /**
+     * Reads the bytes of an object stream from a {@link DataInput}, closing it has no effect.
+     */
+    private static class DataInputAdapter extends InputStream {
+        private final DataInput in;
+
+        DataInputAdapter(DataInput in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return in.readUnsignedByte();
+            } catch (EOFException e) {
+                return -1;
+            }
+        }
+    }
+}
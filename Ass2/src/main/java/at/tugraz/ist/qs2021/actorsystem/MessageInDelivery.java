@@ -1,9 +1,27 @@
 package at.tugraz.ist.qs2021.actorsystem;
 
-public class MessageInDelivery {
+import java.io.Serializable;
+
+public class MessageInDelivery implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int duration;
     private int remainingTicks;
     private final Message message;
 
+    /**
+     * Tick of the channel at which the message arrives, set when it is added to a channel.
+     */
+    long dueTick;
+
+    /**
+     * Next message arriving at the same tick, used by {@link CommunicationChannel} to chain
+     * messages within a bucket without allocating additional list nodes. Not serialized, the channel writes
+     * the messages of a bucket one by one.
+     */
+    transient MessageInDelivery next;
+
     /**
      * Constructs a MessageInDelivery object.
      *
@@ -11,6 +29,7 @@ public class MessageInDelivery {
      * @param message  The message.
      */
     public MessageInDelivery(int duration, Message message) {
+        this.duration = duration;
         this.remainingTicks = duration;
         this.message = message;
     }
@@ -19,9 +38,19 @@ public class MessageInDelivery {
         return message;
     }
 
+    /**
+     * @return The total number of ticks the message needs to be delivered, counted from the time it was sent.
+     */
+    int getDuration() {
+        return duration;
+    }
+
     /**
      * Check if message already arrived at its destination.
      * If not, reduce number of remaining ticks.
+     * <p>
+     * {@link CommunicationChannel} does not call this method, it delivers messages at the tick computed
+     * from their duration when they are sent.
      *
      * @return True if message arrived at its destination, false if not.
      */
@@ -0,0 +1,167 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Unbounded lock-free mailbox for multiple producers and a single consumer.
+ * <p>
+ * Messages are stored in a linked list of fixed-size array chunks. A producer claims
+ * a slot by atomically incrementing the producer index and writes the message into the
+ * chunk containing the slot, appending new chunks if needed. The consumer reads the slots
+ * in order, so messages sent by the same thread are received in the order they have been sent.
+ * Compared to a linked queue, only one object is allocated per chunk instead of one per message.
+ * <p>
+ * {@link IMailbox#poll()} must only be called by one thread at a time, and calls by
+ * different threads have to be ordered by some other synchronization.
+ */
+public class MpscArrayMailbox implements IMailbox {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    private static final class Chunk implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        static final AtomicReferenceFieldUpdater<Chunk, Chunk> NEXT =
+                AtomicReferenceFieldUpdater.newUpdater(Chunk.class, Chunk.class, "next");
+
+        /**
+         * number of the chunk, i.e. the chunk contains the slots from
+         * <c>index * chunkSize</c> to <c>(index + 1) * chunkSize - 1</c>
+         */
+        final long index;
+
+        final AtomicReferenceArray<Message> slots;
+
+        volatile Chunk next = null;
+
+        /**
+         * previous chunk, needed by producers which claimed a slot in an older chunk
+         * than the latest one. Reset by the consumer as soon as it has left the previous chunk.
+         */
+        volatile Chunk previous;
+
+        Chunk(long index, int size, Chunk previous) {
+            this.index = index;
+            this.slots = new AtomicReferenceArray<>(size);
+            this.previous = previous;
+        }
+    }
+
+    private final int chunkShift;
+
+    private final int chunkMask;
+
+    private final AtomicLong producerIndex = new AtomicLong(0);
+
+    /**
+     * latest chunk known to the producers
+     */
+    private volatile Chunk producerChunk;
+
+    /**
+     * Index of the next slot to read. Only written by the consumer, volatile for {@link MpscArrayMailbox#size()}.
+     */
+    private volatile long consumerIndex = 0;
+
+    private Chunk consumerChunk;
+
+    /**
+     * Constructs a new MpscArrayMailbox with chunks of 1024 messages.
+     */
+    public MpscArrayMailbox() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs a new MpscArrayMailbox.
+     *
+     * @param chunkSize number of messages stored in one chunk, rounded up to a power of two
+     */
+    public MpscArrayMailbox(int chunkSize) {
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("chunkSize must be positive");
+        int size = Integer.highestOneBit(chunkSize);
+        if (size < chunkSize)
+            size <<= 1;
+        this.chunkShift = Integer.numberOfTrailingZeros(size);
+        this.chunkMask = size - 1;
+        this.producerChunk = new Chunk(0, size, null);
+        this.consumerChunk = producerChunk;
+    }
+
+    @Override
+    public boolean offer(Message message) {
+        if (message == null)
+            throw new NullPointerException();
+        long slot = producerIndex.getAndIncrement();
+        Chunk chunk = findChunk(slot >>> chunkShift);
+        chunk.slots.lazySet((int) (slot & chunkMask), message);
+        return true;
+    }
+
+    /**
+     * Finds the chunk with the given number, starting at the latest chunk.
+     * Appends chunks if the chunk does not exist yet.
+     */
+    private Chunk findChunk(long chunkIndex) {
+        Chunk chunk = producerChunk;
+        while (chunk.index > chunkIndex) {
+            chunk = chunk.previous;
+        }
+        while (chunk.index < chunkIndex) {
+            Chunk next = chunk.next;
+            if (next == null) {
+                // another producer might append a chunk at the same time, only one of them succeeds
+                Chunk.NEXT.compareAndSet(chunk, null, new Chunk(chunk.index + 1, chunkMask + 1, chunk));
+                next = chunk.next;
+            }
+            chunk = next;
+        }
+        Chunk latest = producerChunk;
+        if (latest.index < chunk.index)
+            producerChunk = chunk;
+        return chunk;
+    }
+
+    @Override
+    public Message poll() {
+        long slot = consumerIndex;
+        if (producerIndex.get() <= slot)
+            return null;
+        Chunk chunk = consumerChunk;
+        if (chunk.index < slot >>> chunkShift) {
+            // the slot is claimed, so the producer will append the next chunk soon
+            Chunk next;
+            while ((next = chunk.next) == null) {
+                Thread.onSpinWait();
+            }
+            next.previous = null;
+            consumerChunk = chunk = next;
+        }
+        int offset = (int) (slot & chunkMask);
+        Message message;
+        // the slot has been claimed, but the message might not have been written yet
+        while ((message = chunk.slots.get(offset)) == null) {
+            Thread.onSpinWait();
+        }
+        chunk.slots.lazySet(offset, null);
+        consumerIndex = slot + 1;
+        return message;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return producerIndex.get() <= consumerIndex;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.max(0, producerIndex.get() - consumerIndex);
+    }
+}
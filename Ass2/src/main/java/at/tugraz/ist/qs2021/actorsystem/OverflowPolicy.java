@@ -0,0 +1,26 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+/**
+ * Defines what happens to a message sent to an actor whose capacity is reached,
+ * see {@link SimulatedActor#setCapacity(int, OverflowPolicy)}.
+ */
+public enum OverflowPolicy {
+    /**
+     * The message sent is dropped silently, as if it had been lost by the channel.
+     */
+    DROP_NEWEST,
+
+    /**
+     * The oldest message waiting to be processed is dropped to make room for the message sent.
+     */
+    DROP_OLDEST,
+
+    /**
+     * The message sent is dropped and {@link SimulatedActor#offer(Message)} returns false,
+     * so the sender can react to the overload, e.g. by failing fast.
+     * Actors ticked by a {@link ParallelSimulatedActorSystem} have to use
+     * {@link SimulatedActor#offer(Message, Runnable)} instead, as their messages are only offered
+     * at the end of the tick.
+     */
+    REJECT
+}
@@ -0,0 +1,271 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * SimulatedActorSystem which calls {@link ISimulatedActor#tick()} on the actors
+ * in parallel using a ForkJoinPool.
+ * <p>
+ * While the actors are ticked, calls to {@link ISimulatedActor#tell(Message)},
+ * {@link ISimulatedActorSystem#spawn(SimulatedActor)} and {@link ISimulatedActorSystem#stop(SimulatedActor)}
+ * made by an actor are buffered. At the end of the tick, the buffered operations are applied in the
+ * order in which the sequential system would have executed them, i.e. ordered by the position of the
+ * actor in the list of actors. A message sent to an actor, which would only have been ticked after the
+ * sender in the sequential system, is sent backdated by one tick, as the sequential system would already
+ * have passed it to the receiver's channel within the current tick. Hence, this system produces the same
+ * message logs and clocks as {@link SimulatedActorSystem}.
+ * <p>
+ * Actors must only interact with other actors by sending messages and must not run the system
+ * from within {@link ISimulatedActor#receive(Message)}. If actors throw exceptions, all other actors
+ * are still ticked and the exception of the first failing actor is rethrown at the end of the tick.
+ * <p>
+ * As messages sent by actors are only sent at the end of the tick, actors have to send messages to actors
+ * with the overflow policy {@link OverflowPolicy#REJECT} by {@link SimulatedActor#offer(Message, Runnable)}
+ * while they are ticked, whose handler runs at the end of the tick if the message is rejected. Other messages
+ * which might be rejected fail the tick. Messages sent from outside of a tick and by actors spawned during
+ * a tick from {@link SimulatedActor#atStartUp()} may be rejected as usual.
+ * <p>
+ * A fork of a {@link SimulationSnapshot} of this system uses a new thread pool with the same parallelism,
+ * which has to be shut down by {@link ParallelSimulatedActorSystem#close()} as well.
+ */
+public class ParallelSimulatedActorSystem extends SimulatedActorSystem implements AutoCloseable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Position of the actor currently ticked by the calling thread, -1 if the thread is not ticking an actor.
+     */
+    private static final ThreadLocal<Integer> CURRENT_POSITION = ThreadLocal.withInitial(() -> -1);
+
+    private final int parallelism;
+
+    /**
+     * Threads used to tick actors, not part of snapshots, a fork creates its own pool.
+     */
+    private transient ForkJoinPool pool;
+
+    /**
+     * Operations buffered during the current tick, indexed by the position of the actor performing them.
+     */
+    private transient List<List<Runnable>> pendingOperations = null;
+
+    /**
+     * Position of the actor whose buffered operations are currently applied, -1 outside of a tick.
+     */
+    private int applyingPosition = -1;
+
+    /**
+     * Actors ticked in the current tick indexed by their positions, null outside of a tick.
+     */
+    private transient List<SimulatedActor> applyingActors = null;
+
+    /**
+     * Constructs a new ParallelSimulatedActorSystem using the given number of threads,
+     * which calls {@link ISimulatedActor#tick()} on every actor at every tick.
+     *
+     * @param parallelism number of threads used to tick actors
+     */
+    public ParallelSimulatedActorSystem(int parallelism) {
+        this(SchedulingMode.TICK_BY_TICK, parallelism);
+    }
+
+    /**
+     * Constructs a new ParallelSimulatedActorSystem.
+     *
+     * @param schedulingMode defines whether idle ticks are simulated one by one or skipped
+     * @param parallelism    number of threads used to tick actors
+     */
+    public ParallelSimulatedActorSystem(SchedulingMode schedulingMode, int parallelism) {
+        super(schedulingMode);
+        this.parallelism = parallelism;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    @Override
+    public void spawn(SimulatedActor actor) {
+        int position = CURRENT_POSITION.get();
+        if (position >= 0) {
+            pendingOperations(position).add(() -> super.spawn(actor));
+        } else {
+            super.spawn(actor);
+        }
+    }
+
+    @Override
+    public void stop(SimulatedActor actor) {
+        int position = CURRENT_POSITION.get();
+        if (position >= 0) {
+            pendingOperations(position).add(() -> super.stop(actor));
+        } else {
+            super.stop(actor);
+        }
+    }
+
+    /**
+     * @throws UnsupportedOperationException if an actor sends a message, which might be rejected, without
+     *                                       a rejection handler while it is ticked, see
+     *                                       {@link SimulatedActor#offer(Message, Runnable)}
+     */
+    @Override
+    boolean interceptTell(SimulatedActor receiver, Message message) {
+        int position = CURRENT_POSITION.get();
+        if (position >= 0) {
+            if (receiver.mayReject(message))
+                throw new UnsupportedOperationException(
+                        "Messages sent during a parallel tick need a handler to be rejected");
+            pendingOperations(position).add(() -> receiver.tell(message));
+            return true;
+        }
+        return super.interceptTell(receiver, message);
+    }
+
+    /**
+     * Defers messages offered by actors while they are ticked to the end of the tick like all other messages,
+     * the handler runs when the message is rejected then.
+     */
+    @Override
+    boolean deferOffer(SimulatedActor receiver, Message message, Runnable onRejected) {
+        int position = CURRENT_POSITION.get();
+        if (position < 0)
+            return false;
+        pendingOperations(position).add(() -> receiver.offer(message, onRejected));
+        return true;
+    }
+
+    @Override
+    boolean isSentBackdated(SimulatedActor receiver) {
+        return applyingPosition >= 0 && receiver.tickPosition > applyingPosition;
+    }
+
+    @Override
+    long getSenderId() {
+        return applyingPosition >= 0 ? applyingActors.get(applyingPosition).getId() : ITellListener.EXTERNAL_SENDER;
+    }
+
+    @Override
+    int getSendTick(SimulatedActor receiver) {
+        return applyingPosition >= 0 && !isSentBackdated(receiver) ? getCurrentTime() + 1 : getCurrentTime();
+    }
+
+    @Override
+    public void tick() throws UnknownClientException {
+        // all actors are ticked, so idle actors have to catch up with the ticks they missed first
+        List<SimulatedActor> currentlyAliveActors = getActorList();
+        int numberOfActors = currentlyAliveActors.size();
+        inTick = true;
+        lastTickedId = -1;
+        pendingOperations = new ArrayList<>(numberOfActors);
+        for (int i = 0; i < numberOfActors; i++) {
+            SimulatedActor actor = currentlyAliveActors.get(i);
+            catchUp(actor);
+            actor.nextTick = getCurrentTime() + 1;
+            actor.tickPosition = i;
+            actor.countQueuedBeforeTick();
+            pendingOperations.add(null);
+        }
+        Exception[] failures = new Exception[numberOfActors];
+        int actorsPerTask = Math.max(1, numberOfActors / (pool.getParallelism() * 4));
+        pool.invoke(new TickTask(currentlyAliveActors, failures, 0, numberOfActors, actorsPerTask));
+
+        List<List<Runnable>> operations = pendingOperations;
+        pendingOperations = null;
+        lastTickedId = Long.MAX_VALUE;
+        applyingActors = currentlyAliveActors;
+        try {
+            for (int i = 0; i < numberOfActors; i++) {
+                if (operations.get(i) == null)
+                    continue;
+                applyingPosition = i;
+                for (Runnable operation : operations.get(i)) {
+                    operation.run();
+                }
+            }
+        } finally {
+            applyingPosition = -1;
+            applyingActors = null;
+            inTick = false;
+            for (SimulatedActor actor : currentlyAliveActors) {
+                actor.tickPosition = -1;
+                deactivateIfIdle(actor);
+            }
+        }
+        for (Exception failure : failures) {
+            if (failure instanceof UnknownClientException)
+                throw (UnknownClientException) failure;
+            if (failure instanceof RuntimeException)
+                throw (RuntimeException) failure;
+        }
+        advanceCurrentTime();
+    }
+
+    /**
+     * Shuts down the threads used to tick actors.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    private List<Runnable> pendingOperations(int position) {
+        List<Runnable> operations = pendingOperations.get(position);
+        if (operations == null) {
+            operations = new ArrayList<>();
+            pendingOperations.set(position, operations);
+        }
+        return operations;
+    }
+
+    /**
+     * Ticks a range of actors, splitting it until at most the given number of actors is left.
+     */
+    private static class TickTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<SimulatedActor> actors;
+        private final Exception[] failures;
+        private final int from;
+        private final int to;
+        private final int actorsPerTask;
+
+        TickTask(List<SimulatedActor> actors, Exception[] failures, int from, int to, int actorsPerTask) {
+            this.actors = actors;
+            this.failures = failures;
+            this.from = from;
+            this.to = to;
+            this.actorsPerTask = actorsPerTask;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > actorsPerTask) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new TickTask(actors, failures, from, middle, actorsPerTask),
+                        new TickTask(actors, failures, middle, to, actorsPerTask));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                CURRENT_POSITION.set(i);
+                try {
+                    actors.get(i).tick();
+                } catch (UnknownClientException | RuntimeException e) {
+                    failures[i] = e;
+                } finally {
+                    CURRENT_POSITION.set(-1);
+                }
+            }
+        }
+    }
+}
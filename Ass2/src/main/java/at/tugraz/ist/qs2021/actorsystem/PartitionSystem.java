@@ -0,0 +1,384 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import at.tugraz.ist.qs2021.actorsystem.ShardProtocol.Key;
+import at.tugraz.ist.qs2021.actorsystem.ShardProtocol.Operation;
+import at.tugraz.ist.qs2021.actorsystem.ShardProtocol.Result;
+import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Partition of a {@link ShardedActorSystem}, which owns some of its actors and executes the commands
+ * of the coordinating system in a separate process, see {@link ShardProcess}.
+ * <p>
+ * Like in {@link ParallelSimulatedActorSystem}, operations performed by actors during a tick are buffered.
+ * Spawns are executed first, in the order of all spawns of all partitions, such that actors get the same IDs
+ * as in a sequential system. Then the remaining operations are applied together with the operations of actors
+ * of other partitions, ordered by the IDs of the actors performing them.
+ */
+class PartitionSystem extends SimulatedActorSystem {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * ID of the actor currently ticked, -1 if no actor is ticked.
+     */
+    private long tickingId = -1;
+
+    /**
+     * Number of operations performed by the actor currently ticked.
+     */
+    private int tickingSeq = 0;
+
+    /**
+     * Key of the buffered spawn currently executed, null if no buffered spawn is executed.
+     */
+    private Key startingKey = null;
+
+    /**
+     * Number of operations performed by the actor currently started and the actors spawned by it.
+     */
+    private int startingSub = 0;
+
+    /**
+     * ID of the actor whose operation is currently applied, -1 if no operations are applied.
+     */
+    private long applyingId = -1;
+
+    /**
+     * Actors ticked in the current tick, null outside of a tick.
+     */
+    private List<SimulatedActor> currentlyTickedActors = null;
+
+    /**
+     * Operations other than spawns performed during the current tick.
+     */
+    private final List<Operation> pendingOperations = new ArrayList<>();
+
+    /**
+     * Spawns performed during the current tick, which have not been executed yet.
+     */
+    private final Deque<Operation> pendingSpawns = new ArrayDeque<>();
+
+    /**
+     * Placeholders for the actors of other partitions, indexed by their IDs.
+     */
+    private final Map<Long, RemoteActor> remoteActors = new HashMap<>();
+
+    /**
+     * Actors which have been stopped, indexed by their IDs, kept until the coordinating system
+     * does not refer to them anymore, as their final state might still be fetched.
+     */
+    private final Map<Long, SimulatedActor> stoppedActors = new HashMap<>();
+
+    /**
+     * Reply to the command currently executed.
+     */
+    private Result result = new Result();
+
+    /**
+     * ID of the next spawned actor, given by the coordinating system.
+     */
+    private long nextId = 0;
+
+    /**
+     * Executes commands until the coordinating system shuts the partition down.
+     *
+     * @param in  commands of the coordinating system
+     * @param out replies to the coordinating system
+     */
+    void serve(DataInputStream in, DataOutputStream out) throws IOException {
+        while (true) {
+            byte command = in.readByte();
+            result = new Result();
+            try {
+                switch (command) {
+                    case ShardProtocol.SPAWN:
+                        nextId = in.readLong();
+                        spawnActor((SimulatedActor) deserialize(ShardProtocol.readBytes(in)));
+                        break;
+                    case ShardProtocol.FORWARD:
+                        apply(Operation.read(in));
+                        break;
+                    case ShardProtocol.TICK:
+                        tickActors();
+                        break;
+                    case ShardProtocol.START:
+                        nextId = in.readLong();
+                        startSpawns(in.readInt());
+                        break;
+                    case ShardProtocol.APPLY:
+                        boolean advance = in.readBoolean();
+                        int numberOfOperations = in.readInt();
+                        List<Operation> incoming = new ArrayList<>(numberOfOperations);
+                        for (int i = 0; i < numberOfOperations; i++) {
+                            incoming.add(Operation.read(in));
+                        }
+                        int numberOfReleasedActors = in.readInt();
+                        for (int i = 0; i < numberOfReleasedActors; i++) {
+                            stoppedActors.remove(in.readLong());
+                        }
+                        applyOperations(incoming, advance);
+                        break;
+                    case ShardProtocol.FETCH:
+                        long id = in.readLong();
+                        SimulatedActor actor = getActor(id);
+                        if (actor == null)
+                            actor = stoppedActors.get(id);
+                        if (actor != null) {
+                            catchUp(actor);
+                            result.payload = ShardProtocol.serializeState(actor);
+                        }
+                        break;
+                    case ShardProtocol.SHUTDOWN:
+                        result.write(out);
+                        return;
+                    default:
+                        throw new IOException("Unknown command " + command);
+                }
+            } catch (RuntimeException e) {
+                fail(ITellListener.EXTERNAL_SENDER, e);
+            }
+            result.quiescent = currentlyTickedActors == null && isQuiescent();
+            result.write(out);
+        }
+    }
+
+    @Override
+    public void spawn(SimulatedActor actor) {
+        if (tickingId >= 0) {
+            pendingSpawns.add(Operation.local(Operation.SPAWN, nextKey(), actor, null));
+        } else {
+            super.spawn(actor);
+        }
+    }
+
+    @Override
+    public void stop(SimulatedActor actor) {
+        if (isBuffering()) {
+            pendingOperations.add(Operation.local(Operation.STOP, nextKey(), actor, null));
+        } else if (actor instanceof RemoteActor) {
+            result.operations.add(new Operation(Operation.STOP, Key.EXTERNAL, actor.getId(), null));
+        } else if (actor.alive && actor.actorSystem == this) {
+            super.stop(actor);
+            stoppedActors.put(actor.getId(), actor);
+            result.stoppedIds.add(actor.getId());
+        }
+    }
+
+    @Override
+    boolean interceptTell(SimulatedActor receiver, Message message) {
+        if (isBuffering()) {
+            pendingOperations.add(Operation.local(Operation.TELL, nextKey(), receiver, message));
+            return true;
+        }
+        if (receiver instanceof RemoteActor) {
+            result.operations.add(new Operation(Operation.TELL, Key.EXTERNAL, receiver.getId(), serialize(message)));
+            return true;
+        }
+        return super.interceptTell(receiver, message);
+    }
+
+    @Override
+    boolean isSentBackdated(SimulatedActor receiver) {
+        // actors ticked after the sender in the sequential system have their tickPosition set
+        return applyingId >= 0 && receiver.tickPosition >= 0 && receiver.getId() > applyingId;
+    }
+
+    @Override
+    long nextActorId() {
+        result.consumedIds++;
+        return nextId++;
+    }
+
+    private boolean isBuffering() {
+        return tickingId >= 0 || startingKey != null;
+    }
+
+    private Key nextKey() {
+        if (startingKey != null)
+            return new Key(startingKey.senderId, startingKey.seq, ++startingSub);
+        return new Key(tickingId, tickingSeq++, 0);
+    }
+
+    /**
+     * Spawns an actor sent by the coordinating system outside of a tick.
+     *
+     * @param actor the actor, which has not been spawned yet
+     */
+    private void spawnActor(SimulatedActor actor) {
+        try {
+            spawn(actor);
+        } catch (RuntimeException e) {
+            fail(actor.getId(), e);
+        }
+    }
+
+    /**
+     * Ticks all actors, buffering the operations they perform, and replies the keys of the spawns performed.
+     */
+    private void tickActors() {
+        currentlyTickedActors = getActorList();
+        inTick = true;
+        lastTickedId = -1;
+        for (int i = 0; i < currentlyTickedActors.size(); i++) {
+            SimulatedActor actor = currentlyTickedActors.get(i);
+            catchUp(actor);
+            actor.nextTick = getCurrentTime() + 1;
+            actor.tickPosition = i;
+            actor.countQueuedBeforeTick();
+        }
+        for (SimulatedActor actor : currentlyTickedActors) {
+            tickingId = actor.getId();
+            tickingSeq = 0;
+            try {
+                actor.tick();
+            } catch (UnknownClientException | RuntimeException e) {
+                fail(tickingId, e);
+            }
+        }
+        tickingId = -1;
+        lastTickedId = Long.MAX_VALUE;
+        for (Operation spawn : pendingSpawns) {
+            result.spawnKeys.add(spawn.key);
+        }
+        flushRemoteOperations();
+    }
+
+    /**
+     * Executes the next buffered spawns, assigning consecutive IDs starting with <c>nextId</c>.
+     * Operations performed by the spawned actors in {@link ISimulatedActor#atStartUp()} are buffered.
+     *
+     * @param count number of spawns to execute
+     */
+    private void startSpawns(int count) {
+        for (int i = 0; i < count; i++) {
+            Operation spawn = pendingSpawns.poll();
+            startingKey = spawn.key;
+            startingSub = 0;
+            try {
+                super.spawn(spawn.target);
+            } catch (RuntimeException e) {
+                fail(spawn.key.senderId, e);
+            } finally {
+                startingKey = null;
+            }
+        }
+        flushRemoteOperations();
+    }
+
+    /**
+     * Replies the buffered operations on actors of other partitions once all spawns have been executed,
+     * as messages might refer to the spawned actors.
+     */
+    private void flushRemoteOperations() {
+        if (!pendingSpawns.isEmpty())
+            return;
+        List<Operation> localOperations = new ArrayList<>(pendingOperations.size());
+        for (Operation operation : pendingOperations) {
+            if (operation.target instanceof RemoteActor) {
+                byte[] payload = operation.message == null ? null : serialize(operation.message);
+                result.operations.add(new Operation(operation.kind, operation.key, operation.targetId, payload));
+            } else {
+                localOperations.add(operation);
+            }
+        }
+        pendingOperations.clear();
+        pendingOperations.addAll(localOperations);
+    }
+
+    /**
+     * Applies the buffered operations and the given operations of other partitions and ends the tick.
+     *
+     * @param incoming operations performed by actors of other partitions during the tick
+     * @param advance  false if an actor failed, in which case the current time is not incremented
+     */
+    private void applyOperations(List<Operation> incoming, boolean advance) {
+        List<Operation> operations = new ArrayList<>(pendingOperations.size() + incoming.size());
+        operations.addAll(pendingOperations);
+        operations.addAll(incoming);
+        pendingOperations.clear();
+        operations.sort(Comparator.comparing(operation -> operation.key));
+        try {
+            for (Operation operation : operations) {
+                applyingId = operation.key.senderId;
+                apply(operation);
+            }
+        } finally {
+            applyingId = -1;
+            inTick = false;
+            for (SimulatedActor actor : currentlyTickedActors) {
+                actor.tickPosition = -1;
+                deactivateIfIdle(actor);
+            }
+            currentlyTickedActors = null;
+        }
+        if (advance)
+            advanceCurrentTime();
+    }
+
+    /**
+     * Applies a buffered operation or an operation of another partition,
+     * operations on actors of this partition which have been stopped are dropped.
+     *
+     * @param operation a tell or a stop
+     */
+    private void apply(Operation operation) {
+        SimulatedActor target = operation.target != null ? operation.target : getActor(operation.targetId);
+        if (target == null)
+            return;
+        if (operation.kind == Operation.STOP) {
+            stop(target);
+        } else {
+            target.tell(operation.target != null ? operation.message : (Message) deserialize(operation.payload));
+        }
+    }
+
+    /**
+     * @param id the ID of an actor
+     * @return the actor, if it is alive in this partition, otherwise a placeholder for it
+     */
+    private SimulatedActor resolve(long id) {
+        SimulatedActor actor = getActor(id);
+        if (actor != null)
+            return actor;
+        return remoteActors.computeIfAbsent(id, remoteId -> new RemoteActor(remoteId, this));
+    }
+
+    private void fail(long actorId, Exception failure) {
+        if (result.failure != null)
+            return;
+        result.failedActorId = actorId;
+        try {
+            result.failure = ShardProtocol.serialize(failure);
+        } catch (IOException | RuntimeException e) {
+            result.failure = serialize(new IllegalStateException(failure.toString()));
+        }
+    }
+
+    private byte[] serialize(Object object) {
+        try {
+            return ShardProtocol.serialize(object);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Object deserialize(byte[] bytes) {
+        try {
+            return ShardProtocol.deserialize(bytes, this::resolve, this);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.util.ArrayDeque;
+
+/**
+ * Mailbox with two lanes: {@link ControlMessage} instances are taken from the mailbox
+ * before all other messages, so they do not wait for the backlog of normal messages.
+ * Within each lane, messages are taken in the order they have been delivered.
+ * It must only be used by one thread.
+ */
+public class PriorityMailbox implements IMailbox {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Lanes of the mailbox, ordered by priority.
+     */
+    public enum Lane {CONTROL, NORMAL}
+
+    private final ArrayDeque<Message> controlMessages = new ArrayDeque<>();
+
+    private final ArrayDeque<Message> normalMessages = new ArrayDeque<>();
+
+    @Override
+    public boolean offer(Message message) {
+        if (message instanceof ControlMessage)
+            return controlMessages.offer(message);
+        return normalMessages.offer(message);
+    }
+
+    @Override
+    public Message poll() {
+        Message message = controlMessages.poll();
+        return message != null ? message : normalMessages.poll();
+    }
+
+    /**
+     * Control messages are only dropped if no normal message is waiting.
+     *
+     * @return The removed message or null if the mailbox is empty.
+     */
+    @Override
+    public Message dropOldest() {
+        Message message = normalMessages.poll();
+        return message != null ? message : controlMessages.poll();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return controlMessages.isEmpty() && normalMessages.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return controlMessages.size() + normalMessages.size();
+    }
+
+    /**
+     * @param lane the lane of the mailbox
+     * @return The number of messages waiting in the given lane.
+     */
+    public int getDepth(Lane lane) {
+        return lane == Lane.CONTROL ? controlMessages.size() : normalMessages.size();
+    }
+}
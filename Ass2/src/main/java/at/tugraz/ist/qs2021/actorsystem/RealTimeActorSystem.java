@@ -0,0 +1,412 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Actor system running actors concurrently in real time instead of simulated ticks.
+ * <p>
+ * Every spawned actor gets a mailbox, which replaces its communication channel, so
+ * {@link ISimulatedActor#tell(Message)} enqueues the message and returns immediately.
+ * Mailboxes with pending messages are drained by a small pool of carrier threads, one
+ * actor at a time, by calling {@link ISimulatedActor#receive(Message)} directly.
+ * Hence, message durations and channel delays are not simulated and
+ * {@link ISimulatedActor#tick()} is never called.
+ * <p>
+ * Time is measured in milliseconds since the construction of the system, i.e. one
+ * tick corresponds to one millisecond: {@link ISimulatedActorSystem#runFor(int)} and
+ * {@link ISimulatedActorSystem#runUntil(int)} wait while the actors run in the background.
+ * Exceptions thrown by actors are collected and rethrown by the next call to one of the run methods.
+ * Threads waiting for messages to be processed block until a carrier thread signals them,
+ * they do not poll the state of the system.
+ * <p>
+ * Capacities of actors are checked without synchronizing concurrent senders,
+ * so under contention they might be exceeded by a few messages.
+ */
+public class RealTimeActorSystem implements ISimulatedActorSystem, AutoCloseable {
+
+    /**
+     * Maximum number of messages processed before the carrier thread is handed to another actor.
+     */
+    private static final int MESSAGES_PER_DRAIN = 64;
+
+    /**
+     * Number of messages per chunk of the mailboxes, small as most actors (e.g. worker helpers)
+     * only receive few messages.
+     */
+    private static final int MAILBOX_CHUNK_SIZE = 32;
+
+    /**
+     * Number of messages per chunk of the lanes for control messages, which are rare.
+     */
+    private static final int CONTROL_LANE_CHUNK_SIZE = 4;
+
+    private final ExecutorService carriers;
+
+    /**
+     * All actors which have been started but not stopped, ordered by their IDs.
+     */
+    private final Map<Long, SimulatedActor> actors = new ConcurrentSkipListMap<>();
+
+    private final AtomicLong currentActorId = new AtomicLong(0);
+
+    /**
+     * Number of messages which have been enqueued, but not yet processed.
+     */
+    private final AtomicLong pendingMessages = new AtomicLong(0);
+
+    /**
+     * Signalled by carrier threads when messages have been processed, see {@link RealTimeActorSystem#processed(int)}.
+     */
+    private final ReentrantLock progressLock = new ReentrantLock();
+    private final Condition progress = progressLock.newCondition();
+
+    /**
+     * Number of threads waiting until a condition holds, which are signalled whenever a message has been processed.
+     */
+    private final AtomicInteger conditionWaiters = new AtomicInteger(0);
+
+    /**
+     * Number of threads waiting until all messages have been processed.
+     */
+    private final AtomicInteger quiescenceWaiters = new AtomicInteger(0);
+
+    private final Queue<Exception> failures = new ConcurrentLinkedQueue<>();
+
+    private final long startTime = System.nanoTime();
+
+    /**
+     * creates the message log of every spawned actor, null if actors keep their own message log
+     */
+    private Supplier<IMessageLog> messageLogFactory = null;
+
+    /**
+     * Constructs a new RealTimeActorSystem.
+     *
+     * @param numberOfCarrierThreads number of threads which process messages
+     */
+    public RealTimeActorSystem(int numberOfCarrierThreads) {
+        this.carriers = Executors.newFixedThreadPool(numberOfCarrierThreads, runnable -> {
+            Thread thread = new Thread(runnable, "actor-carrier");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sets the message log policy for all actors spawned afterwards, e.g. <c>DisabledMessageLog::new</c>
+     * to avoid keeping all messages in long runs.
+     *
+     * @param messageLogFactory creates the message log of every spawned actor,
+     *                          null if actors keep the message log they have been constructed with
+     */
+    public void setMessageLogFactory(Supplier<IMessageLog> messageLogFactory) {
+        this.messageLogFactory = messageLogFactory;
+    }
+
+    @Override
+    public List<SimulatedActor> getActors() {
+        return new ArrayList<>(actors.values());
+    }
+
+    /**
+     * @return The number of milliseconds passed since this object was created.
+     */
+    @Override
+    public int getCurrentTime() {
+        return (int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    }
+
+    @Override
+    public void spawn(SimulatedActor actor) {
+        Mailbox mailbox = new Mailbox(actor);
+        actor.channel = mailbox;
+        if (messageLogFactory != null)
+            actor.setMessageLog(messageLogFactory.get());
+        actor.setId(currentActorId.getAndIncrement());
+        actors.put(actor.getId(), actor);
+        actor.atStartUp();
+        actor.setTimeSinceSystemStart(getCurrentTime());
+        mailbox.start();
+    }
+
+    @Override
+    public void runFor(int numberOfTicks) throws UnknownClientException {
+        runUntil(getCurrentTime() + numberOfTicks - 1);
+    }
+
+    @Override
+    public void runUntil(int endTime) throws UnknownClientException {
+        int currentTime;
+        while ((currentTime = getCurrentTime()) <= endTime) {
+            sleep(endTime + 1 - currentTime);
+        }
+        rethrowFailures();
+    }
+
+    /**
+     * Waits until the given condition holds, which is checked again whenever a message has been processed,
+     * or until no messages are pending anymore.
+     */
+    @Override
+    public boolean runUntil(Predicate<? super ISimulatedActorSystem> condition) throws UnknownClientException {
+        await(() -> condition.test(this) || pendingMessages.get() == 0, conditionWaiters, Long.MAX_VALUE);
+        rethrowFailures();
+        return condition.test(this);
+    }
+
+    @Override
+    public void runUntilQuiescent() throws UnknownClientException {
+        await(() -> pendingMessages.get() == 0, quiescenceWaiters, Long.MAX_VALUE);
+        rethrowFailures();
+    }
+
+    /**
+     * @return true if all messages sent so far have been processed
+     */
+    @Override
+    public boolean isQuiescent() {
+        return pendingMessages.get() == 0;
+    }
+
+    /**
+     * Waits until all messages sent so far (and all messages sent while processing them) have been processed.
+     *
+     * @param timeoutMillis maximum time to wait
+     * @return true if all messages have been processed, false if the timeout elapsed
+     */
+    public boolean awaitIdle(long timeoutMillis) throws UnknownClientException {
+        await(() -> pendingMessages.get() == 0, quiescenceWaiters, TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+        rethrowFailures();
+        return pendingMessages.get() == 0;
+    }
+
+    @Override
+    public void stop(SimulatedActor actor) {
+        actors.remove(actor.getId());
+        if (actor.channel instanceof Mailbox) {
+            ((Mailbox) actor.channel).stop();
+        }
+    }
+
+    /**
+     * Waits for one millisecond, as actors are not ticked by this system.
+     */
+    @Override
+    public void tick() throws UnknownClientException {
+        runFor(1);
+    }
+
+    /**
+     * Stops all carrier threads, messages which have not been processed yet are discarded.
+     */
+    @Override
+    public void close() {
+        carriers.shutdownNow();
+    }
+
+    /**
+     * Blocks the calling thread until the given condition holds or the timeout elapses. Returns early
+     * if the thread is interrupted, keeping its interrupt status.
+     *
+     * @param condition    checked while holding <c>progressLock</c>
+     * @param waiters      <c>conditionWaiters</c> if the condition has to be checked whenever a message
+     *                     has been processed, <c>quiescenceWaiters</c> if it only changes when no messages are pending
+     * @param timeoutNanos maximum time to wait
+     */
+    private void await(BooleanSupplier condition, AtomicInteger waiters, long timeoutNanos) {
+        // registered before the condition is checked, so carrier threads processing a message afterwards signal
+        waiters.incrementAndGet();
+        progressLock.lock();
+        try {
+            long remainingNanos = timeoutNanos;
+            while (!condition.getAsBoolean() && remainingNanos > 0) {
+                remainingNanos = progress.awaitNanos(remainingNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            progressLock.unlock();
+            waiters.decrementAndGet();
+        }
+    }
+
+    /**
+     * Called by carrier threads after messages have been processed, wakes up waiting threads
+     * if their condition might hold now.
+     *
+     * @param count number of messages processed
+     */
+    private void processed(int count) {
+        long pending = pendingMessages.addAndGet(-count);
+        if (conditionWaiters.get() > 0 || pending == 0 && quiescenceWaiters.get() > 0) {
+            progressLock.lock();
+            try {
+                progress.signalAll();
+            } finally {
+                progressLock.unlock();
+            }
+        }
+    }
+
+    private void rethrowFailures() throws UnknownClientException {
+        Exception failure = failures.poll();
+        if (failure instanceof UnknownClientException)
+            throw (UnknownClientException) failure;
+        if (failure instanceof RuntimeException)
+            throw (RuntimeException) failure;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Channel replacement which enqueues messages and schedules the actor on a carrier thread.
+     * At most one carrier thread drains a mailbox at a time, so actors still process one message
+     * after the other. Like in a {@link PriorityMailbox}, control messages are processed first.
+     */
+    private class Mailbox extends CommunicationChannel {
+
+        private static final long serialVersionUID = 1L;
+
+        private final SimulatedActor actor;
+
+        private final IMailbox messages = new MpscArrayMailbox(MAILBOX_CHUNK_SIZE);
+
+        private final IMailbox controlMessages = new MpscArrayMailbox(CONTROL_LANE_CHUNK_SIZE);
+
+        /**
+         * Set while the mailbox is scheduled on or drained by a carrier thread. Initially set,
+         * such that no messages are processed before the actor has been started.
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean(true);
+
+        private volatile boolean stopped = false;
+
+        Mailbox(SimulatedActor actor) {
+            this.actor = actor;
+        }
+
+        @Override
+        public void send(Message message) {
+            if (stopped)
+                return;
+            pendingMessages.incrementAndGet();
+            if (message instanceof ControlMessage) {
+                controlMessages.offer(message);
+            } else {
+                messages.offer(message);
+            }
+            schedule();
+        }
+
+        @Override
+        public List<Message> tick() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public int ticksUntilNextDelivery() {
+            return NO_DELIVERY;
+        }
+
+        @Override
+        public int getMessagesInTransit() {
+            return messages.size() + controlMessages.size();
+        }
+
+        /**
+         * Messages can only be removed by the thread draining the mailbox,
+         * so {@link OverflowPolicy#DROP_OLDEST} drops the newest message instead.
+         */
+        @Override
+        Message dropFirst() {
+            return null;
+        }
+
+        void start() {
+            scheduled.set(false);
+            schedule();
+        }
+
+        void stop() {
+            stopped = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if ((!messages.isEmpty() || !controlMessages.isEmpty()) && scheduled.compareAndSet(false, true)) {
+                carriers.execute(this::drain);
+            }
+        }
+
+        private Message poll() {
+            Message message = controlMessages.poll();
+            return message != null ? message : messages.poll();
+        }
+
+        private void drain() {
+            int maxBatchSize = actor.getMaxBatchSize();
+            if (maxBatchSize > 0) {
+                drainBatch(Math.min(maxBatchSize, MESSAGES_PER_DRAIN));
+            } else {
+                for (int i = 0; i < MESSAGES_PER_DRAIN; i++) {
+                    Message message = poll();
+                    if (message == null)
+                        break;
+                    try {
+                        if (!stopped)
+                            actor.receive(message);
+                    } catch (UnknownClientException | RuntimeException e) {
+                        failures.add(e);
+                    } finally {
+                        processed(1);
+                    }
+                }
+            }
+            scheduled.set(false);
+            schedule();
+        }
+
+        /**
+         * Passes up to the given number of messages to {@link SimulatedActor#receiveBatch(List)} at once.
+         */
+        private void drainBatch(int maxBatchSize) {
+            List<Message> batch = new ArrayList<>(maxBatchSize);
+            Message message;
+            while (batch.size() < maxBatchSize && (message = poll()) != null) {
+                batch.add(message);
+            }
+            try {
+                if (!stopped && !batch.isEmpty())
+                    actor.receiveBatch(batch);
+            } catch (UnknownClientException | RuntimeException e) {
+                failures.add(e);
+            } finally {
+                processed(batch.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+/**
+ * Placeholder for an actor living in another process of a {@link ShardedActorSystem}.
+ * Messages sent to it and stops of it are forwarded to the process owning the actor by the system of the placeholder.
+ */
+final class RemoteActor extends SimulatedActor {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param id     the ID of the actor
+     * @param system the system forwarding messages to the actor
+     */
+    RemoteActor(long id, SimulatedActorSystem system) {
+        setId(id);
+        this.actorSystem = system;
+    }
+
+    /**
+     * Never called, as messages are forwarded instead of being sent to this placeholder.
+     *
+     * @throws IllegalStateException always
+     */
+    @Override
+    public void receive(Message message) {
+        throw new IllegalStateException("Messages to actors of other partitions have to be forwarded");
+    }
+}
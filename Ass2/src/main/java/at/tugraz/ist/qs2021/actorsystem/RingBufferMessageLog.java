@@ -0,0 +1,49 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Message log which only keeps the most recently sent messages.
+ */
+public class RingBufferMessageLog implements IMessageLog {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Message[] buffer;
+
+    /**
+     * total number of messages added, the next message is stored at <c>added % buffer.length</c>
+     */
+    private long added = 0;
+
+    /**
+     * Constructs a new RingBufferMessageLog.
+     *
+     * @param capacity maximum number of messages kept
+     */
+    public RingBufferMessageLog(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+        this.buffer = new Message[capacity];
+    }
+
+    @Override
+    public synchronized void add(Message message) {
+        buffer[(int) (added % buffer.length)] = message;
+        added++;
+    }
+
+    /**
+     * @return A copy of the last <c>capacity</c> messages sent, oldest first.
+     */
+    @Override
+    public synchronized List<Message> getMessages() {
+        int size = (int) Math.min(added, buffer.length);
+        List<Message> messages = new ArrayList<>(size);
+        for (long i = added - size; i < added; i++) {
+            messages.add(buffer[(int) (i % buffer.length)]);
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,72 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Message log which keeps a uniform random sample of a fixed size of all
+ * messages sent (reservoir sampling), so every message sent is kept with
+ * the same probability, independent of the length of the run.
+ */
+public class SamplingMessageLog implements IMessageLog {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Message[] sample;
+
+    /**
+     * position in the sequence of sent messages of each sampled message
+     */
+    private final long[] sequenceNumbers;
+
+    private final Random random;
+
+    /**
+     * total number of messages added
+     */
+    private long added = 0;
+
+    /**
+     * Constructs a new SamplingMessageLog.
+     *
+     * @param sampleSize maximum number of messages kept
+     * @param seed       seed used to select the sampled messages
+     */
+    public SamplingMessageLog(int sampleSize, long seed) {
+        if (sampleSize <= 0)
+            throw new IllegalArgumentException("sampleSize must be positive");
+        this.sample = new Message[sampleSize];
+        this.sequenceNumbers = new long[sampleSize];
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public synchronized void add(Message message) {
+        long index = added < sample.length ? added : (long) (random.nextDouble() * (added + 1));
+        if (index < sample.length) {
+            sample[(int) index] = message;
+            sequenceNumbers[(int) index] = added;
+        }
+        added++;
+    }
+
+    /**
+     * @return A copy of the sampled messages, in the order in which they have been sent.
+     */
+    @Override
+    public synchronized List<Message> getMessages() {
+        int size = (int) Math.min(added, sample.length);
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(sequenceNumbers[a], sequenceNumbers[b]));
+        List<Message> messages = new ArrayList<>(size);
+        for (int i : order) {
+            messages.add(sample[i]);
+        }
+        return messages;
+    }
+}
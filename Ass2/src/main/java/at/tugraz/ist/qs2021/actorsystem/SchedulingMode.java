@@ -0,0 +1,19 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+/**
+ * Scheduling modes supported by {@link SimulatedActorSystem}.
+ * Both modes produce identical results, they only differ in how fast
+ * idle periods of the simulation are passed.
+ */
+public enum SchedulingMode {
+    /**
+     * Every tick is simulated, i.e. {@link ISimulatedActor#tick()} is called on all actors at every tick.
+     */
+    TICK_BY_TICK,
+
+    /**
+     * Ticks in which no actor delivers or processes a message are skipped,
+     * i.e. the current time jumps directly to the next tick where something happens.
+     */
+    EVENT_DRIVEN
+}
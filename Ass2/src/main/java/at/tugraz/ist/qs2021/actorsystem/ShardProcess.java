@@ -0,0 +1,36 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * Entry point of the processes started by {@link ShardedActorSystem}, each of which runs one partition.
+ */
+public final class ShardProcess {
+
+    private ShardProcess() {
+    }
+
+    /**
+     * Connects to the coordinating system and executes its commands until it shuts the partition down.
+     *
+     * @param args the local port the coordinating system listens on and the index of the partition
+     */
+    public static void main(String[] args) throws IOException {
+        int port = Integer.parseInt(args[0]);
+        int index = Integer.parseInt(args[1]);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(index);
+            out.flush();
+            new PartitionSystem().serve(in, out);
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * Commands and replies exchanged between a {@link ShardedActorSystem} and its partitions, see {@link ShardProcess}.
+ * <p>
+ * Every command is answered by exactly one {@link Result}. Actors and messages are copied using Java serialization,
+ * where references to actors are replaced by their IDs and references to actor systems by a placeholder,
+ * which are resolved to the actors and the system of the receiving process.
+ */
+final class ShardProtocol {
+
+    /**
+     * spawns an actor outside of a tick
+     */
+    static final byte SPAWN = 1;
+
+    /**
+     * applies an operation performed outside of a tick
+     */
+    static final byte FORWARD = 2;
+
+    /**
+     * ticks all actors, buffering the operations they perform
+     */
+    static final byte TICK = 3;
+
+    /**
+     * executes the next buffered spawns
+     */
+    static final byte START = 4;
+
+    /**
+     * applies the buffered operations and the operations of other partitions and ends the tick,
+     * releasing stopped actors which cannot be fetched anymore
+     */
+    static final byte APPLY = 5;
+
+    /**
+     * copies an actor
+     */
+    static final byte FETCH = 6;
+
+    static final byte SHUTDOWN = 7;
+
+    private ShardProtocol() {
+    }
+
+    /**
+     * Position of an operation performed during a tick in the order in which the sequential system would perform it:
+     * by the ID of the actor performing it, then in the order the actor performed its operations.
+     * Operations performed by {@link ISimulatedActor#atStartUp()} of an actor spawned during a tick
+     * follow the spawn with increasing <c>sub</c> numbers.
+     */
+    static class Key implements Comparable<Key> {
+        /**
+         * key of operations performed outside of a tick, which are forwarded immediately
+         */
+        static final Key EXTERNAL = new Key(ITellListener.EXTERNAL_SENDER, 0, 0);
+
+        final long senderId;
+        final int seq;
+        final int sub;
+
+        Key(long senderId, int seq, int sub) {
+            this.senderId = senderId;
+            this.seq = seq;
+            this.sub = sub;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            if (senderId != other.senderId)
+                return Long.compare(senderId, other.senderId);
+            if (seq != other.seq)
+                return Integer.compare(seq, other.seq);
+            return Integer.compare(sub, other.sub);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(senderId);
+            out.writeInt(seq);
+            out.writeInt(sub);
+        }
+
+        static Key read(DataInputStream in) throws IOException {
+            return new Key(in.readLong(), in.readInt(), in.readInt());
+        }
+    }
+
+    /**
+     * A message sent, an actor stopped or an actor spawned by an actor during a tick, or a message sent or an actor
+     * stopped in another partition. Operations exchanged between processes only contain the ID of their target
+     * and the serialized message, the local fields are only used within a partition.
+     */
+    static class Operation {
+        static final byte TELL = 1;
+        static final byte STOP = 2;
+        static final byte SPAWN = 3;
+
+        final byte kind;
+        final Key key;
+        final long targetId;
+        final byte[] payload;
+
+        /**
+         * the target of a local tell or stop, the actor of a spawn
+         */
+        SimulatedActor target;
+
+        /**
+         * the message of a local tell
+         */
+        Message message;
+
+        Operation(byte kind, Key key, long targetId, byte[] payload) {
+            this.kind = kind;
+            this.key = key;
+            this.targetId = targetId;
+            this.payload = payload;
+        }
+
+        static Operation local(byte kind, Key key, SimulatedActor target, Message message) {
+            Operation operation = new Operation(kind, key, target.getId(), null);
+            operation.target = target;
+            operation.message = message;
+            return operation;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeByte(kind);
+            key.write(out);
+            out.writeLong(targetId);
+            writeBytes(payload, out);
+        }
+
+        static Operation read(DataInputStream in) throws IOException {
+            return new Operation(in.readByte(), Key.read(in), in.readLong(), readBytes(in));
+        }
+    }
+
+    /**
+     * Reply of a partition to a command.
+     */
+    static class Result {
+        /**
+         * serialized exception thrown by an actor, null if no actor failed
+         */
+        byte[] failure;
+
+        /**
+         * ID of the actor which threw <c>failure</c>, the first one if several actors failed during a tick
+         */
+        long failedActorId = ITellListener.EXTERNAL_SENDER;
+
+        /**
+         * number of IDs assigned to actors spawned while executing the command
+         */
+        int consumedIds;
+
+        final List<Long> stoppedIds = new ArrayList<>();
+
+        /**
+         * messages and stops for other partitions
+         */
+        final List<Operation> operations = new ArrayList<>();
+
+        /**
+         * keys of the actors spawned while the partition was ticked
+         */
+        final List<Key> spawnKeys = new ArrayList<>();
+
+        /**
+         * serialized copy of a fetched actor
+         */
+        byte[] payload;
+
+        /**
+         * whether the partition is quiescent after executing the command
+         */
+        boolean quiescent;
+
+        void write(DataOutputStream out) throws IOException {
+            writeBytes(failure, out);
+            out.writeLong(failedActorId);
+            out.writeInt(consumedIds);
+            writeIds(stoppedIds, out);
+            out.writeInt(operations.size());
+            for (Operation operation : operations) {
+                operation.write(out);
+            }
+            out.writeInt(spawnKeys.size());
+            for (Key key : spawnKeys) {
+                key.write(out);
+            }
+            writeBytes(payload, out);
+            out.writeBoolean(quiescent);
+            out.flush();
+        }
+
+        static Result read(DataInputStream in) throws IOException {
+            Result result = new Result();
+            result.failure = readBytes(in);
+            result.failedActorId = in.readLong();
+            result.consumedIds = in.readInt();
+            readIds(result.stoppedIds, in);
+            int operations = in.readInt();
+            for (int i = 0; i < operations; i++) {
+                result.operations.add(Operation.read(in));
+            }
+            int spawnKeys = in.readInt();
+            for (int i = 0; i < spawnKeys; i++) {
+                result.spawnKeys.add(Key.read(in));
+            }
+            result.payload = readBytes(in);
+            result.quiescent = in.readBoolean();
+            return result;
+        }
+    }
+
+    static void writeBytes(byte[] bytes, DataOutputStream out) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeIds(List<Long> ids, DataOutputStream out) throws IOException {
+        out.writeInt(ids.size());
+        for (long id : ids) {
+            out.writeLong(id);
+        }
+    }
+
+    private static void readIds(List<Long> ids, DataInputStream in) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            ids.add(in.readLong());
+        }
+    }
+
+    /**
+     * Serializes an object, replacing all actors except the object itself by references.
+     * The set of active actors an actor is contained in is not part of the copy.
+     *
+     * @throws IllegalStateException if a referenced actor has not been spawned yet
+     */
+    static byte[] serialize(Object root) throws IOException {
+        return serialize(root, false);
+    }
+
+    /**
+     * Serializes an actor including all actors of the same process it refers to,
+     * only placeholders of actors of other processes are replaced by references.
+     */
+    static byte[] serializeState(SimulatedActor actor) throws IOException {
+        return serialize(actor, true);
+    }
+
+    private static byte[] serialize(Object root, boolean onlyRemoteActorsByReference) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ReplacingOutputStream(bytes, root, onlyRemoteActorsByReference)) {
+            out.writeObject(root);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserializes an object written by {@link ShardProtocol#serialize(Object)}.
+     *
+     * @param actors resolves actor IDs to the actors of this process
+     * @param system the system of this process, null for detached copies
+     */
+    static Object deserialize(byte[] bytes, LongFunction<SimulatedActor> actors, SimulatedActorSystem system)
+            throws IOException {
+        try (ObjectInputStream in = new ResolvingInputStream(new ByteArrayInputStream(bytes), actors, system)) {
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Class not available in this process", e);
+        }
+    }
+
+    /**
+     * Placeholder for an actor, resolved to the actor or a proxy of it in the receiving process.
+     */
+    private static class ActorReference implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        final long id;
+
+        ActorReference(long id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * Placeholder for the actor system, resolved to the system of the receiving process.
+     */
+    private static class SystemReference implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        static final SystemReference INSTANCE = new SystemReference();
+
+        private Object readResolve() throws ObjectStreamException {
+            return INSTANCE;
+        }
+    }
+
+    private static class ReplacingOutputStream extends ObjectOutputStream {
+        private final Object root;
+        private final boolean onlyRemoteActorsByReference;
+
+        ReplacingOutputStream(OutputStream out, Object root, boolean onlyRemoteActorsByReference) throws IOException {
+            super(out);
+            this.root = root;
+            this.onlyRemoteActorsByReference = onlyRemoteActorsByReference;
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            if (obj == root)
+                return obj;
+            if (obj instanceof SimulatedActor && (!onlyRemoteActorsByReference || obj instanceof RemoteActor)) {
+                long id = ((SimulatedActor) obj).getId();
+                if (id == ISimulatedActorSystem.NEW_ACTOR)
+                    throw new IllegalStateException("Actors have to be spawned before they are sent to other partitions");
+                return new ActorReference(id);
+            }
+            if (obj instanceof ISimulatedActorSystem)
+                return SystemReference.INSTANCE;
+            if (obj instanceof ActorHeap)
+                return null;
+            return obj;
+        }
+    }
+
+    private static class ResolvingInputStream extends ObjectInputStream {
+        private final LongFunction<SimulatedActor> actors;
+        private final SimulatedActorSystem system;
+
+        ResolvingInputStream(InputStream in, LongFunction<SimulatedActor> actors, SimulatedActorSystem system)
+                throws IOException {
+            super(in);
+            this.actors = actors;
+            this.system = system;
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) {
+            if (obj instanceof ActorReference)
+                return actors.apply(((ActorReference) obj).id);
+            if (obj instanceof SystemReference)
+                return system;
+            return obj;
+        }
+    }
+}
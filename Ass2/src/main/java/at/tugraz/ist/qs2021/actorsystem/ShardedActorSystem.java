@@ -0,0 +1,559 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import at.tugraz.ist.qs2021.actorsystem.ShardProtocol.Key;
+import at.tugraz.ist.qs2021.actorsystem.ShardProtocol.Operation;
+import at.tugraz.ist.qs2021.actorsystem.ShardProtocol.Result;
+import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * SimulatedActorSystem which partitions its actors across several local processes, which tick their actors
+ * in lock-step. Each partition runs in its own JVM started by this system, see {@link ShardProcess},
+ * and is connected to this system by a loopback socket.
+ * <p>
+ * Actors are copied to their partition when they are spawned. The actor passed to
+ * {@link ISimulatedActorSystem#spawn(SimulatedActor)} stays behind as a handle, which forwards messages sent to it
+ * and can be stopped, but does not change anymore. {@link ShardedActorSystem#fetch(SimulatedActor)} copies the
+ * current state of an actor from its partition, e.g. to inspect its message log.
+ * <p>
+ * Every tick is a barrier: all partitions tick their actors, buffering the operations the actors perform,
+ * which are applied at the end of the tick in the same order as in {@link ParallelSimulatedActorSystem}.
+ * Hence, this system produces the same message logs, clocks and actor IDs as {@link SimulatedActorSystem},
+ * with the following restrictions:
+ * <ul>
+ * <li>Actors, messages and everything they refer to must be serializable. Messages sent to actors of other
+ * partitions are copied, so they must not be changed after they have been sent.</li>
+ * <li>Actors of other partitions are represented by placeholders, so fields referring to them must be declared
+ * as {@link SimulatedActor}. Actors spawned by an actor are placed in the partition of the actor.</li>
+ * <li>Actors must only interact with other actors by sending messages, like in {@link ParallelSimulatedActorSystem}.</li>
+ * <li>Messages sent to stopped actors of other partitions are dropped.</li>
+ * <li>Partitions keep stopped actors until their handles and placeholders in this process are garbage collected,
+ * so they can still be fetched.</li>
+ * <li>Only {@link SchedulingMode#TICK_BY_TICK} is supported.</li>
+ * </ul>
+ * Actors spawned during a tick need one more round trip to their partition, in which they are assigned their IDs,
+ * so the tick rate drops in ticks with many spawns.
+ */
+public class ShardedActorSystem extends SimulatedActorSystem implements AutoCloseable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Milliseconds to wait for a started process to connect.
+     */
+    private static final int CONNECT_TIMEOUT = 60000;
+
+    private final Partition[] partitions;
+
+    /**
+     * All actors which have been spawned but not stopped, indexed by their IDs, i.e. the handles of the actors
+     * spawned by this system and placeholders for the actors spawned by other actors.
+     */
+    private final Map<Long, SimulatedActor> actors = new LinkedHashMap<>();
+
+    /**
+     * Index of the partition owning each actor which has been spawned and has not been released after it was stopped.
+     */
+    private final Map<Long, Integer> owners = new HashMap<>();
+
+    /**
+     * Handles and placeholders of stopped actors, whose final state is kept by their partitions
+     * until the handles and placeholders are garbage collected.
+     */
+    private final Map<Long, StoppedActorReference> stoppedActors = new HashMap<>();
+    private final ReferenceQueue<SimulatedActor> collectedActors = new ReferenceQueue<>();
+
+    /**
+     * ID of the next spawned actor.
+     */
+    private long nextId = 0;
+
+    /**
+     * Partition the next actor spawned by {@link ShardedActorSystem#spawn(SimulatedActor)} is placed in.
+     */
+    private int nextPartition = 0;
+
+    /**
+     * Constructs a new ShardedActorSystem and starts a process for each partition,
+     * using the class path of the current process.
+     *
+     * @param numberOfPartitions number of processes the actors are distributed across
+     * @throws IOException if a process cannot be started or does not connect
+     */
+    public ShardedActorSystem(int numberOfPartitions) throws IOException {
+        super(SchedulingMode.TICK_BY_TICK);
+        if (numberOfPartitions <= 0)
+            throw new IllegalArgumentException("numberOfPartitions must be positive");
+        this.partitions = new Partition[numberOfPartitions];
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<Process> processes = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(0, numberOfPartitions, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout(CONNECT_TIMEOUT);
+            for (int i = 0; i < numberOfPartitions; i++) {
+                processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        ShardProcess.class.getName(), String.valueOf(server.getLocalPort()), String.valueOf(i))
+                        .inheritIO()
+                        .start());
+            }
+            for (int i = 0; i < numberOfPartitions; i++) {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                int index = in.readInt();
+                partitions[index] = new Partition(processes.get(index), socket, in, out);
+            }
+        } catch (IOException e) {
+            for (Process process : processes) {
+                process.destroyForcibly();
+            }
+            throw e;
+        }
+    }
+
+    public int getNumberOfPartitions() {
+        return partitions.length;
+    }
+
+    /**
+     * Spawns the actor in the next partition, distributing actors round-robin.
+     *
+     * @param actor the actor to be spawned, which becomes a handle of the spawned copy
+     */
+    @Override
+    public void spawn(SimulatedActor actor) {
+        spawn(actor, nextPartition);
+        nextPartition = (nextPartition + 1) % partitions.length;
+    }
+
+    /**
+     * Spawns the actor in the given partition. Actors spawned by the actor are placed in the same partition.
+     *
+     * @param actor     the actor to be spawned, which becomes a handle of the spawned copy
+     * @param partition index of the partition
+     */
+    public void spawn(SimulatedActor actor, int partition) {
+        try {
+            byte[] bytes = ShardProtocol.serialize(actor);
+            DataOutputStream out = partitions[partition].out;
+            out.writeByte(ShardProtocol.SPAWN);
+            out.writeLong(nextId);
+            ShardProtocol.writeBytes(bytes, out);
+            out.flush();
+            Result result = partitions[partition].read();
+            actor.setId(nextId);
+            actor.actorSystem = this;
+            register(partition, result.consumedIds, actor);
+            complete(result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void stop(SimulatedActor actor) {
+        if (actor.actorSystem == this)
+            forward(new Operation(Operation.STOP, Key.EXTERNAL, actor.getId(), null));
+    }
+
+    @Override
+    boolean interceptTell(SimulatedActor receiver, Message message) {
+        try {
+            forward(new Operation(Operation.TELL, Key.EXTERNAL, receiver.getId(), ShardProtocol.serialize(message)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    /**
+     * @return A copy of the list of all actors, which have been started but not stopped, ordered by their IDs.
+     * Actors spawned by other actors are represented by placeholders, which forward messages.
+     */
+    @Override
+    public List<SimulatedActor> getActors() {
+        return new ArrayList<>(actors.values());
+    }
+
+    @Override
+    public SimulatedActor getActor(long id) {
+        return actors.get(id);
+    }
+
+    /**
+     * Copies the current state of an actor from its partition. The copy is not part of any system.
+     * Actors of the same partition it refers to are copied as well, actors of other partitions
+     * are represented by the handles and placeholders of this system.
+     *
+     * @param actor a handle or placeholder of an actor, which might have been stopped
+     * @param <T>   the type of the actor
+     * @return the copy
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends SimulatedActor> T fetch(T actor) {
+        Integer owner = owners.get(actor.getId());
+        if (owner == null)
+            throw new IllegalArgumentException("Actor is not part of this system");
+        try {
+            DataOutputStream out = partitions[owner].out;
+            out.writeByte(ShardProtocol.FETCH);
+            out.writeLong(actor.getId());
+            out.flush();
+            Result result = partitions[owner].read();
+            if (result.payload == null)
+                return null;
+            T copy = (T) ShardProtocol.deserialize(result.payload, this::resolve, null);
+            copy.alive = false;
+            return copy;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Ticks all partitions in lock-step. If actors throw exceptions, all other actors are still ticked and the
+     * exception of the actor with the lowest ID is rethrown at the end of the tick, like in
+     * {@link ParallelSimulatedActorSystem}.
+     */
+    @Override
+    public void tick() throws UnknownClientException {
+        try {
+            for (Partition partition : partitions) {
+                partition.out.writeByte(ShardProtocol.TICK);
+                partition.out.flush();
+            }
+            List<Operation> operations = new ArrayList<>();
+            List<PendingSpawn> spawns = new ArrayList<>();
+            Result failed = null;
+            for (int i = 0; i < partitions.length; i++) {
+                Result ticked = partitions[i].read();
+                operations.addAll(ticked.operations);
+                for (Key key : ticked.spawnKeys) {
+                    spawns.add(new PendingSpawn(key, i));
+                }
+                if (ticked.failure != null && (failed == null || ticked.failedActorId < failed.failedActorId))
+                    failed = ticked;
+            }
+
+            // spawns are executed in the order of the sequential system, consecutive spawns of a partition together
+            spawns.sort(Comparator.comparing(spawn -> spawn.key));
+            Result startFailed = null;
+            for (int from = 0; from < spawns.size(); ) {
+                int partition = spawns.get(from).partition;
+                int to = from;
+                while (to < spawns.size() && spawns.get(to).partition == partition) {
+                    to++;
+                }
+                DataOutputStream out = partitions[partition].out;
+                out.writeByte(ShardProtocol.START);
+                out.writeLong(nextId);
+                out.writeInt(to - from);
+                out.flush();
+                Result started = partitions[partition].read();
+                register(partition, started.consumedIds, null);
+                operations.addAll(started.operations);
+                if (started.failure != null && startFailed == null)
+                    startFailed = started;
+                from = to;
+            }
+            // like in the parallel system, exceptions thrown while the operations are applied take precedence
+            if (startFailed != null)
+                failed = startFailed;
+
+            List<List<Operation>> incoming = new ArrayList<>(partitions.length);
+            List<List<Long>> released = new ArrayList<>(partitions.length);
+            for (int i = 0; i < partitions.length; i++) {
+                incoming.add(new ArrayList<>());
+                released.add(new ArrayList<>());
+            }
+            Reference<? extends SimulatedActor> collected;
+            while ((collected = collectedActors.poll()) != null) {
+                long id = ((StoppedActorReference) collected).id;
+                stoppedActors.remove(id);
+                released.get(owners.remove(id)).add(id);
+            }
+            for (Operation operation : operations) {
+                Integer owner = owners.get(operation.targetId);
+                if (owner != null)
+                    incoming.get(owner).add(operation);
+            }
+            for (int i = 0; i < partitions.length; i++) {
+                DataOutputStream out = partitions[i].out;
+                out.writeByte(ShardProtocol.APPLY);
+                out.writeBoolean(failed == null);
+                out.writeInt(incoming.get(i).size());
+                for (Operation operation : incoming.get(i)) {
+                    operation.write(out);
+                }
+                out.writeInt(released.get(i).size());
+                for (long id : released.get(i)) {
+                    out.writeLong(id);
+                }
+                out.flush();
+            }
+            for (Partition partition : partitions) {
+                Result applied = partition.read();
+                unregister(applied.stoppedIds);
+                if (applied.failure != null && failed == null)
+                    failed = applied;
+            }
+            if (failed != null)
+                throwFailure(failed);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        advanceCurrentTime();
+    }
+
+    /**
+     * @return true if all partitions reported to be quiescent after the last command sent to them
+     */
+    @Override
+    public boolean isQuiescent() {
+        for (Partition partition : partitions) {
+            if (!partition.quiescent)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Not supported, as the actors are not part of this process.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public SimulationSnapshot<SimulatedActorSystem> snapshot() {
+        throw new UnsupportedOperationException("Snapshots of sharded actor systems are not supported");
+    }
+
+    /**
+     * Not supported, as the actors are not part of this process.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public SystemMetrics getMetrics() {
+        throw new UnsupportedOperationException("Metrics of sharded actor systems are not supported");
+    }
+
+    /**
+     * Not supported, as the actors are not part of this process.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public SimulationMetrics publishMetrics(int interval) {
+        throw new UnsupportedOperationException("Metrics of sharded actor systems are not supported");
+    }
+
+    /**
+     * Not supported, as the message logs are created in the processes of the partitions.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void setMessageLogFactory(Supplier<IMessageLog> messageLogFactory) {
+        throw new UnsupportedOperationException("Message log factories of sharded actor systems are not supported");
+    }
+
+    /**
+     * Not supported, as messages between actors are sent in the processes of the partitions.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void setTellListener(ITellListener tellListener) {
+        throw new UnsupportedOperationException("Tell listeners of sharded actor systems are not supported");
+    }
+
+    /**
+     * Shuts down the processes of all partitions.
+     */
+    @Override
+    public void close() {
+        for (Partition partition : partitions) {
+            if (partition == null)
+                continue;
+            try {
+                partition.out.writeByte(ShardProtocol.SHUTDOWN);
+                partition.out.flush();
+                partition.read();
+                partition.socket.close();
+                if (!partition.process.waitFor(CONNECT_TIMEOUT, TimeUnit.MILLISECONDS))
+                    partition.process.destroyForcibly();
+            } catch (IOException e) {
+                partition.process.destroyForcibly();
+            } catch (InterruptedException e) {
+                partition.process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Sends an operation performed outside of a tick to the partition owning its target,
+     * operations on stopped actors are dropped. Messages sent by the target are forwarded as well.
+     *
+     * @param operation a tell or a stop
+     */
+    private void forward(Operation operation) {
+        Deque<Operation> operations = new ArrayDeque<>();
+        operations.add(operation);
+        try {
+            while (!operations.isEmpty()) {
+                Operation next = operations.poll();
+                Integer owner = owners.get(next.targetId);
+                if (owner == null)
+                    continue;
+                DataOutputStream out = partitions[owner].out;
+                out.writeByte(ShardProtocol.FORWARD);
+                next.write(out);
+                out.flush();
+                Result result = partitions[owner].read();
+                unregister(result.stoppedIds);
+                operations.addAll(result.operations);
+                if (result.failure != null)
+                    throwFailure(result);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (UnknownClientException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Updates the actors after a command executed outside of a tick and forwards the operations performed by them.
+     */
+    private void complete(Result result) throws IOException {
+        unregister(result.stoppedIds);
+        for (Operation operation : result.operations) {
+            forward(operation);
+        }
+        if (result.failure != null) {
+            try {
+                throwFailure(result);
+            } catch (UnknownClientException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Registers actors spawned with consecutive IDs starting at <c>nextId</c> in the given partition.
+     *
+     * @param partition index of the partition
+     * @param count     number of actors spawned
+     * @param handle    handle of the first actor, null if placeholders are used for all actors
+     */
+    private void register(int partition, int count, SimulatedActor handle) {
+        for (int i = 0; i < count; i++) {
+            long id = nextId++;
+            owners.put(id, partition);
+            actors.put(id, i == 0 && handle != null ? handle : new RemoteActor(id, this));
+        }
+    }
+
+    private void unregister(List<Long> stoppedIds) {
+        for (long id : stoppedIds) {
+            SimulatedActor actor = actors.remove(id);
+            if (actor != null)
+                stoppedActors.put(id, new StoppedActorReference(actor, collectedActors));
+        }
+    }
+
+    /**
+     * @param id the ID of an actor
+     * @return the handle or placeholder of the actor, a new placeholder if it has been stopped
+     */
+    private SimulatedActor resolve(long id) {
+        SimulatedActor actor = actors.get(id);
+        return actor != null ? actor : new RemoteActor(id, this);
+    }
+
+    private void throwFailure(Result result) throws IOException, UnknownClientException {
+        Object failure = ShardProtocol.deserialize(result.failure, this::resolve, this);
+        if (failure instanceof UnknownClientException)
+            throw (UnknownClientException) failure;
+        if (failure instanceof RuntimeException)
+            throw (RuntimeException) failure;
+        throw new IllegalStateException((Throwable) failure);
+    }
+
+    /**
+     * Process of a partition and the connection to it.
+     */
+    private static class Partition {
+        final Process process;
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+
+        Partition(Process process, Socket socket, DataInputStream in, DataOutputStream out) {
+            this.process = process;
+            this.socket = socket;
+            this.in = in;
+            this.out = out;
+        }
+
+        /**
+         * whether the partition was quiescent after the last command
+         */
+        boolean quiescent = true;
+
+        Result read() throws IOException {
+            Result result = Result.read(in);
+            quiescent = result.quiescent;
+            return result;
+        }
+    }
+
+    /**
+     * Reference to the handle or placeholder of a stopped actor, which is enqueued once it has been garbage collected.
+     */
+    private static class StoppedActorReference extends WeakReference<SimulatedActor> {
+        final long id;
+
+        StoppedActorReference(SimulatedActor actor, ReferenceQueue<SimulatedActor> queue) {
+            super(actor, queue);
+            this.id = actor.getId();
+        }
+    }
+
+    /**
+     * An actor spawned during a tick in the given partition, which has not been assigned an ID yet.
+     */
+    private static class PendingSpawn {
+        final Key key;
+        final int partition;
+
+        PendingSpawn(Key key, int partition) {
+            this.key = key;
+            this.partition = partition;
+        }
+    }
+}
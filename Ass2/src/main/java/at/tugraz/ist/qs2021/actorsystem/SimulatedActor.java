@@ -2,12 +2,21 @@ package at.tugraz.ist.qs2021.actorsystem;
 
 import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
 
+import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
-public abstract class SimulatedActor implements ISimulatedActor {
+public abstract class SimulatedActor implements ISimulatedActor, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Capacity of actors which accept any number of messages.
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
 
     /**
      * Channel, which simulates the communication channel built-up when
@@ -33,18 +42,59 @@ public abstract class SimulatedActor implements ISimulatedActor {
      */
     private Message activeMessage = null;
 
+    /**
+     * The batch of messages currently being processed, if batch receive is enabled.
+     */
+    private List<Message> activeBatch = null;
+
+    /**
+     * Maximum number of messages processed together, 1 if batch receive is disabled.
+     */
+    private int maxBatchSize = 1;
+
+    /**
+     * Defines how long a batch of messages takes to process, null if batch receive is disabled.
+     */
+    private IBatchCostModel batchCostModel = null;
+
     /**
      * All messages, that have already been sent via <c>channel</c>,
      * but have not been processed yet.
      */
-    private final Queue<Message> messageBox = new LinkedList<>();
+    private IMailbox messageBox = new ArrayDequeMailbox();
+
+    /**
+     * Maximum number of messages in transit and in the <c>messageBox</c>.
+     */
+    private int capacity = UNBOUNDED;
+
+    /**
+     * Defines what happens to messages sent while the capacity is reached.
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
 
     /**
-     * All messages sent to this actor, this includes messages in transit,
+     * Number of messages dropped or rejected because the capacity was reached.
+     */
+    private final AtomicLong droppedMessages = new AtomicLong(0);
+
+    /**
+     * Log of the messages sent to this actor, this includes messages in transit,
      * already processed messages and messages in the <c>messageBox</c>.
-     * It is used to alleviate debugging and testing.
+     * It is used to alleviate debugging and testing. By default, all messages are kept.
+     */
+    private IMessageLog messageLog = new FullMessageLog();
+
+    /**
+     * Number of ticks in which this actor was processing a message or a batch of messages.
+     */
+    private long busyTicks = 0;
+
+    /**
+     * Number of messages taken from the <c>messageBox</c> for processing by their types,
+     * the counters are arrays to increment them without boxing.
      */
-    private final List<Message> messageLog = new ArrayList<>();
+    private final Map<Class<?>, long[]> processedMessages = new HashMap<>();
 
     /**
      * Time since the system was started.
@@ -56,6 +106,56 @@ public abstract class SimulatedActor implements ISimulatedActor {
      */
     int timeSinceSystemStart = -1;
 
+    /**
+     * Time of the system at which this actor has been spawned, -1 if it has not been spawned by a simulated system.
+     */
+    int spawnTime = -1;
+
+    /**
+     * The system which spawned this actor, null if it has not been spawned yet.
+     */
+    SimulatedActorSystem actorSystem = null;
+
+    /**
+     * Set while this actor is registered at <c>actorSystem</c>, i.e. it has been spawned and not stopped.
+     */
+    boolean alive = false;
+
+    /**
+     * The set of active actors of <c>actorSystem</c> this actor is contained in and its position in it,
+     * null if the actor is idle or the system ticks all actors.
+     */
+    ActorHeap heap = null;
+    int heapIndex = -1;
+
+    /**
+     * Number of the next tick of the system this actor has to be ticked in, i.e. the actor has been
+     * ticked or skipped up to the tick before. Idle actors are not ticked, so this might be lower
+     * than the current time of the system, see {@link SimulatedActorSystem#catchUp(SimulatedActor)}.
+     */
+    int nextTick = 0;
+
+    /**
+     * Position of this actor among all actors ticked in the current tick of the system,
+     * -1 if the actor is not ticked in the current tick. Used by {@link ParallelSimulatedActorSystem} and {@link PartitionSystem}.
+     */
+    int tickPosition = -1;
+
+    /**
+     * Number of messages, which have been sent to this actor but not processed yet, before the current tick of
+     * the system, plus the messages sent backdated since. Messages sent backdated are checked against the capacity
+     * with this number, as their senders would see it in the sequential system, which has not ticked this actor yet.
+     * Only maintained for actors with a capacity, see {@link SimulatedActor#countQueuedBeforeTick()}.
+     */
+    int queuedBeforeTick = 0;
+
+    /**
+     * Set if the last tick neither processed nor started to process a message, because
+     * the actor was idle and its <c>messageBox</c> was empty. A message arriving late
+     * within the same tick would have been taken from the <c>messageBox</c> in that case.
+     */
+    boolean waitingForMessage = false;
+
     @Override
     public long getId() {
         return this.id;
@@ -68,11 +168,127 @@ public abstract class SimulatedActor implements ISimulatedActor {
 
     @Override
     public List<Message> getMessageLog() {
-        return this.messageLog;
+        return this.messageLog.getMessages();
+    }
+
+    /**
+     * Sets the mailbox, which stores delivered messages until they are processed.
+     * Must be called before the actor is spawned.
+     *
+     * @param mailbox the new, empty mailbox
+     */
+    public void setMailbox(IMailbox mailbox) {
+        this.messageBox = mailbox;
+    }
+
+    /**
+     * @return The mailbox storing delivered messages until they are processed, e.g. to inspect queue depths.
+     */
+    public IMailbox getMailbox() {
+        return this.messageBox;
+    }
+
+    /**
+     * Lets this actor process up to the given number of messages from the <c>messageBox</c>
+     * at once, using {@link SimulatedActor#receiveBatch(List)} instead of {@link ISimulatedActor#receive(Message)}.
+     * The actor is busy for the duration defined by the cost model instead of the durations of the messages.
+     *
+     * @param maxBatchSize   maximum number of messages processed together
+     * @param batchCostModel defines how long a batch of messages takes to process
+     */
+    public void enableBatchReceive(int maxBatchSize, IBatchCostModel batchCostModel) {
+        if (maxBatchSize <= 0)
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        this.maxBatchSize = maxBatchSize;
+        this.batchCostModel = batchCostModel;
+    }
+
+    /**
+     * @return Maximum number of messages processed together, 0 if batch receive is disabled.
+     */
+    public int getMaxBatchSize() {
+        return batchCostModel == null ? 0 : maxBatchSize;
+    }
+
+    /**
+     * Processes a batch of messages taken from the <c>messageBox</c> at once, if batch receive has been
+     * enabled. Actors can override this method to share work between messages, the default
+     * implementation passes the messages to {@link ISimulatedActor#receive(Message)} one by one.
+     * If processing a message throws an exception, the remaining messages of the batch are not processed.
+     *
+     * @param messages Non-empty list of messages in the order in which they have been delivered
+     * @throws UnknownClientException thrown if client is not known
+     */
+    public void receiveBatch(List<Message> messages) throws UnknownClientException {
+        for (Message message : messages) {
+            receive(message);
+        }
+    }
+
+    /**
+     * Limits the number of messages which have been sent to this actor, but are not processed yet,
+     * i.e. messages in transit and in the <c>messageBox</c>. The message currently processed does not count.
+     *
+     * @param capacity       maximum number of messages, or {@link SimulatedActor#UNBOUNDED}
+     * @param overflowPolicy defines what happens to messages sent while the capacity is reached
+     */
+    public void setCapacity(int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * @param message a message sent to this actor
+     * @return true if the message may be rejected, see {@link OverflowPolicy#REJECT}
+     */
+    boolean mayReject(Message message) {
+        return capacity != UNBOUNDED && overflowPolicy == OverflowPolicy.REJECT && !(message instanceof ControlMessage);
+    }
+
+    /**
+     * @return The number of messages dropped or rejected, because the capacity was reached.
+     */
+    public long getDroppedMessages() {
+        return this.droppedMessages.get();
+    }
+
+    /**
+     * Sets the policy which decides which messages sent to this actor are logged.
+     * Messages logged before are discarded.
+     *
+     * @param messageLog the new message log
+     */
+    public void setMessageLog(IMessageLog messageLog) {
+        this.messageLog = messageLog;
+    }
+
+    /**
+     * Takes a snapshot of the runtime metrics of this actor. Like all other methods of actors, this method
+     * must not be called while the system is ticked by another thread.
+     *
+     * @return the current metrics
+     */
+    public ActorMetrics getMetrics() {
+        int ticksAlive = spawnTime < 0 ? 0 : getTimeSinceSystemStart() - spawnTime;
+        Map<String, Long> processed = new HashMap<>();
+        for (Map.Entry<Class<?>, long[]> entry : processedMessages.entrySet()) {
+            processed.put(entry.getKey().getSimpleName(), entry.getValue()[0]);
+        }
+        return new ActorMetrics(id, getClass().getSimpleName(), messageBox.size(), channel.getMessagesInTransit(),
+                busyTicks, ticksAlive, droppedMessages.get(), processed);
     }
 
     @Override
     public int getTimeSinceSystemStart() {
+        // the time of idle actors is only advanced when they are ticked again, the missed ticks are added here
+        if (actorSystem != null)
+            return this.timeSinceSystemStart + actorSystem.getMissedTicks(this);
         return this.timeSinceSystemStart;
     }
 
@@ -81,24 +297,124 @@ public abstract class SimulatedActor implements ISimulatedActor {
         this.timeSinceSystemStart = timeSinceSystemStart;
     }
 
+    /**
+     * Sends a message to this actor like {@link ISimulatedActor#tell(Message)}, respecting its capacity.
+     * Messages dropped because of the capacity are not logged.
+     * <p>
+     * In a {@link ParallelSimulatedActorSystem}, messages sent by actors while they are ticked are
+     * only sent at the end of the tick, so this method returns true. Whether a message is rejected cannot be
+     * decided before, hence actors must use {@link SimulatedActor#offer(Message, Runnable)} instead to send messages
+     * to actors with the overflow policy {@link OverflowPolicy#REJECT} while they are ticked by a parallel system.
+     *
+     * @param message Non-null message to be sent.
+     * @return false if the message has been rejected, because the capacity is reached and
+     * the overflow policy is {@link OverflowPolicy#REJECT}, true otherwise
+     */
+    public boolean offer(Message message) {
+        if (actorSystem != null && actorSystem.interceptTell(this, message))
+            return true;
+        if (!makeRoom(message))
+            return overflowPolicy != OverflowPolicy.REJECT;
+        if (actorSystem != null)
+            actorSystem.accepted(this, message);
+        if (actorSystem != null && actorSystem.isSentBackdated(this)) {
+            tellBackdated(message);
+        } else {
+            channel.send(message);
+            messageLog.add(message);
+        }
+        return true;
+    }
+
+    /**
+     * Sends a message to this actor like {@link SimulatedActor#offer(Message)}, but reports a rejection
+     * by running the given handler. In a {@link ParallelSimulatedActorSystem}, messages sent by actors while
+     * they are ticked are only offered at the end of the tick, so the handler runs after the tick of the sender,
+     * while the messages it sends are ordered like the other messages sent by the sender.
+     *
+     * @param message    Non-null message to be sent.
+     * @param onRejected runs if the message is rejected, because the capacity is reached and
+     *                   the overflow policy is {@link OverflowPolicy#REJECT}
+     */
+    public void offer(Message message, Runnable onRejected) {
+        if (actorSystem != null && actorSystem.deferOffer(this, message, onRejected))
+            return;
+        if (!offer(message))
+            onRejected.run();
+    }
+
     @Override
     public void tell(Message message) {
-        channel.send(message);
+        offer(message);
+    }
+
+    /**
+     * Checks the capacity before a message is sent to this actor and drops the oldest
+     * message if required by the overflow policy. Control messages are always accepted.
+     *
+     * @param message the message to be sent
+     * @return true if the message can be sent
+     */
+    private boolean makeRoom(Message message) {
+        if (capacity == UNBOUNDED || message instanceof ControlMessage)
+            return true;
+        boolean backdated = actorSystem != null && actorSystem.isSentBackdated(this);
+        int queued = backdated ? queuedBeforeTick : channel.getMessagesInTransit() + messageBox.size();
+        if (queued < capacity)
+            return true;
+        droppedMessages.incrementAndGet();
+        if (overflowPolicy != OverflowPolicy.DROP_OLDEST
+                || (messageBox.dropOldest() == null && channel.dropFirst() == null))
+            return false;
+        if (backdated)
+            queuedBeforeTick--;
+        return true;
+    }
+
+    /**
+     * Sets <c>queuedBeforeTick</c> before this actor is ticked by a system which sends messages backdated.
+     */
+    void countQueuedBeforeTick() {
+        if (capacity != UNBOUNDED)
+            queuedBeforeTick = channel.getMessagesInTransit() + messageBox.size();
+    }
+
+    /**
+     * Sends a message as if it had been sent before the last call to {@link ISimulatedActor#tick()}
+     * of this actor, i.e. the message takes one tick less to arrive. If it arrives immediately
+     * and the actor was waiting for a message during the last tick, the actor starts processing it.
+     *
+     * @param message Non-null message to be sent.
+     */
+    private void tellBackdated(Message message) {
+        queuedBeforeTick++;
+        List<Message> newlyDelivered = channel.sendBackdated(message);
         messageLog.add(message);
+        if (!newlyDelivered.isEmpty()) {
+            deliver(newlyDelivered);
+            if (waitingForMessage) {
+                waitingForMessage = false;
+                busyTicks++;
+                startProcessing();
+            }
+        }
     }
 
     @Override
     public void tick() throws UnknownClientException {
         timeSinceSystemStart++;
+        waitingForMessage = false;
         List<Message> newlyDelivered = channel.tick();
-        messageBox.addAll(newlyDelivered);
+        deliver(newlyDelivered);
 
         if (busyFor > 0) {
             busyFor--;
+            busyTicks++;
             return;
         }
 
         Message messageToProcess = null;
+        List<Message> batchToProcess = null;
         // busyFor is zero, so if there is an activeMessage, we are
         // finished processing it, so we can use receive() for changes
         // to take effect
@@ -106,15 +422,85 @@ public abstract class SimulatedActor implements ISimulatedActor {
         if (activeMessage != null) {
             messageToProcess = activeMessage;
             activeMessage = null;
+        } else if (activeBatch != null) {
+            batchToProcess = activeBatch;
+            activeBatch = null;
         } else if (!messageBox.isEmpty()) {
-            activeMessage = messageBox.remove();
-            busyFor = activeMessage.getDuration();
+            startProcessing();
+        } else {
+            waitingForMessage = true;
         }
+        if (!waitingForMessage)
+            busyTicks++;
         // might throw an exception, but all the other code should still be executed,
         // but not in a finally block
         // so we use this variable for intermediately storing the message
         if (messageToProcess != null) {
             receive(messageToProcess);
+        } else if (batchToProcess != null) {
+            receiveBatch(batchToProcess);
+        }
+    }
+
+    /**
+     * Takes the next message, or the next batch of messages if batch receive is enabled,
+     * from the non-empty <c>messageBox</c> and sets <c>busyFor</c> accordingly.
+     */
+    private void startProcessing() {
+        if (batchCostModel == null) {
+            activeMessage = messageBox.poll();
+            countProcessed(activeMessage);
+            busyFor = activeMessage.getDuration();
+        } else {
+            activeBatch = new ArrayList<>(Math.min(maxBatchSize, messageBox.size()));
+            while (activeBatch.size() < maxBatchSize && !messageBox.isEmpty()) {
+                Message message = messageBox.poll();
+                countProcessed(message);
+                activeBatch.add(message);
+            }
+            busyFor = batchCostModel.getDuration(activeBatch);
+        }
+    }
+
+    private void countProcessed(Message message) {
+        long[] counter = processedMessages.get(message.getClass());
+        if (counter == null) {
+            counter = new long[1];
+            processedMessages.put(message.getClass(), counter);
+        }
+        counter[0]++;
+    }
+
+    /**
+     * Moves messages delivered by the channel to the <c>messageBox</c>.
+     *
+     * @param newlyDelivered messages delivered by the channel
+     */
+    private void deliver(List<Message> newlyDelivered) {
+        // indexed loop, as the lists returned by channels are array lists and iterators would allocate
+        for (int i = 0; i < newlyDelivered.size(); i++) {
+            messageBox.offer(newlyDelivered.get(i));
+        }
+    }
+
+    @Override
+    public int getIdleTicks() {
+        int idleTicks = channel.ticksUntilNextDelivery();
+        if (activeMessage != null || activeBatch != null || !messageBox.isEmpty()) {
+            // the next tick after busyFor reached zero processes a message
+            idleTicks = Math.min(idleTicks, busyFor);
+        }
+        return idleTicks;
+    }
+
+    @Override
+    public void skipIdleTicks(int ticks) {
+        timeSinceSystemStart += ticks;
+        channel.skip(ticks);
+        if (busyFor > 0) {
+            // actors are only skipped while they are busy, not beyond the tick processing the message
+            busyTicks += ticks;
+            busyFor -= ticks;
         }
     }
 
@@ -2,21 +2,210 @@ package at.tugraz.ist.qs2021.actorsystem;
 
 import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+public class SimulatedActorSystem implements ISimulatedActorSystem, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * All actors which have been started but not stopped, indexed by their IDs.
+     * As IDs are assigned in increasing order, iteration order is the order in which actors have been spawned.
+     */
+    private final Map<Long, SimulatedActor> actors = new LinkedHashMap<>();
+
+    /**
+     * The values of <c>actors</c> as a list, which is built when needed and dropped when an actor is spawned
+     * or stopped, see {@link SimulatedActorSystem#getActorList()}. Not part of snapshots.
+     */
+    private transient List<SimulatedActor> actorList = null;
+
+    /**
+     * Spawns and stops which happened during the current tick and are applied to <c>actors</c>
+     * at the end of the tick, null outside of a tick.
+     */
+    private List<PendingChange> pendingChanges = null;
+
+    /**
+     * Empty list, which is used as <c>pendingChanges</c> by the next tick.
+     */
+    private List<PendingChange> unusedPendingChanges = new ArrayList<>();
+
+    /**
+     * Actors which have to be ticked in event-driven mode, ordered by their IDs, i.e. the actors which have messages
+     * in their channel or <c>messageBox</c> or are busy. All other actors are idle, i.e. a tick would only advance
+     * their time, so they are not ticked and their time is advanced lazily by
+     * {@link SimulatedActorSystem#catchUp(SimulatedActor)}. Empty in tick-by-tick mode, which ticks all <c>actors</c>.
+     * During a tick, only actors which have not been ticked yet are kept here.
+     */
+    private ActorHeap activeActors = new ActorHeap();
+
+    /**
+     * Active actors which have already been ticked in the current tick, empty outside of a tick.
+     */
+    private ActorHeap tickedActors = new ActorHeap();
+
+    /**
+     * Set while actors are ticked.
+     */
+    boolean inTick = false;
+
+    /**
+     * ID of the last actor ticked in the current tick. Actors with lower or equal IDs
+     * have already been ticked in the current tick.
+     */
+    long lastTickedId = -1;
 
-public class SimulatedActorSystem implements ISimulatedActorSystem {
-    private final List<SimulatedActor> actors = new ArrayList<>();
     private int currentTime = 0;
 
+    /**
+     * defines whether idle ticks are simulated one by one or skipped
+     */
+    private final SchedulingMode schedulingMode;
+
     /**
      * integral number used for creating actor IDs, which is incremented every time an actor is started.
      */
     private long currentActorId = 0;
 
+    /**
+     * creates the message log of every spawned actor, null if actors keep their own message log,
+     * not part of snapshots
+     */
+    private transient Supplier<IMessageLog> messageLogFactory = null;
+
+    /**
+     * observes all messages sent to actors of this system, null if messages are not observed, not part of snapshots
+     */
+    private transient ITellListener tellListener = null;
+
+    /**
+     * publishes the metrics of this system for JMX clients, null if metrics are not published, not part of snapshots
+     */
+    private transient SimulationMetrics metricsPublisher = null;
+
+    /**
+     * number of actors spawned and stopped since the system has been constructed
+     */
+    private long spawnedActors = 0;
+    private long stoppedActors = 0;
+
+    /**
+     * Constructs a new SimulatedActorSystem, which simulates every tick.
+     */
+    public SimulatedActorSystem() {
+        this(SchedulingMode.TICK_BY_TICK);
+    }
+
+    /**
+     * Constructs a new SimulatedActorSystem.
+     *
+     * @param schedulingMode defines whether idle ticks are simulated one by one or skipped
+     */
+    public SimulatedActorSystem(SchedulingMode schedulingMode) {
+        this.schedulingMode = schedulingMode;
+    }
+
+    public SchedulingMode getSchedulingMode() {
+        return this.schedulingMode;
+    }
+
+    /**
+     * Sets the message log policy for all actors spawned afterwards, e.g. <c>DisabledMessageLog::new</c>
+     * to avoid keeping all messages in long runs.
+     *
+     * @param messageLogFactory creates the message log of every spawned actor,
+     *                          null if actors keep the message log they have been constructed with
+     */
+    public void setMessageLogFactory(Supplier<IMessageLog> messageLogFactory) {
+        this.messageLogFactory = messageLogFactory;
+    }
+
+    /**
+     * Sets a listener which is notified about every message accepted by an actor of this system,
+     * e.g. a {@link TraceRecorder}.
+     *
+     * @param tellListener the listener, null to stop observing messages
+     */
+    public void setTellListener(ITellListener tellListener) {
+        this.tellListener = tellListener;
+    }
+
+    /**
+     * Takes a snapshot of the runtime metrics of this system and all of its actors, e.g. to find out which actor
+     * is the bottleneck using {@link SystemMetrics#getBusiestActor()}. Must not be called during a tick.
+     *
+     * @return the current metrics
+     */
+    public SystemMetrics getMetrics() {
+        List<ActorMetrics> actorMetrics = new ArrayList<>(actors.size());
+        for (SimulatedActor actor : actors.values()) {
+            actorMetrics.add(actor.getMetrics());
+        }
+        return new SystemMetrics(currentTime, spawnedActors, stoppedActors, actorMetrics);
+    }
+
+    /**
+     * Publishes the metrics of this system every given number of ticks, such that they can be
+     * queried by other threads, e.g. by JMX clients after {@link SimulationMetrics#register(String)}.
+     *
+     * @param interval number of ticks between two snapshots of the metrics
+     * @return the MBean serving the published metrics
+     */
+    public SimulationMetrics publishMetrics(int interval) {
+        metricsPublisher = new SimulationMetrics(this, interval);
+        return metricsPublisher;
+    }
+
+    /**
+     * Takes a snapshot of this system including all actors, their mailboxes, the messages in their channels
+     * and the current time, from which independent copies of the system can be forked.
+     * The message log factory is not part of the snapshot.
+     *
+     * @return the snapshot
+     * @throws IllegalStateException if called during a tick
+     * @throws java.io.UncheckedIOException if an actor or message is not serializable
+     */
+    public SimulationSnapshot<SimulatedActorSystem> snapshot() {
+        return SimulationSnapshot.of(this);
+    }
+
+    /**
+     * @return A copy of the list of all actors, which have been started but not stopped, ordered by their IDs.
+     * Unlike the list returned by former versions, the copy does not reflect later spawns and stops.
+     */
     @Override
     public List<SimulatedActor> getActors() {
-        return this.actors;
+        return new ArrayList<>(actors.values());
+    }
+
+    /**
+     * Returns all actors, which have been started but not stopped, ordered by their IDs, without copying them
+     * as long as no actor has been spawned or stopped since the last call. Used by subclasses, which tick actors
+     * by their position in the list.
+     *
+     * @return a list, which must not be modified and does not reflect later spawns and stops
+     */
+    List<SimulatedActor> getActorList() {
+        if (actorList == null)
+            actorList = new ArrayList<>(actors.values());
+        return actorList;
+    }
+
+    /**
+     * @param id the ID of the actor
+     * @return The actor with the given ID, or null if it has not been started or has been stopped.
+     */
+    public SimulatedActor getActor(long id) {
+        return actors.get(id);
     }
 
     @Override
@@ -26,39 +215,369 @@ public class SimulatedActorSystem implements ISimulatedActorSystem {
 
     @Override
     public void spawn(SimulatedActor actor) {
-        actors.add(actor);
-        actor.setId(currentActorId++);
+        if (pendingChanges != null) {
+            pendingChanges.add(new PendingChange(actor, true));
+        }
+        actor.actorSystem = this;
+        if (messageLogFactory != null)
+            actor.setMessageLog(messageLogFactory.get());
+        actor.setId(nextActorId());
+        // actors spawned during a tick are ticked from the next tick on
+        actor.nextTick = inTick ? currentTime + 1 : currentTime;
+        if (pendingChanges == null) {
+            register(actor);
+        }
         actor.atStartUp();
         actor.setTimeSinceSystemStart(currentTime);
+        actor.spawnTime = currentTime;
     }
 
     @Override
     public void runFor(int numberOfTicks) throws UnknownClientException {
-        for (int i = 0; i < numberOfTicks; i++) {
-            tick();
-        }
+        advanceTo(currentTime + numberOfTicks);
     }
 
     @Override
     public void runUntil(int endTime) throws UnknownClientException {
-        while (currentTime <= endTime) {
+        advanceTo(endTime + 1);
+    }
+
+    @Override
+    public boolean runUntil(Predicate<? super ISimulatedActorSystem> condition) throws UnknownClientException {
+        while (!condition.test(this)) {
+            if (isQuiescent())
+                return false;
+            advanceToNextEvent();
+        }
+        return true;
+    }
+
+    @Override
+    public void runUntilQuiescent() throws UnknownClientException {
+        while (!isQuiescent()) {
+            advanceToNextEvent();
+        }
+    }
+
+    @Override
+    public boolean isQuiescent() {
+        return getIdleTicks() == ISimulatedActor.NO_EVENT;
+    }
+
+    /**
+     * Runs the next tick in which something happens, in event-driven mode the idle ticks before it are skipped.
+     */
+    private void advanceToNextEvent() throws UnknownClientException {
+        if (schedulingMode == SchedulingMode.EVENT_DRIVEN) {
+            int idleTicks = getIdleTicks();
+            if (idleTicks > 0)
+                skipIdleTicks(idleTicks);
+        }
+        tick();
+    }
+
+    /**
+     * Runs the system until the current time equals the given time. In event-driven mode,
+     * ticks in which nothing happens are skipped instead of being simulated one by one.
+     *
+     * @param targetTime the current time after the call to this method
+     */
+    private void advanceTo(int targetTime) throws UnknownClientException {
+        while (currentTime < targetTime) {
+            if (schedulingMode == SchedulingMode.EVENT_DRIVEN) {
+                int idleTicks = Math.min(getIdleTicks(), targetTime - currentTime);
+                if (idleTicks > 0) {
+                    skipIdleTicks(idleTicks);
+                    continue;
+                }
+            }
             tick();
         }
     }
 
+    /**
+     * @return the number of upcoming ticks in which no actor delivers or processes a message
+     */
+    private int getIdleTicks() {
+        int idleTicks = ISimulatedActor.NO_EVENT;
+        if (schedulingMode == SchedulingMode.TICK_BY_TICK) {
+            for (SimulatedActor actor : actors.values()) {
+                idleTicks = Math.min(idleTicks, actor.getIdleTicks());
+                if (idleTicks == 0)
+                    break;
+            }
+            return idleTicks;
+        }
+        for (int i = 0; i < activeActors.size() && idleTicks > 0; i++) {
+            idleTicks = Math.min(idleTicks, activeActors.get(i).getIdleTicks());
+        }
+        return idleTicks;
+    }
+
+    /**
+     * Advances all active actors and the current time by the given number of idle ticks.
+     *
+     * @param ticks number of ticks to skip
+     */
+    private void skipIdleTicks(int ticks) {
+        for (int i = 0; i < activeActors.size(); i++) {
+            SimulatedActor actor = activeActors.get(i);
+            catchUp(actor);
+            actor.skipIdleTicks(ticks);
+            actor.nextTick += ticks;
+        }
+        currentTime += ticks;
+        if (metricsPublisher != null)
+            metricsPublisher.onTimeAdvanced(this);
+    }
+
+    /**
+     * Removes the given actor from the set of active actors if it has nothing to do
+     * until another message is sent to it. Does nothing in tick-by-tick mode, which does not keep active actors.
+     *
+     * @param actor the actor which has just been ticked
+     */
+    void deactivateIfIdle(SimulatedActor actor) {
+        if (schedulingMode == SchedulingMode.TICK_BY_TICK)
+            return;
+        if (actor.heap != null && actor.getIdleTicks() == ISimulatedActor.NO_EVENT)
+            actor.heap.remove(actor);
+    }
+
+    /**
+     * Adds an actor to the set of active actors. During a tick, actors which have already been
+     * ticked or whose turn has passed are only ticked from the next tick on.
+     *
+     * @param actor an idle actor
+     */
+    private void activate(SimulatedActor actor) {
+        // pendingChanges is only set while actors are ticked by SimulatedActorSystem#tick()
+        if (pendingChanges != null && actor.getId() <= lastTickedId) {
+            tickedActors.add(actor);
+        } else {
+            activeActors.add(actor);
+        }
+    }
+
+    private void register(SimulatedActor actor) {
+        actors.put(actor.getId(), actor);
+        actorList = null;
+        actor.alive = true;
+        spawnedActors++;
+        if (schedulingMode == SchedulingMode.EVENT_DRIVEN)
+            activate(actor);
+    }
+
+    /**
+     * Advances an actor, which has not been ticked because it was idle, by the ticks it missed,
+     * i.e. up to the current tick if it has not been ticked in the current tick yet.
+     * Stopped actors are not advanced anymore.
+     *
+     * @param actor the actor to advance
+     */
+    void catchUp(SimulatedActor actor) {
+        int missedTicks = getMissedTicks(actor);
+        if (missedTicks > 0) {
+            actor.skipIdleTicks(missedTicks);
+            actor.nextTick += missedTicks;
+        }
+    }
+
+    /**
+     * @param actor an actor of this system
+     * @return the number of ticks the actor has missed because it was idle, i.e. the ticks
+     * {@link #catchUp(SimulatedActor)} would skip, 0 for stopped actors
+     */
+    int getMissedTicks(SimulatedActor actor) {
+        if (!actor.alive || actor.actorSystem != this)
+            return 0;
+        int ticksToReach = inTick && actor.getId() <= lastTickedId ? currentTime + 1 : currentTime;
+        return Math.max(0, ticksToReach - actor.nextTick);
+    }
+
+    /**
+     * Stops the given actor. If called during a tick, the actor is removed at the end of the tick,
+     * i.e. it is still ticked in the current tick if it has not been ticked yet.
+     *
+     * @param actor the actor to be stopped
+     */
     @Override
     public void stop(SimulatedActor actor) {
-        actors.remove(actor);
+        if (pendingChanges != null) {
+            pendingChanges.add(new PendingChange(actor, false));
+        } else if (actor.alive && actor.actorSystem == this) {
+            catchUp(actor);
+            actors.remove(actor.getId());
+            actorList = null;
+            actor.alive = false;
+            stoppedActors++;
+            if (actor.heap != null)
+                actor.heap.remove(actor);
+        }
+    }
+
+    /**
+     * Called by {@link SimulatedActor#tell(Message)} before a message is sent to the given actor.
+     *
+     * @param receiver the actor the message is sent to
+     * @return true if the message has to be sent as if it had been sent before the last tick of the receiver,
+     * i.e. it takes one tick less to arrive
+     */
+    boolean isSentBackdated(SimulatedActor receiver) {
+        return false;
+    }
+
+    /**
+     * Called by {@link SimulatedActor#tell(Message)} before the message is sent,
+     * allowing subclasses to defer or redirect messages. Makes the receiver active,
+     * so it is ticked until it has processed the message.
+     *
+     * @param receiver the actor the message is sent to
+     * @param message  the message
+     * @return true if the message has been taken care of and must not be sent by the receiver
+     */
+    boolean interceptTell(SimulatedActor receiver, Message message) {
+        // actors spawned in the current tick are made active at its end anyway
+        if (schedulingMode == SchedulingMode.EVENT_DRIVEN && receiver.alive && receiver.actorSystem == this
+                && receiver.heap == null) {
+            catchUp(receiver);
+            activate(receiver);
+        }
+        return false;
+    }
+
+    /**
+     * Called by {@link SimulatedActor#offer(Message)} after the receiver has accepted a message,
+     * i.e. it has not been dropped or rejected because of the capacity of the receiver.
+     *
+     * @param receiver the actor the message is sent to
+     * @param message  the message
+     */
+    void accepted(SimulatedActor receiver, Message message) {
+        if (tellListener != null)
+            tellListener.onTell(getSenderId(), receiver, message, getSendTick(receiver));
+    }
+
+    /**
+     * Called by {@link SimulatedActor#offer(Message, Runnable)} before the message is offered,
+     * allowing subclasses to offer it later.
+     *
+     * @param receiver   the actor the message is sent to
+     * @param message    the message
+     * @param onRejected runs if the message is rejected
+     * @return true if the message will be offered later and must not be offered by the receiver now
+     */
+    boolean deferOffer(SimulatedActor receiver, Message message, Runnable onRejected) {
+        return false;
+    }
+
+    /**
+     * @return ID of the actor which is currently ticked and sending messages,
+     * {@link ITellListener#EXTERNAL_SENDER} outside of a tick
+     */
+    long getSenderId() {
+        // pendingChanges is only set while actors are ticked by SimulatedActorSystem#tick()
+        return pendingChanges != null ? lastTickedId : ITellListener.EXTERNAL_SENDER;
     }
 
+    /**
+     * @param receiver the actor a message is sent to
+     * @return The time at which the message would have to be sent from outside of a tick to arrive at the same time,
+     * i.e. the next time if the receiver has already been ticked in the current tick.
+     */
+    int getSendTick(SimulatedActor receiver) {
+        return pendingChanges != null && receiver.getId() <= lastTickedId ? currentTime + 1 : currentTime;
+    }
+
+    /**
+     * Calls {@link ISimulatedActor#tick()} on all actors alive at the start of the tick in tick-by-tick mode.
+     * In event-driven mode, only active actors are ticked, including actors which become active during the tick
+     * before their turn, and actors which are idle afterwards leave the set of active actors.
+     * Actors spawned or stopped during the tick are only added or removed at its end.
+     */
     @Override
     public void tick() throws UnknownClientException {
-        // need to copy list, because actors might be spawned or stopped
-        // during tick which modifies the actors-list
-        List<SimulatedActor> currentlyAliveActors = new ArrayList<>(actors);
-        for (SimulatedActor actor : currentlyAliveActors) {
-            actor.tick();
+        pendingChanges = unusedPendingChanges;
+        unusedPendingChanges = null;
+        inTick = true;
+        lastTickedId = -1;
+        try {
+            if (schedulingMode == SchedulingMode.TICK_BY_TICK) {
+                // spawns and stops are pending during the tick, so the actors can be iterated directly,
+                // and every actor is ticked at every tick, so no actor has to catch up
+                for (SimulatedActor actor : actors.values()) {
+                    lastTickedId = actor.getId();
+                    actor.nextTick = currentTime + 1;
+                    actor.tick();
+                }
+            } else {
+                while (!activeActors.isEmpty()) {
+                    SimulatedActor actor = activeActors.poll();
+                    tickedActors.add(actor);
+                    catchUp(actor);
+                    lastTickedId = actor.getId();
+                    actor.nextTick = currentTime + 1;
+                    actor.tick();
+                    deactivateIfIdle(actor);
+                }
+            }
+        } finally {
+            // actors which have not been ticked because of an exception stay active
+            while (!activeActors.isEmpty()) {
+                tickedActors.add(activeActors.poll());
+            }
+            ActorHeap ticked = tickedActors;
+            tickedActors = activeActors;
+            activeActors = ticked;
+            lastTickedId = Long.MAX_VALUE;
+            List<PendingChange> changes = pendingChanges;
+            pendingChanges = null;
+            for (PendingChange change : changes) {
+                if (change.spawned) {
+                    register(change.actor);
+                } else {
+                    stop(change.actor);
+                }
+            }
+            changes.clear();
+            unusedPendingChanges = changes;
+            inTick = false;
         }
+        advanceCurrentTime();
+    }
+
+    /**
+     * @return the ID of the next spawned actor
+     */
+    long nextActorId() {
+        return currentActorId++;
+    }
+
+    /**
+     * Increments the current time at the end of a tick.
+     */
+    void advanceCurrentTime() {
         currentTime++;
+        if (metricsPublisher != null)
+            metricsPublisher.onTimeAdvanced(this);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        if (inTick)
+            throw new IllegalStateException("Snapshots cannot be taken during a tick");
+        out.defaultWriteObject();
+    }
+
+    /**
+     * An actor spawned or stopped during a tick.
+     */
+    private static class PendingChange {
+        final SimulatedActor actor;
+        final boolean spawned;
+
+        PendingChange(SimulatedActor actor, boolean spawned) {
+            this.actor = actor;
+            this.spawned = spawned;
+        }
     }
 }
@@ -0,0 +1,108 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Exports the metrics of a {@link SimulatedActorSystem} as a JMX MBean, see
+ * {@link SimulatedActorSystem#publishMetrics(int)}.
+ * <p>
+ * Simulations are not thread-safe, so JMX clients cannot query the actors directly. Instead, the system publishes
+ * a snapshot of its metrics at the end of a tick every given number of ticks, which is served until the next one.
+ */
+public class SimulationMetrics implements ISimulationMetricsMXBean {
+
+    private final int interval;
+
+    private int nextPublishTime;
+
+    private volatile SystemMetrics metrics;
+
+    SimulationMetrics(SimulatedActorSystem system, int interval) {
+        if (interval <= 0)
+            throw new IllegalArgumentException("interval must be positive");
+        this.interval = interval;
+        publish(system);
+    }
+
+    /**
+     * Registers this MBean at the platform MBean server.
+     *
+     * @param name identifies the system among all exported systems
+     * @return the name of the registered MBean
+     * @throws IllegalStateException if the MBean cannot be registered, e.g. because the name is already in use
+     */
+    public ObjectName register(String name) {
+        try {
+            ObjectName objectName = new ObjectName("at.tugraz.ist.qs2021:type=SimulatedActorSystem,name="
+                    + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Metrics cannot be exported", e);
+        }
+    }
+
+    /**
+     * @return The metrics published last.
+     */
+    public SystemMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Called by the system whenever its time has advanced.
+     */
+    void onTimeAdvanced(SimulatedActorSystem system) {
+        if (system.getCurrentTime() >= nextPublishTime)
+            publish(system);
+    }
+
+    private void publish(SimulatedActorSystem system) {
+        metrics = system.getMetrics();
+        nextPublishTime = system.getCurrentTime() + interval;
+    }
+
+    @Override
+    public int getCurrentTime() {
+        return metrics.getCurrentTime();
+    }
+
+    @Override
+    public int getLiveActors() {
+        return metrics.getLiveActors();
+    }
+
+    @Override
+    public long getSpawnedActors() {
+        return metrics.getSpawnedActors();
+    }
+
+    @Override
+    public long getStoppedActors() {
+        return metrics.getStoppedActors();
+    }
+
+    @Override
+    public double getSpawnRate() {
+        return metrics.getSpawnRate();
+    }
+
+    @Override
+    public double getStopRate() {
+        return metrics.getStopRate();
+    }
+
+    @Override
+    public String getBusiestActor() {
+        ActorMetrics busiest = metrics.getBusiestActor();
+        return busiest == null ? null : busiest.toString();
+    }
+
+    @Override
+    public List<ActorMetrics> getActors() {
+        return metrics.getActorsByUtilization();
+    }
+}
@@ -0,0 +1,71 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+
+/**
+ * Frozen copy of a simulation, e.g. a {@link SimulatedActorSystem} or an object holding a system together with
+ * some of its actors, from which any number of independent copies can be forked.
+ * <p>
+ * The simulation is serialized once when the snapshot is taken, so a fork only has to deserialize it,
+ * which is much cheaper than simulating the ticks needed to reach the same state, e.g. to populate a message board.
+ * References between the objects of the simulation are preserved within a fork, so a fork of a holder object refers to
+ * the forked system and actors. All actors and messages have to be serializable, i.e. they must not refer to threads,
+ * streams or other resources outside of the simulation.
+ *
+ * @param <T> type of the root object of the simulation
+ */
+public final class SimulationSnapshot<T extends Serializable> {
+
+    private final byte[] state;
+
+    private SimulationSnapshot(byte[] state) {
+        this.state = state;
+    }
+
+    /**
+     * Takes a snapshot of the given object and all objects reachable from it.
+     *
+     * @param root the object to copy, e.g. a {@link SimulatedActorSystem}
+     * @param <T>  type of the object
+     * @return the snapshot
+     * @throws IllegalStateException if a system is currently ticking
+     * @throws UncheckedIOException  if a reachable object is not serializable
+     */
+    public static <T extends Serializable> SimulationSnapshot<T> of(T root) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Simulation cannot be copied", e);
+        }
+        return new SimulationSnapshot<>(bytes.toByteArray());
+    }
+
+    /**
+     * @return A new copy of the simulation in the state in which the snapshot has been taken,
+     * which is independent of the original and of all other forks.
+     */
+    @SuppressWarnings("unchecked")
+    public T fork() {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(state))) {
+            return (T) in.readObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Simulation cannot be restored", e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Simulation cannot be restored", e);
+        }
+    }
+
+    /**
+     * @return The number of bytes used to store the snapshot.
+     */
+    public int size() {
+        return state.length;
+    }
+}
@@ -0,0 +1,46 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Message log which passes every message sent to a sink instead of keeping it,
+ * e.g. to write messages to a file. The sink might be called concurrently if
+ * the actor runs in a {@link RealTimeActorSystem}.
+ * <p>
+ * The sink is not part of a {@link SimulationSnapshot}, as it usually refers to resources outside of the
+ * simulation. Messages sent to an actor of a fork are not passed to any sink.
+ */
+public class StreamingMessageLog implements IMessageLog {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * null in a fork of a snapshot
+     */
+    private final transient Consumer<Message> sink;
+
+    /**
+     * Constructs a new StreamingMessageLog.
+     *
+     * @param sink consumer called with every message sent
+     */
+    public StreamingMessageLog(Consumer<Message> sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public void add(Message message) {
+        if (sink != null)
+            sink.accept(message);
+    }
+
+    /**
+     * @return An empty list, as messages are not kept.
+     */
+    @Override
+    public List<Message> getMessages() {
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,92 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Runtime metrics of a system and all of its actors at some point in time, see {@link SimulatedActorSystem#getMetrics()}.
+ */
+public final class SystemMetrics {
+
+    private final int currentTime;
+
+    private final long spawnedActors;
+
+    private final long stoppedActors;
+
+    private final List<ActorMetrics> actors;
+
+    SystemMetrics(int currentTime, long spawnedActors, long stoppedActors, List<ActorMetrics> actors) {
+        this.currentTime = currentTime;
+        this.spawnedActors = spawnedActors;
+        this.stoppedActors = stoppedActors;
+        this.actors = Collections.unmodifiableList(actors);
+    }
+
+    public int getCurrentTime() {
+        return currentTime;
+    }
+
+    /**
+     * @return The number of actors which have been spawned and not stopped.
+     */
+    public int getLiveActors() {
+        return actors.size();
+    }
+
+    /**
+     * @return The number of actors spawned since the system has been constructed.
+     */
+    public long getSpawnedActors() {
+        return spawnedActors;
+    }
+
+    /**
+     * @return The number of actors stopped since the system has been constructed.
+     */
+    public long getStoppedActors() {
+        return stoppedActors;
+    }
+
+    /**
+     * @return The average number of actors spawned per tick.
+     */
+    public double getSpawnRate() {
+        return currentTime == 0 ? 0 : (double) spawnedActors / currentTime;
+    }
+
+    /**
+     * @return The average number of actors stopped per tick.
+     */
+    public double getStopRate() {
+        return currentTime == 0 ? 0 : (double) stoppedActors / currentTime;
+    }
+
+    /**
+     * @return The metrics of all live actors ordered by their IDs.
+     */
+    public List<ActorMetrics> getActors() {
+        return actors;
+    }
+
+    /**
+     * @return The metrics of all live actors, the most utilized actor first.
+     * Actors with the same utilization are ordered by their mailbox depths.
+     */
+    public List<ActorMetrics> getActorsByUtilization() {
+        List<ActorMetrics> sorted = new ArrayList<>(actors);
+        sorted.sort(Comparator.comparingDouble(ActorMetrics::getUtilization)
+                .thenComparingInt(ActorMetrics::getMailboxDepth).reversed());
+        return sorted;
+    }
+
+    /**
+     * @return The metrics of the most utilized actor, i.e. the likely bottleneck, or null if there are no actors.
+     */
+    public ActorMetrics getBusiestActor() {
+        List<ActorMetrics> sorted = getActorsByUtilization();
+        return sorted.isEmpty() ? null : sorted.get(0);
+    }
+}
@@ -0,0 +1,76 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * One message read from a trace, see {@link TraceReplayer#read(java.nio.file.Path)}.
+ * The payload is only decoded when the message is needed, as decoding refers to the actors of the replaying system.
+ */
+public final class TraceRecord {
+
+    private final int tick;
+
+    private final long senderId;
+
+    private final long receiverId;
+
+    private final String type;
+
+    private final byte[] payload;
+
+    TraceRecord(int tick, long senderId, long receiverId, String type, byte[] payload) {
+        this.tick = tick;
+        this.senderId = senderId;
+        this.receiverId = receiverId;
+        this.type = type;
+        this.payload = payload;
+    }
+
+    /**
+     * @return The time at which the message has to be sent from outside of a tick to be replayed.
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * @return ID of the actor which sent the message, or {@link ITellListener#EXTERNAL_SENDER}.
+     */
+    public long getSenderId() {
+        return senderId;
+    }
+
+    public long getReceiverId() {
+        return receiverId;
+    }
+
+    /**
+     * @return The class name of the message.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @return The number of bytes of the payload.
+     */
+    public int getPayloadSize() {
+        return payload.length;
+    }
+
+    /**
+     * @param codecs codecs the trace has been recorded with
+     * @param actors resolves IDs of actors referenced by the message
+     * @return a new copy of the recorded message
+     */
+    public Message decode(MessageCodecs codecs, IMessageCodec.ActorResolver actors) throws IOException {
+        return codecs.decode(type, new DataInputStream(new ByteArrayInputStream(payload)), actors);
+    }
+
+    @Override
+    public String toString() {
+        return "TraceRecord(" + tick + ", " + senderId + " -> " + receiverId + ", " + type + ')';
+    }
+}
@@ -0,0 +1,163 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records all messages sent to the actors of a {@link SimulatedActorSystem} into a compact binary trace,
+ * which can be read and fed into another system by a {@link TraceReplayer}.
+ * <p>
+ * Every message is stored as one record containing the tick at which it was sent, the IDs of the sender and the
+ * receiver, the message type and the payload written by the codec of the type, see {@link MessageCodecs}.
+ * Message types are written once, before the first record using them, and are referred to by small numbers afterwards.
+ * Records are appended to a memory-mapped region of the trace file, which is remapped when it is full,
+ * so recording a message does not need a system call. The trace is complete after the recorder has been closed.
+ */
+public class TraceRecorder implements ITellListener, AutoCloseable {
+
+    /**
+     * first four bytes of every trace
+     */
+    static final int MAGIC = 0x41545243;
+
+    static final short VERSION = 1;
+
+    /**
+     * tag of records introducing a message type
+     */
+    static final byte TYPE_RECORD = 1;
+
+    /**
+     * tag of records containing a message
+     */
+    static final byte TELL_RECORD = 2;
+
+    /**
+     * number of bytes mapped at once
+     */
+    private static final int REGION_SIZE = 1 << 20;
+
+    private final FileChannel file;
+
+    private final MessageCodecs codecs;
+
+    private final Map<Class<?>, Short> typeIds = new HashMap<>();
+
+    /**
+     * reused buffer the payload of a message is written to, before its length is known
+     */
+    private final PayloadBuffer payload = new PayloadBuffer();
+
+    private final DataOutputStream payloadOut = new DataOutputStream(payload);
+
+    private MappedByteBuffer region;
+
+    /**
+     * position of the mapped region in the trace file
+     */
+    private long regionStart = 0;
+
+    private long numberOfRecords = 0;
+
+    /**
+     * Creates the trace file, replacing an existing file.
+     *
+     * @param path   the trace file
+     * @param codecs codecs used to write the payloads of messages
+     */
+    public TraceRecorder(Path path, MessageCodecs codecs) throws IOException {
+        this.file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.codecs = codecs;
+        this.region = file.map(FileChannel.MapMode.READ_WRITE, 0, REGION_SIZE);
+        region.putInt(MAGIC);
+        region.putShort(VERSION);
+    }
+
+    /**
+     * Records a message, see {@link SimulatedActorSystem#setTellListener(ITellListener)}.
+     *
+     * @throws UncheckedIOException if the message cannot be written
+     */
+    @Override
+    public void onTell(long senderId, SimulatedActor receiver, Message message, int tick) {
+        try {
+            short typeId = getTypeId(message.getClass());
+            payload.reset();
+            codecs.encode(message, payloadOut);
+            ensureCapacity(Byte.BYTES + Integer.BYTES + 2 * Long.BYTES + Short.BYTES + Integer.BYTES + payload.size());
+            region.put(TELL_RECORD);
+            region.putInt(tick);
+            region.putLong(senderId);
+            region.putLong(receiver.getId());
+            region.putShort(typeId);
+            region.putInt(payload.size());
+            payload.copyTo(region);
+            numberOfRecords++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Message cannot be recorded: " + message, e);
+        }
+    }
+
+    /**
+     * @return The number of messages recorded so far.
+     */
+    public long getNumberOfRecords() {
+        return numberOfRecords;
+    }
+
+    /**
+     * Cuts off the unused part of the last mapped region and closes the trace file.
+     */
+    @Override
+    public void close() throws IOException {
+        long size = regionStart + region.position();
+        region.force();
+        region = null;
+        file.truncate(size);
+        file.close();
+    }
+
+    private short getTypeId(Class<?> type) throws IOException {
+        Short typeId = typeIds.get(type);
+        if (typeId == null) {
+            typeId = (short) typeIds.size();
+            payload.reset();
+            payloadOut.writeUTF(type.getName());
+            ensureCapacity(Byte.BYTES + Short.BYTES + payload.size());
+            region.put(TYPE_RECORD);
+            region.putShort(typeId);
+            payload.copyTo(region);
+            typeIds.put(type, typeId);
+        }
+        return typeId;
+    }
+
+    /**
+     * Maps the next region of the file if the given number of bytes does not fit into the current region.
+     */
+    private void ensureCapacity(int bytes) throws IOException {
+        if (region.remaining() < bytes) {
+            regionStart += region.position();
+            region = file.map(FileChannel.MapMode.READ_WRITE, regionStart, Math.max(REGION_SIZE, bytes));
+        }
+    }
+
+    /**
+     * Buffer which can be copied without creating a copy of its content first.
+     */
+    private static class PayloadBuffer extends ByteArrayOutputStream {
+        void copyTo(ByteBuffer destination) {
+            destination.put(buf, 0, count);
+        }
+    }
+}
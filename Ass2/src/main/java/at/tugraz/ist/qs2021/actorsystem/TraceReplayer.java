@@ -0,0 +1,107 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Reads traces written by a {@link TraceRecorder} and feeds the recorded messages into a {@link SimulatedActorSystem}.
+ * <p>
+ * Messages are sent from outside of a tick at the recorded times, so the receivers get them at the same time
+ * as in the recorded run. Usually only messages from outside of the system or from some of the actors
+ * (e.g. clients) are replayed, while all other messages are sent again by the actors of the replaying system.
+ * Actors are identified by their IDs, so the replaying system has to spawn its actors in the same order.
+ */
+public final class TraceReplayer {
+
+    private final MessageCodecs codecs;
+
+    /**
+     * @param codecs codecs the traces have been recorded with
+     */
+    public TraceReplayer(MessageCodecs codecs) {
+        this.codecs = codecs;
+    }
+
+    /**
+     * Reads all records of a trace in the order in which the messages have been sent.
+     *
+     * @param path the trace file
+     * @return the records
+     * @throws IOException if the file cannot be read or is not a complete trace
+     */
+    public static List<TraceRecord> read(Path path) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer trace = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+            if (trace.remaining() < Integer.BYTES + Short.BYTES || trace.getInt() != TraceRecorder.MAGIC)
+                throw new IOException("Not a trace: " + path);
+            short version = trace.getShort();
+            if (version != TraceRecorder.VERSION)
+                throw new IOException("Unsupported trace version " + version);
+            List<String> types = new ArrayList<>();
+            List<TraceRecord> records = new ArrayList<>();
+            while (trace.hasRemaining()) {
+                byte tag = trace.get();
+                if (tag == TraceRecorder.TYPE_RECORD) {
+                    short typeId = trace.getShort();
+                    byte[] name = new byte[Short.toUnsignedInt(trace.getShort())];
+                    trace.get(name);
+                    if (typeId != types.size())
+                        throw new IOException("Corrupt trace, unexpected type " + typeId);
+                    // class names do not contain characters encoded differently in modified UTF-8
+                    types.add(new String(name, StandardCharsets.UTF_8));
+                } else if (tag == TraceRecorder.TELL_RECORD) {
+                    int tick = trace.getInt();
+                    long senderId = trace.getLong();
+                    long receiverId = trace.getLong();
+                    short typeId = trace.getShort();
+                    byte[] payload = new byte[trace.getInt()];
+                    trace.get(payload);
+                    if (typeId < 0 || typeId >= types.size())
+                        throw new IOException("Corrupt trace, unknown type " + typeId);
+                    records.add(new TraceRecord(tick, senderId, receiverId, types.get(typeId), payload));
+                } else {
+                    throw new IOException("Corrupt trace, unknown record " + tag);
+                }
+            }
+            return records;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Incomplete trace: " + path, e);
+        }
+    }
+
+    /**
+     * Sends the recorded messages to the actors of the given system. The system is run until the time of each
+     * message, but not beyond the time of the last message. Messages to actors which have already been stopped
+     * are dropped, like in the recorded run.
+     *
+     * @param records records in the order they have been read
+     * @param system  the replaying system, which must not be ahead of the first replayed message
+     * @param filter  selects the records to replay, e.g. by their sender IDs
+     * @throws IllegalStateException  if the system is already ahead of a message
+     * @throws UnknownClientException if thrown by an actor while running the system
+     */
+    public void replay(List<TraceRecord> records, SimulatedActorSystem system, Predicate<TraceRecord> filter)
+            throws IOException, UnknownClientException {
+        for (TraceRecord record : records) {
+            if (!filter.test(record))
+                continue;
+            if (record.getTick() < system.getCurrentTime())
+                throw new IllegalStateException("System is ahead of " + record);
+            if (record.getTick() > system.getCurrentTime())
+                system.runUntil(record.getTick() - 1);
+            SimulatedActor receiver = system.getActor(record.getReceiverId());
+            if (receiver != null)
+                receiver.tell(record.decode(codecs, system::getActor));
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package at.tugraz.ist.qs2021.messageboard;
 
+import at.tugraz.ist.qs2021.actorsystem.ISimulatedActorSystem;
 import at.tugraz.ist.qs2021.actorsystem.Message;
+import at.tugraz.ist.qs2021.actorsystem.OverflowPolicy;
+import at.tugraz.ist.qs2021.actorsystem.PriorityMailbox;
 import at.tugraz.ist.qs2021.actorsystem.SimulatedActor;
-import at.tugraz.ist.qs2021.actorsystem.SimulatedActorSystem;
 import at.tugraz.ist.qs2021.messageboard.clientmessages.InitCommunication;
 import at.tugraz.ist.qs2021.messageboard.clientmessages.OperationFailed;
 import at.tugraz.ist.qs2021.messageboard.dispatchermessages.Stop;
@@ -26,6 +28,8 @@ enum Mode {NORMAL, STOPPING}
  */
 public class Dispatcher extends SimulatedActor {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * mode property defining the mode currently active
      */
@@ -44,7 +48,7 @@ public class Dispatcher extends SimulatedActor {
     /**
      * The system, which is used to spawn actors.
      */
-    private final SimulatedActorSystem system;
+    private final ISimulatedActorSystem system;
 
     /**
      * List of acknowledgement messages to collect, which is only non-empty
@@ -58,12 +62,32 @@ public class Dispatcher extends SimulatedActor {
      */
     protected MessageStore messageStore;
 
-    public Dispatcher(SimulatedActorSystem system, int numberOfWorkers) {
+    /**
+     * maximum number of requests waiting at the message store, further requests are rejected
+     */
+    private final int messageStoreCapacity;
+
+    public Dispatcher(ISimulatedActorSystem system, int numberOfWorkers) {
+        this(system, numberOfWorkers, UNBOUNDED);
+    }
+
+    /**
+     * Constructs a new Dispatcher, whose message store rejects requests if it is overloaded.
+     * Worker helpers report rejected requests to clients as failed operations immediately.
+     *
+     * @param system               the system used to spawn actors
+     * @param numberOfWorkers      number of workers spawned at startup
+     * @param messageStoreCapacity maximum number of requests waiting at the message store
+     */
+    public Dispatcher(ISimulatedActorSystem system, int numberOfWorkers, int messageStoreCapacity) {
+        this.messageStoreCapacity = messageStoreCapacity;
         this.system = system;
         this.workers = new ArrayList<>(numberOfWorkers);
         this.numberOfWorkers = numberOfWorkers;
         this.mode = Mode.NORMAL;
         this.acksToCollect = new ArrayList<>();
+        // stop acknowledgements must not wait for client requests
+        setMailbox(new PriorityMailbox());
     }
 
     /**
@@ -87,6 +111,8 @@ public class Dispatcher extends SimulatedActor {
     @Override
     public void atStartUp() {
         messageStore = new MessageStore();
+        if (messageStoreCapacity != UNBOUNDED)
+            messageStore.setCapacity(messageStoreCapacity, OverflowPolicy.REJECT);
         for (int i = 0; i < numberOfWorkers; i++) {
             Worker w = new Worker(this, messageStore, system);
             system.spawn(w);
@@ -0,0 +1,123 @@
+package at.tugraz.ist.qs2021.messageboard;
+
+import at.tugraz.ist.qs2021.actorsystem.MessageCodecs;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.*;
+import at.tugraz.ist.qs2021.messageboard.dispatchermessages.Stop;
+import at.tugraz.ist.qs2021.messageboard.dispatchermessages.StopAck;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact codecs for the messages exchanged between clients, the dispatcher and workers,
+ * used to record and replay message board simulations. Messages between worker helpers and
+ * the message store are written using the fallback of {@link MessageCodecs}.
+ */
+public final class MessageBoardCodecs {
+
+    private MessageBoardCodecs() {
+    }
+
+    /**
+     * @return A new registry containing codecs for all client and dispatcher messages.
+     */
+    public static MessageCodecs create() {
+        return new MessageCodecs()
+                .register(InitCommunication.class, (m, out) -> {
+                    MessageCodecs.writeActor(m.client, out);
+                    out.writeLong(m.communicationId);
+                }, (in, actors) -> new InitCommunication(MessageCodecs.readActor(in, actors), in.readLong()))
+                .register(InitAck.class, (m, out) -> {
+                    MessageCodecs.writeActor(m.worker, out);
+                    out.writeLong(m.communicationId);
+                }, (in, actors) -> new InitAck(MessageCodecs.readActor(in, actors), in.readLong()))
+                .register(FinishCommunication.class, (m, out) -> out.writeLong(m.communicationId),
+                        (in, actors) -> new FinishCommunication(in.readLong()))
+                .register(FinishAck.class, (m, out) -> out.writeLong(m.communicationId),
+                        (in, actors) -> new FinishAck(in.readLong()))
+                .register(OperationAck.class, (m, out) -> out.writeLong(m.communicationId),
+                        (in, actors) -> new OperationAck(in.readLong()))
+                .register(OperationFailed.class, (m, out) -> out.writeLong(m.communicationId),
+                        (in, actors) -> new OperationFailed(in.readLong()))
+                .register(UserBanned.class, (m, out) -> out.writeLong(m.communicationId),
+                        (in, actors) -> new UserBanned(in.readLong()))
+                .register(Publish.class, (m, out) -> {
+                    writeUserMessage(m.message, out);
+                    out.writeLong(m.communicationId);
+                }, (in, actors) -> new Publish(readUserMessage(in), in.readLong()))
+                .register(FoundMessages.class, (m, out) -> {
+                    out.writeInt(m.messages.size());
+                    for (UserMessage message : m.messages) {
+                        writeUserMessage(message, out);
+                    }
+                    out.writeLong(m.communicationId);
+                }, (in, actors) -> {
+                    int size = in.readInt();
+                    List<UserMessage> messages = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        messages.add(readUserMessage(in));
+                    }
+                    return new FoundMessages(messages, in.readLong());
+                })
+                .register(RetrieveMessages.class, (m, out) -> {
+                    out.writeUTF(m.author);
+                    out.writeLong(m.communicationId);
+                }, (in, actors) -> new RetrieveMessages(in.readUTF(), in.readLong()))
+                .register(SearchMessages.class, (m, out) -> {
+                    out.writeUTF(m.searchText);
+                    out.writeLong(m.communicationId);
+                }, (in, actors) -> new SearchMessages(in.readUTF(), in.readLong()))
+                .register(Like.class, (m, out) -> {
+                    out.writeUTF(m.clientName);
+                    out.writeLong(m.communicationId);
+                    out.writeLong(m.messageId);
+                }, (in, actors) -> new Like(in.readUTF(), in.readLong(), in.readLong()))
+                .register(Dislike.class, (m, out) -> {
+                    out.writeUTF(m.clientName);
+                    out.writeLong(m.communicationId);
+                    out.writeLong(m.messageId);
+                }, (in, actors) -> new Dislike(in.readUTF(), in.readLong(), in.readLong()))
+                .register(Report.class, (m, out) -> {
+                    out.writeUTF(m.clientName);
+                    out.writeLong(m.communicationId);
+                    out.writeUTF(m.reportedClientName);
+                }, (in, actors) -> new Report(in.readUTF(), in.readLong(), in.readUTF()))
+                .register(Stop.class, (m, out) -> {
+                }, (in, actors) -> new Stop())
+                .register(StopAck.class, (m, out) -> MessageCodecs.writeActor(m.sender, out),
+                        (in, actors) -> new StopAck(MessageCodecs.readActor(in, actors)));
+    }
+
+    private static void writeUserMessage(UserMessage message, DataOutput out) throws IOException {
+        out.writeUTF(message.getAuthor());
+        out.writeUTF(message.getMessage());
+        out.writeLong(message.getMessageId());
+        writeNames(message.getLikeVotes(), out);
+        writeNames(message.getDislikeVotes(), out);
+    }
+
+    private static UserMessage readUserMessage(DataInput in) throws IOException {
+        UserMessage message = new UserMessage(in.readUTF(), in.readUTF());
+        message.setMessageId(in.readLong());
+        readNames(message.getLikeVotes(), in);
+        readNames(message.getDislikeVotes(), in);
+        return message;
+    }
+
+    private static void writeNames(VoteSet names, DataOutput out) throws IOException {
+        out.writeInt(names.size());
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+    }
+
+    private static void readNames(VoteSet names, DataInput in) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            names.add(in.readUTF());
+        }
+    }
+}
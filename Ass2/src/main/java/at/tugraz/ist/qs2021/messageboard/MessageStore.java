@@ -6,13 +6,23 @@ import at.tugraz.ist.qs2021.actorsystem.SimulatedActor;
 import at.tugraz.ist.qs2021.messageboard.clientmessages.*;
 import at.tugraz.ist.qs2021.messageboard.messagestoremessages.*;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.util.*;
 
 /**
  * Actor responsible for storage and retrieval of user messages.
+ * <p>
+ * User names are converted to the IDs of the {@link UserDictionary} of the store when a message, vote or report
+ * is stored, the messages and reports of the users are stored indexed by these IDs. Requests which do not store
+ * anything, like ban checks and retrieves, only look up the names, so they do not add names to the dictionary.
  */
 public class MessageStore extends SimulatedActor {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * All messages stored, the key of the dictionary corresponds to
      * the message ID of the user message stored as value.
@@ -20,11 +30,21 @@ public class MessageStore extends SimulatedActor {
     protected Map<Long, UserMessage> messages;
 
     /**
-     * All reports, the key in the dictionary corresponds to a
-     * client name and the value is a set of client names that
-     * have reported that user.
+     * The messages and reports of each user, indexed by the user IDs, null for users who neither
+     * stored a message nor have been reported. Serialized with the names of the users, as the IDs
+     * are only valid in the current process.
+     */
+    private transient UserRecord[] users;
+
+    /**
+     * IDs of the users who stored a message, voted or reported or have been reported
      */
-    private final Map<String, HashSet<String>> reports;
+    private transient UserDictionary dictionary;
+
+    /**
+     * trigrams of the authors and texts of the stored messages, so searches only check messages containing them
+     */
+    private final TrigramIndex trigramIndex;
 
     /**
      * integral number which is used to create new message IDs
@@ -33,6 +53,11 @@ public class MessageStore extends SimulatedActor {
 
     public final static int USER_BLOCKED_AT_COUNT = 6;
 
+    /**
+     * shared acknowledgements and failures, to avoid allocating a reply for every request
+     */
+    private final ReplyCache replies = new ReplyCache();
+
     /**
      * Constructs a new MessageStore object, the channel is set to a
      * deterministic channel with no delay to simulate a good connection to
@@ -40,7 +65,9 @@ public class MessageStore extends SimulatedActor {
      */
     public MessageStore() {
         this.messages = new HashMap<>();
-        this.reports = new HashMap<>();
+        this.users = new UserRecord[16];
+        this.dictionary = new UserDictionary();
+        this.trigramIndex = new TrigramIndex();
 
         this.currentId = 0;
         // good connection between WorkerHelper and MessageStore -> no delay
@@ -86,38 +113,38 @@ public class MessageStore extends SimulatedActor {
         } else if (message instanceof AddLike) {
             AddLike addLikeMessage = (AddLike) message;
             if (isBanned(addLikeMessage.clientName)) {
-                addLikeMessage.storeClient.tell(new UserBanned(addLikeMessage.communicationId));
+                addLikeMessage.storeClient.tell(replies.userBanned(addLikeMessage.communicationId));
             } else if (addLike(addLikeMessage.clientName, addLikeMessage.messageId)) {
-                addLikeMessage.storeClient.tell(new OperationAck(addLikeMessage.communicationId));
+                addLikeMessage.storeClient.tell(replies.operationAck(addLikeMessage.communicationId));
             } else {
-                addLikeMessage.storeClient.tell(new OperationFailed(addLikeMessage.communicationId));
+                addLikeMessage.storeClient.tell(replies.operationFailed(addLikeMessage.communicationId));
             }
         } else if (message instanceof AddDislike) {
             AddDislike addDislikeMessage = (AddDislike) message;
             if (isBanned(addDislikeMessage.clientName)) {
-                addDislikeMessage.storeClient.tell(new UserBanned(addDislikeMessage.communicationId));
+                addDislikeMessage.storeClient.tell(replies.userBanned(addDislikeMessage.communicationId));
             } else if (addDislike(addDislikeMessage.clientName, addDislikeMessage.messageId)) {
-                addDislikeMessage.storeClient.tell(new OperationAck(addDislikeMessage.communicationId));
+                addDislikeMessage.storeClient.tell(replies.operationAck(addDislikeMessage.communicationId));
             } else {
-                addDislikeMessage.storeClient.tell(new OperationFailed(addDislikeMessage.communicationId));
+                addDislikeMessage.storeClient.tell(replies.operationFailed(addDislikeMessage.communicationId));
             }
         } else if (message instanceof UpdateMessageStore) {
             UpdateMessageStore updateMessage = (UpdateMessageStore) message;
             if (isBanned(updateMessage.message.getAuthor())) {
-                updateMessage.storeClient.tell(new UserBanned(updateMessage.communicationId));
+                updateMessage.storeClient.tell(replies.userBanned(updateMessage.communicationId));
             } else if (update(updateMessage.message)) {
-                updateMessage.storeClient.tell(new OperationAck(updateMessage.communicationId));
+                updateMessage.storeClient.tell(replies.operationAck(updateMessage.communicationId));
             } else {
-                updateMessage.storeClient.tell(new OperationFailed(updateMessage.communicationId));
+                updateMessage.storeClient.tell(replies.operationFailed(updateMessage.communicationId));
             }
         } else if (message instanceof AddReport) {
             AddReport reportMessage = (AddReport) message;
             if (isBanned(reportMessage.clientName)) {
-                reportMessage.storeClient.tell(new UserBanned(reportMessage.communicationId));
+                reportMessage.storeClient.tell(replies.userBanned(reportMessage.communicationId));
             } else if (addReport(reportMessage.clientName, reportMessage.reportedClientName)) {
-                reportMessage.storeClient.tell(new OperationAck(reportMessage.communicationId));
+                reportMessage.storeClient.tell(replies.operationAck(reportMessage.communicationId));
             } else {
-                reportMessage.storeClient.tell(new OperationFailed(reportMessage.communicationId));
+                reportMessage.storeClient.tell(replies.operationFailed(reportMessage.communicationId));
             }
         } else if (message instanceof SearchInStore) {
             SearchInStore searchMessage = (SearchInStore) message;
@@ -126,118 +153,304 @@ public class MessageStore extends SimulatedActor {
         }
     }
 
+    /**
+     * Processes a batch of messages, if batch receive has been enabled for the store.
+     * <p>
+     * Consecutive <c>RetrieveFromStore</c> and <c>SearchInStore</c> messages do not change the store,
+     * so they are answered together. Retrieves are answered from the author index and searches from the
+     * trigram index. Searches for texts shorter than a trigram are answered using one pass over all
+     * stored messages, in which each stored message is converted to lower case only once.
+     * All other messages are processed one by one, so
+     * the replies are the same as if the messages had been received one after the other.
+     *
+     * @param batch Non-empty list of messages received
+     */
+    @Override
+    public void receiveBatch(List<Message> batch) {
+        List<MessageStoreMessage> queries = new ArrayList<>();
+        for (Message message : batch) {
+            if (message instanceof RetrieveFromStore || message instanceof SearchInStore) {
+                queries.add((MessageStoreMessage) message);
+            } else {
+                answerQueries(queries);
+                queries.clear();
+                receive(message);
+            }
+        }
+        answerQueries(queries);
+    }
+
+    /**
+     * Internal helper method answering several retrieve and search requests,
+     * the searches for texts shorter than a trigram with one pass over all messages.
+     *
+     * @param queries messages of type RetrieveFromStore or SearchInStore
+     */
+    private void answerQueries(List<MessageStoreMessage> queries) {
+        if (queries.size() <= 1) {
+            for (MessageStoreMessage query : queries) {
+                receive(query);
+            }
+            return;
+        }
+        List<List<UserMessage>> results = new ArrayList<>(queries.size());
+        String[] searchTexts = new String[queries.size()];
+        boolean containsSearch = false;
+        for (int i = 0; i < queries.size(); i++) {
+            MessageStoreMessage query = queries.get(i);
+            if (query instanceof RetrieveFromStore) {
+                results.add(findByAuthor(((RetrieveFromStore) query).author));
+            } else {
+                String searchText = ((SearchInStore) query).searchText.toLowerCase();
+                if (searchText.length() >= TrigramIndex.TRIGRAM_LENGTH) {
+                    results.add(findByAuthorOrText(((SearchInStore) query).searchText));
+                } else {
+                    results.add(new ArrayList<>());
+                    searchTexts[i] = searchText;
+                    containsSearch = true;
+                }
+            }
+        }
+        if (containsSearch) {
+            for (UserMessage message : messages.values()) {
+                String author = message.getAuthor().toLowerCase();
+                String text = message.getMessage().toLowerCase();
+                for (int i = 0; i < queries.size(); i++) {
+                    if (searchTexts[i] != null && (author.contains(searchTexts[i]) || text.contains(searchTexts[i])))
+                        results.get(i).add(message);
+                }
+            }
+        }
+        for (int i = 0; i < queries.size(); i++) {
+            MessageStoreMessage query = queries.get(i);
+            query.storeClient.tell(new FoundMessages(results.get(i), query.communicationId));
+        }
+    }
+
     private boolean isBanned(String clientName) {
-        HashSet<String> reporters = reports.getOrDefault(clientName, null);
-        return reporters != null && reporters.size() >= USER_BLOCKED_AT_COUNT;
+        UserRecord user = findUser(clientName);
+        return user != null && user.reporters != null && user.reporters.size() >= USER_BLOCKED_AT_COUNT;
+    }
+
+    /**
+     * @param userId the ID of a user
+     * @return the messages and reports of the user, null if the user neither stored a message nor has been reported
+     */
+    private UserRecord getUser(int userId) {
+        return userId < users.length ? users[userId] : null;
     }
 
     /**
-     * Internal helper method containing the update logic
+     * @param name the name of a user
+     * @return the messages and reports of the user, null if the user neither stored a message nor has been reported
+     */
+    private UserRecord findUser(String name) {
+        int userId = dictionary.find(name);
+        return userId == UserDictionary.NO_ID ? null : getUser(userId);
+    }
+
+    private UserRecord getOrCreateUser(int userId) {
+        if (userId >= users.length)
+            users = Arrays.copyOf(users, Math.max(userId + 1, users.length * 2));
+        if (users[userId] == null)
+            users[userId] = new UserRecord();
+        return users[userId];
+    }
+
+    /**
+     * Internal helper method containing the update logic, a new message is only stored
+     * if its author has not stored the same text before
      *
      * @param message the user message to be saved
      * @return true if successful, false otherwise
      */
-    private boolean update(UserMessage message) {
+    boolean update(UserMessage message) {
 
         if (message.getMessageId() == UserMessage.NEW_ID) {
-            boolean containsSameMessage = false;
-            for (UserMessage m : messages.values()) {
-                if (m.getAuthor().equals(message.getAuthor()) && m.getMessage().equals(message.getMessage())) {
-                    containsSameMessage = true;
-                    break; // added
-                }
-            }
+            UserRecord author = findUser(message.getAuthor());
+            boolean containsSameMessage = author != null && author.texts != null && author.texts.contains(message.getMessage());
             if (!containsSameMessage) {
-                message.setMessageId(currentId++);
-                messages.put(message.getMessageId(), message);
+                store(message);
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * Assigns the next message ID to a new message and stores it, without checking for duplicates.
+     *
+     * @param message the user message to be saved
+     */
+    void store(UserMessage message) {
+        message.useDictionary(dictionary);
+        message.setMessageId(currentId++);
+        messages.put(message.getMessageId(), message);
+        getOrCreateUser(message.getAuthorId()).addMessage(message);
+        trigramIndex.add(message.getMessageId(), message.getAuthor().toLowerCase(), message.getMessage().toLowerCase());
+    }
+
     /**
      * Internal helper method containing the logic for looking up messages.
      *
      * @param author the name of the author of the returned messages
-     * @return all messages posted by the given author
+     * @return all messages posted by the given author, in the order they have been stored
      */
-    private List<UserMessage> findByAuthor(String author) {
-        List<UserMessage> foundMessages = new ArrayList<>();
-        for (UserMessage message : messages.values()) {
-            if (message.getAuthor().equals(author))
-                foundMessages.add(message);
+    List<UserMessage> findByAuthor(String author) {
+        UserRecord user = findUser(author);
+        if (user == null)
+            return new ArrayList<>();
+        List<UserMessage> foundMessages = new ArrayList<>(user.numberOfMessages);
+        for (int i = 0; i < user.numberOfMessages; i++) {
+            foundMessages.add(messages.get(user.messageIds[i]));
         }
         return foundMessages;
     }
 
     /**
      * Internal helper method containing the logic for looking up messages
-     * by Author or by their message text.
+     * by Author or by their message text, ignoring case.
+     * <p>
+     * For search texts of at least three characters, only the messages containing all trigrams
+     * of the search text are checked, otherwise all messages.
      *
-     * @param searchText the name of the author of the returned messages
-     * @return all messages containing the given Text
+     * @param searchText the text contained in the author or the text of the returned messages
+     * @return all messages containing the given Text, in the order they have been stored
      */
-    private List<UserMessage> findByAuthorOrText(String searchText) {
+    List<UserMessage> findByAuthorOrText(String searchText) {
+        String lowerCaseSearchText = searchText.toLowerCase();
         List<UserMessage> foundMessages = new ArrayList<>();
-        for (UserMessage message : messages.values()) {
-            if (message.getAuthor().toLowerCase().contains(searchText.toLowerCase()) ||
-                    message.getMessage().toLowerCase().contains(searchText.toLowerCase()))
-                foundMessages.add(message);
+        if (lowerCaseSearchText.length() < TrigramIndex.TRIGRAM_LENGTH) {
+            for (UserMessage message : messages.values()) {
+                if (containsIgnoringCase(message, lowerCaseSearchText))
+                    foundMessages.add(message);
+            }
+        } else {
+            for (Long messageId : trigramIndex.findCandidates(lowerCaseSearchText)) {
+                UserMessage message = messages.get(messageId);
+                if (containsIgnoringCase(message, lowerCaseSearchText))
+                    foundMessages.add(message);
+            }
         }
         return foundMessages;
     }
 
+    private static boolean containsIgnoringCase(UserMessage message, String lowerCaseSearchText) {
+        return message.getAuthor().toLowerCase().contains(lowerCaseSearchText) ||
+                message.getMessage().toLowerCase().contains(lowerCaseSearchText);
+    }
+
     /**
      * Internal helper method containing the logic for adding likes.
      *
-     * @param clientName the name of the person who likes the message
+     * @param clientName the person who likes the message
      * @param messageId  the id of message to be liked
      * @return true if successful, false otherwise
      */
     private boolean addLike(String clientName, long messageId) {
-        if (!messages.containsKey(messageId))
-            return false;
         UserMessage message = messages.get(messageId);
-        if (message.getLikes().contains(clientName))
+        if (message == null)
             return false;
-        message.getLikes().add(clientName);
-        return true;
+        return message.getLikeVotes().addId(dictionary.intern(clientName));
     }
 
     /**
      * Internal helper method containing the logic for adding dislikes.
      *
-     * @param clientName the name of the person who dislikes the message
+     * @param clientName the person who dislikes the message
      * @param messageId  the id of message to be disliked
      * @return true if successful, false otherwise
      */
     private boolean addDislike(String clientName, long messageId) {
-        if (!messages.containsKey(messageId))
-            return false;
         UserMessage message = messages.get(messageId);
-        if (message.getDislikes().contains(clientName))
+        if (message == null)
             return false;
-        message.getDislikes().add(clientName);
-        return true;
+        return message.getDislikeVotes().addId(dictionary.intern(clientName));
     }
 
     /**
      * Internal helper method containing the logic for reporting users.
      *
-     * @param clientName         the name of the person who reported the other user
-     * @param reportedClientName the name of the user to be reported
+     * @param clientName         the person who reported the other user
+     * @param reportedClientName the user to be reported
      * @return true if successful, false otherwise
      */
     private boolean addReport(String clientName, String reportedClientName) {
+        UserRecord reported = getOrCreateUser(dictionary.intern(reportedClientName));
+        if (reported.reporters == null)
+            reported.reporters = new VoteSet(dictionary);
+        // false if the reporter already reported the user
+        return reported.reporters.addId(dictionary.intern(clientName));
+    }
 
-        HashSet<String> reporters = reports.getOrDefault(reportedClientName, new HashSet<>());
-        if (reporters.add(clientName)) {
-            reports.put(reportedClientName, reporters);
-            return true;
-        } else {
-            // reporter already reported the user
-            return false;
+    /**
+     * Writes the users with their names instead of their IDs, the dictionary is rebuilt when the store is read.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        int numberOfUsers = 0;
+        for (UserRecord user : users) {
+            if (user != null)
+                numberOfUsers++;
+        }
+        out.writeInt(numberOfUsers);
+        for (int userId = 0; userId < users.length; userId++) {
+            if (users[userId] != null) {
+                out.writeUTF(dictionary.getName(userId));
+                out.writeObject(users[userId]);
+            }
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        users = new UserRecord[16];
+        dictionary = new UserDictionary();
+        int numberOfUsers = in.readInt();
+        for (int i = 0; i < numberOfUsers; i++) {
+            int userId = dictionary.intern(in.readUTF());
+            getOrCreateUser(userId);
+            users[userId] = (UserRecord) in.readObject();
+            if (users[userId].reporters != null)
+                users[userId].reporters.useDictionary(dictionary);
+        }
+        for (UserMessage message : messages.values()) {
+            message.useDictionary(dictionary);
+        }
+    }
+
+    /**
+     * The messages of a user and the users who reported them.
+     */
+    private static class UserRecord implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * IDs of the messages of the user in the order they have been stored, followed by unused entries
+         */
+        long[] messageIds = new long[1];
+
+        int numberOfMessages = 0;
+
+        /**
+         * texts of the messages of the user, so publishing the same message again is detected
+         * without iterating all messages, null if the user has not stored a message
+         */
+        HashSet<String> texts = null;
+
+        /**
+         * the users who reported the user, null if the user has not been reported
+         */
+        VoteSet reporters = null;
+
+        void addMessage(UserMessage message) {
+            if (numberOfMessages == messageIds.length)
+                messageIds = Arrays.copyOf(messageIds, numberOfMessages * 2);
+            messageIds[numberOfMessages++] = message.getMessageId();
+            if (texts == null)
+                texts = new HashSet<>();
+            texts.add(message.getMessage());
         }
     }
 }
@@ -0,0 +1,216 @@
+package at.tugraz.ist.qs2021.messageboard;
+
+import at.tugraz.ist.qs2021.actorsystem.ITellListener;
+import at.tugraz.ist.qs2021.actorsystem.LatencyHistogram;
+import at.tugraz.ist.qs2021.actorsystem.Message;
+import at.tugraz.ist.qs2021.actorsystem.SimulatedActor;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.*;
+import at.tugraz.ist.qs2021.messageboard.messagestoremessages.MessageStoreMessage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Measures the latencies of client requests in ticks, from the request sent by a client
+ * to the reply sent back to it, see {@link at.tugraz.ist.qs2021.actorsystem.SimulatedActorSystem#setTellListener(ITellListener)}.
+ * <p>
+ * Requests are followed by their communication IDs through the message board. Besides the total latency,
+ * the latency of every hop is recorded, i.e. the time until the next message belonging to the request is sent:
+ * <ul>
+ * <li>{@link RequestTracer#DISPATCHER}: from <c>InitCommunication</c> sent to the dispatcher until it is forwarded to a worker</li>
+ * <li>{@link RequestTracer#WORKER}: from the request until the worker's helper sends it to the store,
+ * or until the worker replies itself</li>
+ * <li>{@link RequestTracer#STORE}: from the first message sent to the store until its reply to the helper</li>
+ * <li>{@link RequestTracer#HELPER}: from the helper's last received message until the reply is forwarded to the client</li>
+ * </ul>
+ * Latencies are recorded into one histogram per operation, i.e. the simple class name of the request, and hop.
+ * If a client sends several requests using the same communication ID without waiting for the replies,
+ * replies sent by workers themselves are attributed to the oldest request without a helper.
+ */
+public class RequestTracer implements ITellListener {
+
+    public static final String TOTAL = "total";
+    public static final String DISPATCHER = "dispatcher";
+    public static final String WORKER = "worker";
+    public static final String STORE = "store";
+    public static final String HELPER = "helper";
+
+    /**
+     * requests which have not been answered yet by their communication IDs, oldest first
+     */
+    private final Map<Long, List<Request>> pendingRequests = new HashMap<>();
+
+    /**
+     * histograms by operation and hop
+     */
+    private final Map<String, Map<String, LatencyHistogram>> histograms = new TreeMap<>();
+
+    @Override
+    public void onTell(long senderId, SimulatedActor receiver, Message message, int tick) {
+        if (message instanceof MessageStoreMessage) {
+            onStoreRequest((MessageStoreMessage) message, tick);
+        } else if (isReply(message)) {
+            onReply(senderId, receiver, (ClientMessage) message, tick);
+        } else if (message instanceof ClientMessage) {
+            onRequest(receiver, (ClientMessage) message, tick);
+        }
+    }
+
+    /**
+     * @param operation simple class name of a request, e.g. <c>Publish</c>
+     * @param hop       {@link RequestTracer#TOTAL} or one of the hops
+     * @return The latencies recorded so far, null if none have been recorded.
+     */
+    public LatencyHistogram getLatencies(String operation, String hop) {
+        Map<String, LatencyHistogram> hops = histograms.get(operation);
+        return hops == null ? null : hops.get(hop);
+    }
+
+    /**
+     * @return The names of all operations for which latencies have been recorded, in alphabetical order.
+     */
+    public List<String> getOperations() {
+        return new ArrayList<>(histograms.keySet());
+    }
+
+    /**
+     * @return The number of requests which have not been answered yet.
+     */
+    public int getPendingRequests() {
+        int pending = 0;
+        for (List<Request> requests : pendingRequests.values()) {
+            pending += requests.size();
+        }
+        return pending;
+    }
+
+    /**
+     * @return One line per operation and hop containing the count, p50, p99, p99.9 and maximum latency.
+     */
+    public String summary() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Map<String, LatencyHistogram>> operation : histograms.entrySet()) {
+            for (Map.Entry<String, LatencyHistogram> hop : operation.getValue().entrySet()) {
+                builder.append(operation.getKey()).append(' ').append(hop.getKey()).append(": ")
+                        .append(hop.getValue()).append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    private static boolean isReply(Message message) {
+        return message instanceof Reply || message instanceof FoundMessages
+                || message instanceof InitAck || message instanceof FinishAck;
+    }
+
+    private void onRequest(SimulatedActor receiver, ClientMessage request, int tick) {
+        List<Request> requests = pendingRequests.computeIfAbsent(request.communicationId, id -> new ArrayList<>());
+        if (request instanceof InitCommunication && receiver instanceof Worker) {
+            // forwarded by the dispatcher
+            for (Request pending : requests) {
+                if (pending.operation.equals(InitCommunication.class.getSimpleName()) && !pending.forwarded) {
+                    pending.forwarded = true;
+                    pending.recordHop(DISPATCHER, tick);
+                    return;
+                }
+            }
+        }
+        requests.add(new Request(request.getClass().getSimpleName(), tick));
+    }
+
+    private void onStoreRequest(MessageStoreMessage storeRequest, int tick) {
+        List<Request> requests = pendingRequests.get(storeRequest.communicationId);
+        if (requests == null)
+            return;
+        for (Request request : requests) {
+            if (request.helper == storeRequest.storeClient) {
+                // resent by the helper after a timeout, the store hop starts with the first attempt
+                return;
+            }
+        }
+        for (Request request : requests) {
+            if (request.helper == null) {
+                request.helper = storeRequest.storeClient;
+                request.recordHop(WORKER, tick);
+                return;
+            }
+        }
+    }
+
+    private void onReply(long senderId, SimulatedActor receiver, ClientMessage reply, int tick) {
+        List<Request> requests = pendingRequests.get(reply.communicationId);
+        if (requests == null)
+            return;
+        for (Request request : requests) {
+            if (request.helper == receiver) {
+                request.recordHop(STORE, tick);
+                return;
+            }
+        }
+        Request answered = null;
+        for (Request request : requests) {
+            if (request.helper != null && request.helper.getId() == senderId) {
+                answered = request;
+                break;
+            }
+        }
+        if (answered == null) {
+            for (Request request : requests) {
+                if (request.helper == null) {
+                    answered = request;
+                    break;
+                }
+            }
+        }
+        if (answered == null)
+            return;
+        answered.recordHop(answered.helper == null ? WORKER : HELPER, tick);
+        histogram(answered.operation, TOTAL).record(tick - answered.startTick);
+        requests.remove(answered);
+        if (requests.isEmpty())
+            pendingRequests.remove(reply.communicationId);
+    }
+
+    private LatencyHistogram histogram(String operation, String hop) {
+        return histograms.computeIfAbsent(operation, o -> new TreeMap<>())
+                .computeIfAbsent(hop, h -> new LatencyHistogram());
+    }
+
+    /**
+     * A request which has not been answered yet.
+     */
+    private class Request {
+        final String operation;
+
+        final int startTick;
+
+        /**
+         * time at which the last hop ended
+         */
+        int lastTick;
+
+        /**
+         * worker helper sending the request to the store, null if none has been spawned yet
+         */
+        SimulatedActor helper = null;
+
+        /**
+         * set if the request has been forwarded by the dispatcher
+         */
+        boolean forwarded = false;
+
+        Request(String operation, int startTick) {
+            this.operation = operation;
+            this.startTick = startTick;
+            this.lastTick = startTick;
+        }
+
+        void recordHop(String hop, int tick) {
+            histogram(operation, hop).record(tick - lastTick);
+            lastTick = tick;
+        }
+    }
+}
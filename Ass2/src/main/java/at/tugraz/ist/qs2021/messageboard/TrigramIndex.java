@@ -0,0 +1,104 @@
+package at.tugraz.ist.qs2021.messageboard;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index of the trigrams, i.e. the substrings of three characters, of the authors and texts of user messages.
+ * <p>
+ * A string can only contain a search text of at least three characters if it contains all trigrams of the search text,
+ * so only the messages in the intersection of the posting lists of these trigrams have to be checked.
+ * The index is case-insensitive in the same way as the search of the store, as it is built from and queried
+ * with strings converted by {@link String#toLowerCase()}.
+ */
+class TrigramIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * minimum length of search texts the index can be queried with
+     */
+    static final int TRIGRAM_LENGTH = 3;
+
+    /**
+     * IDs of the messages containing a trigram, the key is the trigram encoded by {@link #encode(String, int)}
+     */
+    private final Map<Long, PostingList> postingLists = new HashMap<>();
+
+    /**
+     * Adds the trigrams of a message, messages have to be added in ascending order of their IDs.
+     *
+     * @param messageId      the ID of the message
+     * @param lowerCaseTexts the author and the text of the message, converted to lower case
+     */
+    void add(long messageId, String... lowerCaseTexts) {
+        for (String text : lowerCaseTexts) {
+            for (int i = 0; i + TRIGRAM_LENGTH <= text.length(); i++) {
+                postingLists.computeIfAbsent(encode(text, i), trigram -> new PostingList()).add(messageId);
+            }
+        }
+    }
+
+    /**
+     * @param lowerCaseSearchText a search text converted to lower case, with at least <c>TRIGRAM_LENGTH</c> characters
+     * @return the IDs of all messages containing all trigrams of the search text in ascending order,
+     * a superset of the messages containing the search text
+     */
+    List<Long> findCandidates(String lowerCaseSearchText) {
+        List<PostingList> lists = new ArrayList<>();
+        for (int i = 0; i + TRIGRAM_LENGTH <= lowerCaseSearchText.length(); i++) {
+            PostingList list = postingLists.get(encode(lowerCaseSearchText, i));
+            if (list == null)
+                return Collections.emptyList();
+            lists.add(list);
+        }
+        // intersect starting with the shortest list, the candidates are looked up in the longer lists
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        PostingList shortest = lists.get(0);
+        List<Long> candidates = new ArrayList<>(shortest.size);
+        for (int i = 0; i < shortest.size; i++) {
+            long messageId = shortest.ids[i];
+            boolean inAllLists = true;
+            for (int j = 1; j < lists.size() && inAllLists; j++) {
+                inAllLists = lists.get(j).contains(messageId);
+            }
+            if (inAllLists)
+                candidates.add(messageId);
+        }
+        return candidates;
+    }
+
+    private static long encode(String text, int start) {
+        return (long) text.charAt(start) << 32 | (long) text.charAt(start + 1) << 16 | text.charAt(start + 2);
+    }
+
+    /**
+     * Ascending message IDs without duplicates, stored in an array to avoid boxing them.
+     */
+    private static class PostingList implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        long[] ids = new long[2];
+        int size = 0;
+
+        void add(long messageId) {
+            // a trigram occurring several times in a message is only added once
+            if (size > 0 && ids[size - 1] == messageId)
+                return;
+            if (size == ids.length)
+                ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = messageId;
+        }
+
+        boolean contains(long messageId) {
+            return Arrays.binarySearch(ids, 0, size, messageId) >= 0;
+        }
+    }
+}
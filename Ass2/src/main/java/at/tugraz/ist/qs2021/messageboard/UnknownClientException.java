@@ -5,6 +5,9 @@ package at.tugraz.ist.qs2021.messageboard;
  * not know a client given the communication ID
  */
 public class UnknownClientException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
     /**
      * Constructs a new UnknownClientException with the specified detail message.
      *
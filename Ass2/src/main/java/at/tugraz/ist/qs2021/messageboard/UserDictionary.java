@@ -0,0 +1,76 @@
+package at.tugraz.ist.qs2021.messageboard;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary assigning dense int IDs to user names, starting at 0, so sets of users can be stored as primitive ints,
+ * see {@link VoteSet}.
+ * <p>
+ * Every {@link MessageStore} has its own dictionary, which only contains the names of users who stored a message,
+ * voted or reported or have been reported, so it is released together with the store. Lookups of names which are
+ * not stored use {@link #find(String)}, which does not add the name. IDs are only valid within the dictionary,
+ * hence objects containing IDs have to serialize the names instead. Names are never removed.
+ * <p>
+ * Interning and looking up names may run concurrently. This does not make the votes of stored messages safe to read
+ * from other threads: an ID read from a {@link VoteSet} while the store adds a vote has no happens-before relation
+ * to the interning of its name, so {@link #getName(int)} may not see the name. Votes of stored messages must only be
+ * read while the store does not process messages, see {@link UserMessage#getLikes()}.
+ */
+public final class UserDictionary {
+
+    /**
+     * returned by {@link #find(String)} for names which have not been interned
+     */
+    public static final int NO_ID = -1;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    /**
+     * names indexed by their IDs, replaced by a larger copy when it is full
+     */
+    private volatile String[] names = new String[16];
+
+    /**
+     * number of names interned, only accessed while holding the lock of the dictionary
+     */
+    private int size = 0;
+
+    /**
+     * @param name a user name
+     * @return the ID of the name, a new ID if the name has not been interned before
+     */
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        if (id != null)
+            return id;
+        synchronized (this) {
+            id = ids.get(name);
+            if (id != null)
+                return id;
+            if (size == names.length)
+                names = Arrays.copyOf(names, size * 2);
+            // the name is stored before its ID is published, so readers of the ID find the name
+            names[size] = name;
+            ids.put(name, size);
+            return size++;
+        }
+    }
+
+    /**
+     * @param name a user name
+     * @return the ID of the name, or <c>NO_ID</c> if the name has not been interned
+     */
+    public int find(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : NO_ID;
+    }
+
+    /**
+     * @param id an ID returned by {@link #intern(String)}
+     * @return the name with the given ID
+     */
+    public String getName(int id) {
+        return names[id];
+    }
+}
@@ -1,14 +1,17 @@
 package at.tugraz.ist.qs2021.messageboard;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.util.List;
 
 /**
  * This class represents actual messages posted by users (do not confuse
  * with message passed between actors).
  */
-public class UserMessage {
+public class UserMessage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /**
      * ID for new messages
@@ -16,9 +19,15 @@ public class UserMessage {
     public final static long NEW_ID = -1;
 
     /**
-     * the author of the message
+     * the author of the message, once stored the name of the dictionary shared by all messages of the author
      */
-    private final String author;
+    private String author;
+
+    /**
+     * the author as ID of the {@link UserDictionary} of the store, so authors are compared as ints,
+     * <c>UserDictionary.NO_ID</c> until the message is stored
+     */
+    private transient int authorId = UserDictionary.NO_ID;
 
     /**
      * the message posted by the author
@@ -29,13 +38,13 @@ public class UserMessage {
      * likes for the message (initially empty)
      * The strings in the list are names of people who like the message.
      */
-    private final List<String> likes;
+    private final VoteSet likes;
 
     /**
      * dislikes for the message (initially empty)
      * The strings in the list are names of people who dislike the message.
      */
-    private final List<String> dislikes;
+    private final VoteSet dislikes;
 
     /**
      * invariant, only NEW and positive IDs are used.
@@ -54,8 +63,8 @@ public class UserMessage {
     public UserMessage(String author, String message) {
         this.author = author;
         this.message = message;
-        this.likes = new ArrayList<>();
-        this.dislikes = new ArrayList<>();
+        this.likes = new VoteSet();
+        this.dislikes = new VoteSet();
         this.messageId = NEW_ID;
     }
 
@@ -67,24 +76,83 @@ public class UserMessage {
      */
     @Override
     public String toString() {
-        Collections.sort(likes);
-        Collections.sort(dislikes);
-        return author + ": " + message + "; Likes: " + String.join(",", likes) + "; Dislikes: " + String.join(",", dislikes);
+        List<String> likes = getLikes();
+        List<String> dislikes = getDislikes();
+        return getAuthor() + ": " + message + "; Likes: " + String.join(",", likes) + "; Dislikes: " + String.join(",", dislikes);
     }
 
     public String getAuthor() {
         return author;
     }
 
+    /**
+     * @return the ID of the author in the dictionary of the store, <c>UserDictionary.NO_ID</c> if the message
+     * has not been stored
+     */
+    int getAuthorId() {
+        return authorId;
+    }
+
+    /**
+     * Converts the author, likes and dislikes to the IDs of the dictionary of the store storing the message.
+     *
+     * @param dictionary the dictionary of the store
+     */
+    void useDictionary(UserDictionary dictionary) {
+        authorId = dictionary.intern(author);
+        author = dictionary.getName(authorId);
+        likes.useDictionary(dictionary);
+        dislikes.useDictionary(dictionary);
+    }
+
     public String getMessage() {
         return message;
     }
 
+    /**
+     * The names are stored in a {@link VoteSet}, so the returned list is a copy, which is sorted by name and
+     * cannot be modified. Use {@link #addLike(String)} to add likes.
+     * <p>
+     * The copy is made on the calling thread, so the votes of a message sent by a {@link MessageStore} must not be
+     * read while the store may add votes to it on another thread, e.g. by clients of a parallel or real-time system
+     * before the system has stopped.
+     *
+     * @return the names of the users who like the message
+     */
     public List<String> getLikes() {
-        return likes;
+        return likes.toSortedList();
     }
 
+    /**
+     * The names are stored in a {@link VoteSet}, see {@link #getLikes()}.
+     *
+     * @return the names of the users who dislike the message
+     */
     public List<String> getDislikes() {
+        return dislikes.toSortedList();
+    }
+
+    /**
+     * @param name the name of a user who likes the message
+     * @return true if the like has been added, false if the user already liked the message
+     */
+    public boolean addLike(String name) {
+        return likes.add(name);
+    }
+
+    /**
+     * @param name the name of a user who dislikes the message
+     * @return true if the dislike has been added, false if the user already disliked the message
+     */
+    public boolean addDislike(String name) {
+        return dislikes.add(name);
+    }
+
+    VoteSet getLikeVotes() {
+        return likes;
+    }
+
+    VoteSet getDislikeVotes() {
         return dislikes;
     }
 
@@ -96,4 +164,11 @@ public class UserMessage {
         this.messageId = messageId;
     }
 
+    /**
+     * Read messages are not stored in a store of the current process, so their author has no ID yet.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        authorId = UserDictionary.NO_ID;
+    }
 }
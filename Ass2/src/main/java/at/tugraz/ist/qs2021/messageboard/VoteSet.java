@@ -0,0 +1,380 @@
+package at.tugraz.ist.qs2021.messageboard;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of the users who liked or disliked a message, stored as the IDs of a {@link UserDictionary}.
+ * <p>
+ * The sets of stored messages use the dictionary of their {@link MessageStore}. Sets created without a dictionary,
+ * e.g. of messages built by clients, create their own one when the first name is added, and are converted to the
+ * dictionary of the store when the message is stored.
+ * <p>
+ * IDs are kept in an open addressing hash table with a load factor of at most 1/2, i.e. 8 to 16 bytes per vote.
+ * Once a bitmap over the range from the smallest to the largest ID is not larger than the table, i.e. if at least
+ * one in 64 users of the range voted, as for a popular message, a bitmap is used instead. Both take constant time
+ * to check and add votes.
+ * A set with few votes is not smaller than a list of their names, as the table has at least four slots, and sets of
+ * messages built by clients additionally have their own dictionary.
+ * <p>
+ * Iterating the set returns the names of the users in no particular order, which may change when votes are added
+ * or removed. {@link #toSortedList()} returns them sorted, e.g. to compare the votes of two messages.
+ * The set is not thread-safe, it must not be read while another thread adds or removes votes.
+ */
+public class VoteSet implements Iterable<String>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * minimum number of votes stored in a bitmap, smaller sets always use a hash table
+     */
+    static final int MIN_BITMAP_SIZE = 64;
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * dictionary of the IDs, null if no name has been added to a set created without a dictionary
+     */
+    private transient UserDictionary dictionary;
+
+    /**
+     * number of votes
+     */
+    private transient int size = 0;
+
+    /**
+     * hash table of the IDs plus 1, 0 marks free slots, null if there are no votes or a bitmap is used
+     */
+    private transient int[] table = null;
+
+    /**
+     * bit i of word i / 64 - <c>bitmapBase</c> is set if the user with ID i voted, null if a hash table is used
+     */
+    private transient long[] bitmap = null;
+
+    /**
+     * index of the first word of the bitmap among the words of all IDs
+     */
+    private transient int bitmapBase = 0;
+
+    /**
+     * Constructs an empty set, which creates its own dictionary when the first name is added.
+     */
+    public VoteSet() {
+        this(null);
+    }
+
+    /**
+     * Constructs an empty set of the IDs of the given dictionary.
+     *
+     * @param dictionary the dictionary of the IDs added to the set
+     */
+    public VoteSet(UserDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Converts the set to the IDs of the given dictionary.
+     *
+     * @param dictionary the dictionary of the IDs added afterwards
+     */
+    void useDictionary(UserDictionary dictionary) {
+        if (this.dictionary == dictionary)
+            return;
+        List<String> names = new ArrayList<>(size);
+        for (String name : this) {
+            names.add(name);
+        }
+        clear();
+        this.dictionary = dictionary;
+        for (String name : names) {
+            add(name);
+        }
+    }
+
+    /**
+     * @param userId the ID of a user
+     * @return true if the user voted
+     */
+    public boolean containsId(int userId) {
+        if (bitmap != null) {
+            int word = (userId >>> 6) - bitmapBase;
+            return word >= 0 && word < bitmap.length && (bitmap[word] & 1L << userId) != 0;
+        }
+        if (table == null)
+            return false;
+        int mask = table.length - 1;
+        for (int slot = hash(userId) & mask; table[slot] != 0; slot = slot + 1 & mask) {
+            if (table[slot] == userId + 1)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param userId the ID of a user
+     * @return true if the vote has been added, false if the user already voted
+     */
+    public boolean addId(int userId) {
+        if (containsId(userId))
+            return false;
+        size++;
+        if (bitmap != null) {
+            setBit(userId);
+        } else {
+            if (table == null || size * 2 > table.length)
+                resize(userId);
+            if (bitmap != null) {
+                setBit(userId);
+            } else {
+                insert(table, userId);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param userId the ID of a user
+     * @return true if the vote has been removed, false if the user did not vote
+     */
+    public boolean removeId(int userId) {
+        if (!containsId(userId))
+            return false;
+        size--;
+        if (bitmap != null) {
+            bitmap[(userId >>> 6) - bitmapBase] &= ~(1L << userId);
+            return true;
+        }
+        int mask = table.length - 1;
+        int slot = hash(userId) & mask;
+        while (table[slot] != userId + 1) {
+            slot = slot + 1 & mask;
+        }
+        table[slot] = 0;
+        // move following IDs of the same probe sequence into the free slot, so they are still found
+        for (int next = slot + 1 & mask; table[next] != 0; next = next + 1 & mask) {
+            int home = hash(table[next] - 1) & mask;
+            if ((next - home & mask) >= (next - slot & mask)) {
+                table[slot] = table[next];
+                table[next] = 0;
+                slot = next;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of votes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param name the name of a user
+     * @return true if the user voted
+     */
+    public boolean contains(String name) {
+        int userId = dictionary == null ? UserDictionary.NO_ID : dictionary.find(name);
+        return userId != UserDictionary.NO_ID && containsId(userId);
+    }
+
+    /**
+     * @param name the name of a user
+     * @return true if the vote has been added, false if the user already voted
+     */
+    public boolean add(String name) {
+        if (dictionary == null)
+            dictionary = new UserDictionary();
+        return addId(dictionary.intern(name));
+    }
+
+    /**
+     * @param name the name of a user
+     * @return true if the vote has been removed, false if the user did not vote
+     */
+    public boolean remove(String name) {
+        int userId = dictionary == null ? UserDictionary.NO_ID : dictionary.find(name);
+        return userId != UserDictionary.NO_ID && removeId(userId);
+    }
+
+    /**
+     * Removes all votes.
+     */
+    public void clear() {
+        size = 0;
+        table = null;
+        bitmap = null;
+        bitmapBase = 0;
+    }
+
+    /**
+     * @return an unmodifiable list of the names of the users who voted, sorted by name
+     */
+    public List<String> toSortedList() {
+        if (size == 0)
+            return Collections.emptyList();
+        List<String> names = new ArrayList<>(size);
+        for (String name : this) {
+            names.add(name);
+        }
+        Collections.sort(names);
+        return Collections.unmodifiableList(names);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int returned = 0;
+            private int position = -1;
+
+            @Override
+            public boolean hasNext() {
+                return returned < size;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                returned++;
+                position = nextId(position);
+                return dictionary.getName(bitmap != null ? (bitmapBase << 6) + position : table[position] - 1);
+            }
+        };
+    }
+
+    /**
+     * @param position a bit of the bitmap or a slot of the hash table, -1 to start at the beginning
+     * @return the next set bit or occupied slot after the given one
+     */
+    private int nextId(int position) {
+        if (bitmap != null) {
+            int word = (position + 1) >>> 6;
+            long bits = bitmap[word] & -1L << (position + 1);
+            while (bits == 0) {
+                bits = bitmap[++word];
+            }
+            return (word << 6) + Long.numberOfTrailingZeros(bits);
+        }
+        do {
+            position++;
+        } while (table[position] == 0);
+        return position;
+    }
+
+    /**
+     * Grows the hash table for <c>size</c> votes, or replaces it by a bitmap if that is not larger.
+     *
+     * @param userId the ID which is added next
+     */
+    private void resize(int userId) {
+        int capacity = table == null ? INITIAL_CAPACITY : table.length * 2;
+        int minId = userId;
+        int maxId = userId;
+        if (table != null) {
+            for (int slot : table) {
+                if (slot != 0) {
+                    minId = Math.min(minId, slot - 1);
+                    maxId = Math.max(maxId, slot - 1);
+                }
+            }
+        }
+        int words = (maxId >>> 6) - (minId >>> 6) + 1;
+        if (size >= MIN_BITMAP_SIZE && words * 2 <= capacity) {
+            bitmap = new long[words];
+            bitmapBase = minId >>> 6;
+            for (int slot : table) {
+                if (slot != 0)
+                    bitmap[((slot - 1) >>> 6) - bitmapBase] |= 1L << (slot - 1);
+            }
+            table = null;
+        } else {
+            rehash(capacity);
+        }
+    }
+
+    /**
+     * Sets the bit of a new vote, growing the bitmap if necessary. If the grown bitmap would be larger than
+     * a hash table, as the ID is far away from the IDs of the other votes, a hash table is used again.
+     */
+    private void setBit(int userId) {
+        int word = userId >>> 6;
+        int end = bitmapBase + bitmap.length;
+        if (word < bitmapBase || word >= end) {
+            int capacity = Integer.highestOneBit(size * 2 - 1) << 1;
+            if ((Math.max(word + 1, end) - Math.min(word, bitmapBase)) * 2 > capacity) {
+                int[] newTable = new int[capacity];
+                for (int i = 0; i < bitmap.length; i++) {
+                    for (long bits = bitmap[i]; bits != 0; bits &= bits - 1) {
+                        insert(newTable, ((bitmapBase + i) << 6) + Long.numberOfTrailingZeros(bits));
+                    }
+                }
+                insert(newTable, userId);
+                bitmap = null;
+                table = newTable;
+                return;
+            }
+            // grow by half of the size towards the new ID, so growing in small steps does not take quadratic time
+            int from = word < bitmapBase ? Math.max(0, word - (bitmap.length >> 1)) : bitmapBase;
+            int to = word >= end ? word + 1 + (bitmap.length >> 1) : end;
+            long[] grown = new long[to - from];
+            System.arraycopy(bitmap, 0, grown, bitmapBase - from, bitmap.length);
+            bitmap = grown;
+            bitmapBase = from;
+        }
+        bitmap[word - bitmapBase] |= 1L << userId;
+    }
+
+    private void rehash(int capacity) {
+        int[] newTable = new int[capacity];
+        if (table != null) {
+            for (int slot : table) {
+                if (slot != 0)
+                    insert(newTable, slot - 1);
+            }
+        }
+        table = newTable;
+    }
+
+    private static void insert(int[] table, int userId) {
+        int mask = table.length - 1;
+        int slot = hash(userId) & mask;
+        while (table[slot] != 0) {
+            slot = slot + 1 & mask;
+        }
+        table[slot] = userId + 1;
+    }
+
+    private static int hash(int userId) {
+        int h = userId * 0x9E3779B9;
+        return h ^ h >>> 16;
+    }
+
+    /**
+     * Writes the names instead of the IDs, which are only valid in the dictionary. When read, the set has its own
+     * dictionary until it is converted to the dictionary of a store.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (String name : this) {
+            out.writeUTF(name);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int votes = in.readInt();
+        for (int i = 0; i < votes; i++) {
+            add(in.readUTF());
+        }
+    }
+}
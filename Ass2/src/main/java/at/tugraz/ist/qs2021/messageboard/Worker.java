@@ -1,8 +1,9 @@
 package at.tugraz.ist.qs2021.messageboard;
 
+import at.tugraz.ist.qs2021.actorsystem.ISimulatedActorSystem;
 import at.tugraz.ist.qs2021.actorsystem.Message;
+import at.tugraz.ist.qs2021.actorsystem.PriorityMailbox;
 import at.tugraz.ist.qs2021.actorsystem.SimulatedActor;
-import at.tugraz.ist.qs2021.actorsystem.SimulatedActorSystem;
 import at.tugraz.ist.qs2021.messageboard.clientmessages.*;
 import at.tugraz.ist.qs2021.messageboard.dispatchermessages.Stop;
 import at.tugraz.ist.qs2021.messageboard.dispatchermessages.StopAck;
@@ -12,6 +13,9 @@ import java.util.HashMap;
 import java.util.Map;
 
 public class Worker extends SimulatedActor {
+
+    private static final long serialVersionUID = 1L;
+
     /**
      * actor responsible for persistence-related tasks
      */
@@ -31,7 +35,7 @@ public class Worker extends SimulatedActor {
     /**
      * system used to spawn actors
      */
-    private final SimulatedActorSystem system;
+    private final ISimulatedActorSystem system;
 
     /**
      * flag which is set if the worker is about to be stopped
@@ -43,6 +47,11 @@ public class Worker extends SimulatedActor {
      */
     public final static int MAX_MESSAGE_LENGTH = 10;
 
+    /**
+     * shared failure replies, to avoid allocating a reply for every failed request
+     */
+    private final ReplyCache replies = new ReplyCache();
+
     /**
      * Constructs a new Worker object
      *
@@ -50,12 +59,14 @@ public class Worker extends SimulatedActor {
      * @param messageStore the message store responsible for persistence
      * @param system       the actor system simulation
      */
-    public Worker(SimulatedActor dispatcher, SimulatedActor messageStore, SimulatedActorSystem system) {
+    public Worker(SimulatedActor dispatcher, SimulatedActor messageStore, ISimulatedActorSystem system) {
         this.dispatcher = dispatcher;
         this.messageStore = messageStore;
         this.ongoingCommunications = new HashMap<>();
         this.system = system;
         this.stopping = false;
+        // stop messages must not wait for client requests
+        setMailbox(new PriorityMailbox());
     }
 
     /**
@@ -77,7 +88,7 @@ public class Worker extends SimulatedActor {
             ClientMessage clientMessage = (ClientMessage) message;
             if (!ongoingCommunications.containsKey(clientMessage.communicationId))
                 throw new UnknownClientException("Unknown communication ID");
-            ongoingCommunications.get(clientMessage.communicationId).tell(new OperationFailed(clientMessage.communicationId));
+            ongoingCommunications.get(clientMessage.communicationId).tell(replies.operationFailed(clientMessage.communicationId));
         } else if (message instanceof InitCommunication) {
             processInitCommunication(message);
         } else if (message instanceof FinishCommunication) {
@@ -213,7 +224,7 @@ public class Worker extends SimulatedActor {
         if (userMessage.getLikes().size() > 0 || userMessage.getDislikes().size() > 0 ||
                 userMessage.getMessageId() != UserMessage.NEW_ID ||
                 userMessage.getMessage().length() > MAX_MESSAGE_LENGTH) {
-            client.tell(new OperationFailed(publish.communicationId));
+            client.tell(replies.operationFailed(publish.communicationId));
         } else {
             MessageStoreMessage updatedMessages = new UpdateMessageStore(userMessage, publish.communicationId);
             WorkerHelper helper = new WorkerHelper(messageStore, client, updatedMessages, system);
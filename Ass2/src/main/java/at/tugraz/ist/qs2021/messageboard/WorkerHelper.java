@@ -1,9 +1,9 @@
 package at.tugraz.ist.qs2021.messageboard;
 
 import at.tugraz.ist.qs2021.actorsystem.DeterministicChannel;
+import at.tugraz.ist.qs2021.actorsystem.ISimulatedActorSystem;
 import at.tugraz.ist.qs2021.actorsystem.Message;
 import at.tugraz.ist.qs2021.actorsystem.SimulatedActor;
-import at.tugraz.ist.qs2021.actorsystem.SimulatedActorSystem;
 import at.tugraz.ist.qs2021.messageboard.clientmessages.OperationFailed;
 import at.tugraz.ist.qs2021.messageboard.messagestoremessages.MessageStoreMessage;
 
@@ -18,6 +18,9 @@ import at.tugraz.ist.qs2021.messageboard.messagestoremessages.MessageStoreMessag
  * Such simple actors are common in programs using the actor model.
  */
 public class WorkerHelper extends SimulatedActor {
+
+    private static final long serialVersionUID = 1L;
+
     /**
      * The message which should be sent to the message store
      */
@@ -36,7 +39,7 @@ public class WorkerHelper extends SimulatedActor {
     /**
      * the actor system which is used for stopping after forwarding the response
      */
-    private final SimulatedActorSystem system;
+    private final ISimulatedActorSystem system;
 
     /**
      * counts the number of ticks since the message was sent to the message store
@@ -58,6 +61,11 @@ public class WorkerHelper extends SimulatedActor {
      */
     private final int MAX_RETRIES = 2;
 
+    /**
+     * number of ticks after which the message is resent if no response arrived
+     */
+    private final int RESEND_TIMEOUT = 3;
+
     /**
      * Constructs a new WorkerHelper object.
      *
@@ -66,7 +74,7 @@ public class WorkerHelper extends SimulatedActor {
      * @param message      the message to be sent to the message store
      * @param system       actor system used to stop the helper
      */
-    public WorkerHelper(SimulatedActor messageStore, SimulatedActor client, MessageStoreMessage message, SimulatedActorSystem system) {
+    public WorkerHelper(SimulatedActor messageStore, SimulatedActor client, MessageStoreMessage message, ISimulatedActorSystem system) {
         this.message = message;
         this.message.storeClient = this;
         this.messageStore = messageStore;
@@ -85,8 +93,25 @@ public class WorkerHelper extends SimulatedActor {
      */
     @Override
     public void atStartUp() {
-        messageStore.tell(message);
         timeSinceLastSent = 0;
+        sendToMessageStore();
+    }
+
+    /**
+     * Sends the message to the message store. If the message store is overloaded and
+     * rejects it, the operation fails immediately instead of being retried.
+     */
+    private void sendToMessageStore() {
+        messageStore.offer(message, this::rejected);
+    }
+
+    /**
+     * Fails the operation after the message store rejected the message.
+     */
+    private void rejected() {
+        client.tell(new OperationFailed(message.communicationId));
+        system.stop(this);
+        stopping = true;
     }
 
     /**
@@ -111,15 +136,43 @@ public class WorkerHelper extends SimulatedActor {
     public void tick() throws UnknownClientException {
         super.tick();
         // as all workers share one MessageStore instance, it might happen that messages are dropped
-        if (!stopping && timeSinceLastSent++ >= 3) {
+        if (!stopping && timeSinceLastSent++ >= RESEND_TIMEOUT) {
             if (retries == MAX_RETRIES) {
                 client.tell(new OperationFailed(message.communicationId));
                 system.stop(this);
             } else {
-                messageStore.tell(message);
                 timeSinceLastSent = 0;
                 retries++;
+                sendToMessageStore();
             }
         }
     }
+
+    /**
+     * The resend timer has to fire in the tick in which it expires, so
+     * the helper is only idle until then.
+     *
+     * @return the number of idle ticks
+     */
+    @Override
+    public int getIdleTicks() {
+        int idleTicks = super.getIdleTicks();
+        if (!stopping) {
+            idleTicks = Math.min(idleTicks, Math.max(0, RESEND_TIMEOUT - timeSinceLastSent));
+        }
+        return idleTicks;
+    }
+
+    /**
+     * Advances the resend timer together with the skipped ticks.
+     *
+     * @param ticks Number of ticks to skip
+     */
+    @Override
+    public void skipIdleTicks(int ticks) {
+        super.skipIdleTicks(ticks);
+        if (!stopping) {
+            timeSinceLastSent += ticks;
+        }
+    }
 }
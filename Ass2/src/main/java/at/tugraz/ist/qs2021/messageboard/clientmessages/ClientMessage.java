@@ -15,6 +15,9 @@ import at.tugraz.ist.qs2021.actorsystem.Message;
  * react with an appropriate response (e.g. operation acknowledge/failure).
  */
 public abstract class ClientMessage implements Message {
+
+    private static final long serialVersionUID = 1L;
+
     /**
      * some unique ID, identifies one communication/session
      */
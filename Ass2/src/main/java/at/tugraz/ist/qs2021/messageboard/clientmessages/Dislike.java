@@ -4,6 +4,9 @@ package at.tugraz.ist.qs2021.messageboard.clientmessages;
  * Message sent from client to worker to signal that a dislike should be added to a given user message.
  */
 public class Dislike extends ClientMessage {
+
+    private static final long serialVersionUID = 1L;
+
     /**
      * The user message id of the message to be disliked
      */
@@ -5,6 +5,8 @@ package at.tugraz.ist.qs2021.messageboard.clientmessages;
  */
 public class FinishAck extends ClientMessage {
 
+    private static final long serialVersionUID = 1L;
+
     public FinishAck(long communicationId) {
         super(communicationId);
     }
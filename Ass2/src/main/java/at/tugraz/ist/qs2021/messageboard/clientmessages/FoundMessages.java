@@ -10,6 +10,9 @@ import java.util.stream.Stream;
  * containing all user messages written by the author defined in the message above.
  */
 public class FoundMessages extends ClientMessage {
+
+    private static final long serialVersionUID = 1L;
+
     /**
      * List of user messages written by one author
      */
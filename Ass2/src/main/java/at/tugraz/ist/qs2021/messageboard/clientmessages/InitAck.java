@@ -7,6 +7,9 @@ import at.tugraz.ist.qs2021.actorsystem.SimulatedActor;
  * that the communication initiation was successful
  */
 public class InitAck extends ClientMessage {
+
+    private static final long serialVersionUID = 1L;
+
     /**
      * The worker serving the client during this communication/session
      * this worker reference can be used to send messages to
@@ -7,6 +7,9 @@ import at.tugraz.ist.qs2021.actorsystem.SimulatedActor;
  * to workers to initiate communication.
  */
 public class InitCommunication extends ClientMessage {
+
+    private static final long serialVersionUID = 1L;
+
     /**
      * The client trying to set up the communication
      */
@@ -4,6 +4,9 @@ package at.tugraz.ist.qs2021.messageboard.clientmessages;
  * Reply message sent from worker to client if a request succeeded.
  */
 public class OperationAck extends Reply {
+
+    private static final long serialVersionUID = 1L;
+
     public OperationAck(long communicationId) {
         super(communicationId);
     }
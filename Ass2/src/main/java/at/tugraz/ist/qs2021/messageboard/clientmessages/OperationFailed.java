@@ -4,6 +4,9 @@ package at.tugraz.ist.qs2021.messageboard.clientmessages;
  * Reply message sent from worker to client if a request failed.
  */
 public class OperationFailed extends Reply {
+
+    private static final long serialVersionUID = 1L;
+
     public OperationFailed(long communicationId) {
         super(communicationId);
     }
@@ -6,6 +6,9 @@ import at.tugraz.ist.qs2021.messageboard.UserMessage;
  * Message sent from client to worker to publish new user messages.
  */
 public class Publish extends ClientMessage {
+
+    private static final long serialVersionUID = 1L;
+
     /**
      * The actual user message to be posted
      */
@@ -2,8 +2,12 @@ package at.tugraz.ist.qs2021.messageboard.clientmessages;
 
 /**
  * Reply message base class sent from worker to client to show that a request succeeded or failed.
+ * Replies may be shared between requests of the same communication, see {@link ReplyCache}.
  */
 public abstract class Reply extends ClientMessage {
+
+    private static final long serialVersionUID = 1L;
+
     public Reply(Long communicationId) {
         super(communicationId);
     }
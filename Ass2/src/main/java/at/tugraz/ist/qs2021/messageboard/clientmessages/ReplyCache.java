@@ -0,0 +1,65 @@
+package at.tugraz.ist.qs2021.messageboard.clientmessages;
+
+import java.io.Serializable;
+
+/**
+ * Flyweight factory for the replies OperationAck, OperationFailed and UserBanned, which only
+ * consist of a communication ID. The last reply of each type is kept per communication in
+ * a direct-mapped table, so clients performing many operations get the same reply objects
+ * instead of new ones for every request. Hence, replies must not be modified by their receivers.
+ * <p>
+ * Caches are not thread-safe, every actor uses its own cache.
+ */
+public class ReplyCache implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * number of slots per reply type, a power of two
+     */
+    private static final int SIZE = 256;
+
+    private final OperationAck[] acks = new OperationAck[SIZE];
+
+    private final OperationFailed[] failures = new OperationFailed[SIZE];
+
+    private final UserBanned[] bans = new UserBanned[SIZE];
+
+    public OperationAck operationAck(long communicationId) {
+        int slot = slotOf(communicationId);
+        OperationAck reply = acks[slot];
+        if (!isFor(reply, communicationId)) {
+            reply = new OperationAck(communicationId);
+            acks[slot] = reply;
+        }
+        return reply;
+    }
+
+    public OperationFailed operationFailed(long communicationId) {
+        int slot = slotOf(communicationId);
+        OperationFailed reply = failures[slot];
+        if (!isFor(reply, communicationId)) {
+            reply = new OperationFailed(communicationId);
+            failures[slot] = reply;
+        }
+        return reply;
+    }
+
+    public UserBanned userBanned(long communicationId) {
+        int slot = slotOf(communicationId);
+        UserBanned reply = bans[slot];
+        if (!isFor(reply, communicationId)) {
+            reply = new UserBanned(communicationId);
+            bans[slot] = reply;
+        }
+        return reply;
+    }
+
+    private static int slotOf(long communicationId) {
+        return (int) (communicationId ^ (communicationId >>> 32)) & (SIZE - 1);
+    }
+
+    private static boolean isFor(Reply reply, long communicationId) {
+        return reply != null && reply.communicationId != null && reply.communicationId == communicationId;
+    }
+}
@@ -4,6 +4,9 @@ package at.tugraz.ist.qs2021.messageboard.clientmessages;
  * Message sent from client to worker to signal to report a user
  */
 public class Report extends ClientMessage {
+
+    private static final long serialVersionUID = 1L;
+
     /**
      * The user to be reported
      */
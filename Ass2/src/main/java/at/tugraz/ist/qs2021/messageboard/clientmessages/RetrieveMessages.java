@@ -4,6 +4,9 @@ package at.tugraz.ist.qs2021.messageboard.clientmessages;
  * Message sent from client to worker to retrieve all user messages written by a given author.
  */
 public class RetrieveMessages extends ClientMessage {
+
+    private static final long serialVersionUID = 1L;
+
     /**
      * The author of whom the messages should be looked up
      */
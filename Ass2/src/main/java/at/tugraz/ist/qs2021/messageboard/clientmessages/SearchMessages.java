@@ -5,6 +5,9 @@ package at.tugraz.ist.qs2021.messageboard.clientmessages;
  * either in the Author or the Message and return all matching messages
  */
 public class SearchMessages extends ClientMessage {
+
+    private static final long serialVersionUID = 1L;
+
     /**
      * The text to search for
      */
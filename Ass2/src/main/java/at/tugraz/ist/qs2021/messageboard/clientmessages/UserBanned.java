@@ -4,6 +4,9 @@ package at.tugraz.ist.qs2021.messageboard.clientmessages;
  * Reply message sent from worker to client to signal that he is banned.
  */
 public class UserBanned extends Reply {
+
+    private static final long serialVersionUID = 1L;
+
     public UserBanned(long communicationId) {
         super(communicationId);
     }
@@ -1,12 +1,15 @@
 package at.tugraz.ist.qs2021.messageboard.dispatchermessages;
 
-import at.tugraz.ist.qs2021.actorsystem.Message;
+import at.tugraz.ist.qs2021.actorsystem.ControlMessage;
 
 /**
  * Message sent from client to dispatcher to stop the system.
  * This message is then forwarded to all workers to stop them.
  */
-public class Stop implements Message {
+public class Stop implements ControlMessage {
+
+    private static final long serialVersionUID = 1L;
+
     public Stop() {
     }
 
@@ -1,13 +1,16 @@
 package at.tugraz.ist.qs2021.messageboard.dispatchermessages;
 
-import at.tugraz.ist.qs2021.actorsystem.Message;
+import at.tugraz.ist.qs2021.actorsystem.ControlMessage;
 import at.tugraz.ist.qs2021.actorsystem.SimulatedActor;
 
 /**
  * Message sent from worker to dispatcher to acknowledge the
  * stop message.
  */
-public class StopAck implements Message {
+public class StopAck implements ControlMessage {
+
+    private static final long serialVersionUID = 1L;
+
     /**
      * The sender of this message
      */
@@ -4,6 +4,9 @@ package at.tugraz.ist.qs2021.messageboard.messagestoremessages;
  * Message used to signal that a like should be added to a message.
  */
 public class AddLike extends MessageStoreMessage {
+
+    private static final long serialVersionUID = 1L;
+
     /**
      * user message id of the user message which should be liked
      */
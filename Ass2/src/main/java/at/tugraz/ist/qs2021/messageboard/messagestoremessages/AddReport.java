@@ -4,6 +4,9 @@ package at.tugraz.ist.qs2021.messageboard.messagestoremessages;
  * Message used to signal that a report to a user.
  */
 public class AddReport extends MessageStoreMessage {
+
+    private static final long serialVersionUID = 1L;
+
     /**
      * user which should be reported
      */
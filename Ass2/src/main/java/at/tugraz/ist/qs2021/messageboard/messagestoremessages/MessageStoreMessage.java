@@ -8,6 +8,8 @@ import at.tugraz.ist.qs2021.actorsystem.SimulatedActor;
  */
 public abstract class MessageStoreMessage implements Message {
 
+    private static final long serialVersionUID = 1L;
+
 
     /**
      * The actor to which the message store sends its replies.
@@ -4,6 +4,9 @@ package at.tugraz.ist.qs2021.messageboard.messagestoremessages;
  * Message used to signal that messages should be retrieved from the store.
  */
 public class RetrieveFromStore extends MessageStoreMessage {
+
+    private static final long serialVersionUID = 1L;
+
     /**
      * The author of the message which should be looked up
      */
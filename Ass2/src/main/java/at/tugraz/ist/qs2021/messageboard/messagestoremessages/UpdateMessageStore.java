@@ -7,6 +7,8 @@ import at.tugraz.ist.qs2021.messageboard.UserMessage;
  */
 public class UpdateMessageStore extends MessageStoreMessage {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The actual user message to be added
      */
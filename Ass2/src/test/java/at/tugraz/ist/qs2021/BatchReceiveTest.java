@@ -0,0 +1,88 @@
+package at.tugraz.ist.qs2021;
+
+import at.tugraz.ist.qs2021.actorsystem.LinearBatchCostModel;
+import at.tugraz.ist.qs2021.actorsystem.Message;
+import at.tugraz.ist.qs2021.actorsystem.SimulatedActor;
+import at.tugraz.ist.qs2021.actorsystem.SimulatedActorSystem;
+import at.tugraz.ist.qs2021.messageboard.MessageStore;
+import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
+import at.tugraz.ist.qs2021.messageboard.UserMessage;
+import at.tugraz.ist.qs2021.messageboard.messagestoremessages.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class BatchReceiveTest {
+
+    /**
+     * Actor recording the sizes of the batches it receives and when it receives them.
+     */
+    static class BatchRecorder extends SimulatedActor {
+        final List<String> batches = new ArrayList<>();
+
+        @Override
+        public void receiveBatch(List<Message> messages) {
+            batches.add(messages.size() + " at " + getTimeSinceSystemStart());
+        }
+
+        @Override
+        public void receive(Message message) {
+            Assert.fail("batch receive is enabled");
+        }
+    }
+
+    @Test
+    public void testBatchesAreChargedByCostModel() throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem();
+        BatchRecorder recorder = new BatchRecorder();
+        recorder.enableBatchReceive(3, new LinearBatchCostModel(1, 2));
+        system.spawn(recorder);
+        for (int i = 0; i < 5; i++) {
+            recorder.tell(() -> 10);
+        }
+        system.runFor(30);
+        // first batch taken at tick 2 and busy for 1 + 3 * 2 ticks, second taken at tick 11 and busy for 1 + 2 * 2 ticks
+        Assert.assertEquals(Arrays.asList("3 at 10", "2 at 17"), recorder.batches);
+    }
+
+    private static List<String> runStore(boolean batched) throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem();
+        MessageStore store = new MessageStore();
+        if (batched)
+            store.enableBatchReceive(10, new LinearBatchCostModel(2, 1));
+        system.spawn(store);
+        TestClient client = new TestClient();
+        system.spawn(client);
+
+        List<MessageStoreMessage> requests = Arrays.asList(
+                new UpdateMessageStore(new UserMessage("alice", "Hello"), 1),
+                new UpdateMessageStore(new UserMessage("bob", "hello bob"), 2),
+                new SearchInStore("HELLO", 3),
+                new RetrieveFromStore("bob", 4),
+                new SearchInStore("alice", 5),
+                new UpdateMessageStore(new UserMessage("alice", "Hello"), 6),
+                new AddLike("bob", 0, 7),
+                new RetrieveFromStore("alice", 8),
+                new SearchInStore("bob", 9));
+        for (MessageStoreMessage request : requests) {
+            request.storeClient = client;
+            store.tell(request);
+        }
+        system.runFor(100);
+        List<String> replies = new ArrayList<>();
+        for (Message reply : client.receivedMessages) {
+            replies.add(BoardScenario.describe(reply));
+        }
+        return replies;
+    }
+
+    @Test
+    public void testMessageStoreBatchGivesSameReplies() throws UnknownClientException {
+        List<String> expected = runStore(false);
+        Assert.assertEquals(9, expected.size());
+        Assert.assertEquals(expected, runStore(true));
+    }
+}
@@ -0,0 +1,163 @@
+package at.tugraz.ist.qs2021;
+
+import at.tugraz.ist.qs2021.actorsystem.Message;
+import at.tugraz.ist.qs2021.actorsystem.SimulatedActor;
+import at.tugraz.ist.qs2021.actorsystem.SimulatedActorSystem;
+import at.tugraz.ist.qs2021.messageboard.Dispatcher;
+import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
+import at.tugraz.ist.qs2021.messageboard.UserMessage;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.*;
+import at.tugraz.ist.qs2021.messageboard.dispatchermessages.Stop;
+import at.tugraz.ist.qs2021.messageboard.messagestoremessages.MessageStoreMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Runs a fixed workload with several clients against a message board and
+ * renders everything observable (message logs, received replies, clocks)
+ * into a list of strings, which can be compared between different
+ * actor system configurations.
+ */
+class BoardScenario {
+
+    static final int NUMBER_OF_CLIENTS = 6;
+
+    static final int NUMBER_OF_WORKERS = 3;
+
+    /**
+     * Runs the workload in the given (freshly constructed) system.
+     *
+     * @param system the system to run the workload in
+     * @return the rendered trace of the run
+     */
+    static List<String> run(SimulatedActorSystem system) throws UnknownClientException {
+        return run(system, actor -> actor);
+    }
+
+    /**
+     * Runs the workload in the given (freshly constructed) system.
+     *
+     * @param system  the system to run the workload in
+     * @param inspect returns the actor whose state is rendered, e.g. a copy of an actor running in another process
+     * @return the rendered trace of the run
+     */
+    static List<String> run(SimulatedActorSystem system, UnaryOperator<SimulatedActor> inspect)
+            throws UnknownClientException {
+        return run(system, inspect, new Dispatcher(system, NUMBER_OF_WORKERS));
+    }
+
+    /**
+     * Runs the workload in the given (freshly constructed) system with a message store rejecting requests.
+     *
+     * @param system               the system to run the workload in
+     * @param messageStoreCapacity maximum number of requests waiting at the message store
+     * @return the rendered trace of the run
+     */
+    static List<String> run(SimulatedActorSystem system, int messageStoreCapacity) throws UnknownClientException {
+        return run(system, actor -> actor, new Dispatcher(system, NUMBER_OF_WORKERS, messageStoreCapacity));
+    }
+
+    private static List<String> run(SimulatedActorSystem system, UnaryOperator<SimulatedActor> inspect,
+                                    Dispatcher dispatcher) throws UnknownClientException {
+        system.spawn(dispatcher);
+        List<ScriptedClient> clients = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_CLIENTS; i++) {
+            ScriptedClient client = new ScriptedClient(i);
+            system.spawn(client);
+            clients.add(client);
+        }
+        List<SimulatedActor> observed = new ArrayList<>(system.getActors());
+
+        // clients start their sessions at different points in time
+        for (ScriptedClient client : clients) {
+            system.runUntil(client.clientNumber * 60);
+            dispatcher.tell(new InitCommunication(client, client.clientNumber));
+        }
+        system.runFor(1000);
+        dispatcher.tell(new Stop());
+        system.runFor(100);
+
+        List<String> trace = new ArrayList<>();
+        trace.add("time " + system.getCurrentTime());
+        for (SimulatedActor observedActor : observed) {
+            SimulatedActor actor = inspect.apply(observedActor);
+            trace.add(actor.getClass().getSimpleName() + " " + actor.getId()
+                    + " at " + actor.getTimeSinceSystemStart() + " log " + describe(actor.getMessageLog()));
+        }
+        for (ScriptedClient observedClient : clients) {
+            ScriptedClient client = (ScriptedClient) inspect.apply(observedClient);
+            trace.add("client " + client.clientNumber + " received " + describe(client.received));
+        }
+        return trace;
+    }
+
+    static String describe(List<Message> messages) {
+        StringBuilder builder = new StringBuilder();
+        for (Message message : messages) {
+            builder.append(describe(message)).append(' ');
+        }
+        return builder.toString();
+    }
+
+    static String describe(Message message) {
+        String name = message.getClass().getSimpleName();
+        if (message instanceof FoundMessages) {
+            // likes and dislikes are not rendered, as the store keeps changing the messages it has sent
+            StringBuilder found = new StringBuilder();
+            for (UserMessage userMessage : ((FoundMessages) message).messages) {
+                found.append(userMessage.getAuthor()).append(": ").append(userMessage.getMessage()).append(", ");
+            }
+            return name + "(" + ((FoundMessages) message).communicationId + ", [" + found + "])";
+        }
+        if (message instanceof ClientMessage)
+            return name + "(" + ((ClientMessage) message).communicationId + ")";
+        if (message instanceof MessageStoreMessage)
+            return name + "(" + ((MessageStoreMessage) message).communicationId + ")";
+        return name;
+    }
+
+    /**
+     * Client which sends a fixed sequence of requests after its communication
+     * has been initialized, always waiting for the reply to the previous request.
+     */
+    static class ScriptedClient extends SimulatedActor {
+
+        final int clientNumber;
+
+        final List<Message> received = new ArrayList<>();
+
+        private final List<ClientMessage> script = new ArrayList<>();
+
+        private SimulatedActor worker;
+
+        ScriptedClient(int clientNumber) {
+            this.clientNumber = clientNumber;
+            String name = "user" + clientNumber;
+            long commId = clientNumber;
+            script.add(new Publish(new UserMessage(name, "hello"), commId));
+            script.add(new Publish(new UserMessage(name, "hello"), commId));
+            script.add(new Publish(new UserMessage(name, "message no " + clientNumber), commId));
+            script.add(new Publish(new UserMessage(name, "bye " + clientNumber), commId));
+            script.add(new Like(name, commId, 0));
+            script.add(new Like(name, commId, 0));
+            script.add(new Dislike(name, commId, clientNumber));
+            script.add(new Report(name, commId, "user0"));
+            script.add(new SearchMessages("USER", commId));
+            script.add(new SearchMessages("bye", commId));
+            script.add(new RetrieveMessages("user1", commId));
+            script.add(new Like(name, commId, 1));
+            script.add(new FinishCommunication(commId));
+        }
+
+        @Override
+        public void receive(Message message) {
+            received.add(message);
+            if (message instanceof InitAck)
+                worker = ((InitAck) message).worker;
+            if (worker != null && !script.isEmpty() && !(message instanceof FinishAck))
+                worker.tell(script.remove(0));
+        }
+    }
+}
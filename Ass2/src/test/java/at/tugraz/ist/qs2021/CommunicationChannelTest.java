@@ -0,0 +1,82 @@
+package at.tugraz.ist.qs2021;
+
+import at.tugraz.ist.qs2021.actorsystem.CommunicationChannel;
+import at.tugraz.ist.qs2021.actorsystem.ICommunicationChannel;
+import at.tugraz.ist.qs2021.actorsystem.Message;
+import at.tugraz.ist.qs2021.actorsystem.MessageInDelivery;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class CommunicationChannelTest {
+
+    /**
+     * Channel which uses the delay given by the message, to test the timing wheel with varying delays.
+     */
+    static class VariableDelayChannel extends CommunicationChannel {
+        @Override
+        public void send(Message message) {
+            addMessageInDelivery(new MessageInDelivery(message.getDuration(), message));
+        }
+    }
+
+    static class DelayedMessage implements Message {
+        final int delay;
+
+        DelayedMessage(int delay) {
+            this.delay = delay;
+        }
+
+        @Override
+        public int getDuration() {
+            return delay;
+        }
+    }
+
+    @Test
+    public void testDeliveryWithVaryingDelays() {
+        VariableDelayChannel channel = new VariableDelayChannel();
+        List<DelayedMessage> messages = new ArrayList<>();
+        for (int delay : Arrays.asList(3, 0, 7, 3, 20, 1, 0, 5)) {
+            DelayedMessage message = new DelayedMessage(delay);
+            messages.add(message);
+            channel.send(message);
+        }
+        Assert.assertEquals(0, channel.ticksUntilNextDelivery());
+        Assert.assertEquals(Arrays.asList(messages.get(1), messages.get(6)), channel.tick());
+        Assert.assertEquals(Collections.singletonList(messages.get(5)), channel.tick());
+        Assert.assertEquals(1, channel.ticksUntilNextDelivery());
+        Assert.assertTrue(channel.tick().isEmpty());
+        Assert.assertEquals(Arrays.asList(messages.get(0), messages.get(3)), channel.tick());
+
+        // sent later, but arrives together with earlier messages
+        DelayedMessage late = new DelayedMessage(1);
+        channel.send(late);
+        Assert.assertTrue(channel.tick().isEmpty());
+        Assert.assertEquals(Arrays.asList(messages.get(7), late), channel.tick());
+        channel.skip(channel.ticksUntilNextDelivery());
+        Assert.assertEquals(Collections.singletonList(messages.get(2)), channel.tick());
+        Assert.assertEquals(12, channel.ticksUntilNextDelivery());
+        channel.skip(12);
+        Assert.assertEquals(Collections.singletonList(messages.get(4)), channel.tick());
+        Assert.assertEquals(ICommunicationChannel.NO_DELIVERY, channel.ticksUntilNextDelivery());
+        Assert.assertEquals(0, channel.getMessagesInTransit());
+    }
+
+    @Test
+    public void testDeliveredListsAreNotReused() {
+        VariableDelayChannel channel = new VariableDelayChannel();
+        DelayedMessage first = new DelayedMessage(0);
+        DelayedMessage second = new DelayedMessage(1);
+        channel.send(first);
+        channel.send(second);
+        List<Message> firstDelivered = channel.tick();
+        List<Message> secondDelivered = channel.tick();
+        Assert.assertEquals(Collections.singletonList(first), firstDelivered);
+        Assert.assertEquals(Collections.singletonList(second), secondDelivered);
+    }
+}
@@ -0,0 +1,92 @@
+package at.tugraz.ist.qs2021;
+
+import at.tugraz.ist.qs2021.actorsystem.LatencyHistogram;
+import at.tugraz.ist.qs2021.actorsystem.SimulatedActor;
+import at.tugraz.ist.qs2021.messageboard.RequestTracer;
+import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
+import at.tugraz.ist.qs2021.messageboard.UserMessage;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class LatencyTracingTest {
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+        Assert.assertEquals(100, histogram.getTotalCount());
+        Assert.assertEquals(1, histogram.getMin());
+        Assert.assertEquals(100, histogram.getMax());
+        Assert.assertEquals(50.5, histogram.getMean(), 1e-9);
+        Assert.assertEquals(50, histogram.getValueAtPercentile(50));
+        Assert.assertEquals(99, histogram.getValueAtPercentile(99));
+        Assert.assertEquals(100, histogram.getValueAtPercentile(99.9));
+        Assert.assertEquals(1, histogram.getValueAtPercentile(0));
+    }
+
+    @Test
+    public void testLargeValuesHaveBoundedError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value : Arrays.asList(1000L, 123_456L, 10_000_000_000L)) {
+            LatencyHistogram single = new LatencyHistogram();
+            single.record(value);
+            long reported = single.getValueAtPercentile(50);
+            Assert.assertTrue(reported >= value && reported <= value * 1.02);
+            histogram.add(single);
+        }
+        Assert.assertEquals(3, histogram.getTotalCount());
+        Assert.assertEquals(10_000_000_000L, histogram.getValueAtPercentile(100));
+        Assert.assertTrue(histogram.getValueAtPercentile(50) >= 123_456L);
+    }
+
+    private static ClientMessage awaitReply(SUTMessageBoard sut) throws UnknownClientException {
+        Assert.assertTrue(sut.getSystem().runUntil(system -> !sut.getClient().receivedMessages.isEmpty()));
+        return (ClientMessage) sut.getClient().receivedMessages.remove();
+    }
+
+    @Test
+    public void testRequestsAreTracedThroughAllHops() throws UnknownClientException {
+        SUTMessageBoard sut = new SUTMessageBoard();
+        RequestTracer tracer = new RequestTracer();
+        sut.getSystem().setTellListener(tracer);
+
+        int start = sut.getSystem().getCurrentTime();
+        sut.getDispatcher().tell(new InitCommunication(sut.getClient(), sut.getCommId()));
+        SimulatedActor worker = ((InitAck) awaitReply(sut)).worker;
+        long initLatency = tracer.getLatencies("InitCommunication", RequestTracer.TOTAL).getMax();
+        // the reply still has to be delivered to the client
+        Assert.assertTrue(initLatency > 0 && initLatency < sut.getSystem().getCurrentTime() - start);
+
+        for (int i = 0; i < 10; i++) {
+            worker.tell(new Publish(new UserMessage("Alice", "message " + i), sut.getCommId()));
+            Assert.assertTrue(awaitReply(sut) instanceof OperationAck);
+        }
+        // rejected by the worker without asking the store
+        worker.tell(new Publish(new UserMessage("Alice", "far too long message"), sut.getCommId()));
+        Assert.assertTrue(awaitReply(sut) instanceof OperationFailed);
+        worker.tell(new SearchMessages("message", sut.getCommId()));
+        Assert.assertEquals(10, ((FoundMessages) awaitReply(sut)).messages.size());
+        Assert.assertEquals(0, tracer.getPendingRequests());
+
+        Assert.assertEquals(Arrays.asList("InitCommunication", "Publish", "SearchMessages"), tracer.getOperations());
+        Assert.assertEquals(1, tracer.getLatencies("InitCommunication", RequestTracer.DISPATCHER).getTotalCount());
+        LatencyHistogram total = tracer.getLatencies("Publish", RequestTracer.TOTAL);
+        Assert.assertEquals(11, total.getTotalCount());
+        Assert.assertEquals(11, tracer.getLatencies("Publish", RequestTracer.WORKER).getTotalCount());
+        Assert.assertEquals(10, tracer.getLatencies("Publish", RequestTracer.STORE).getTotalCount());
+        Assert.assertEquals(10, tracer.getLatencies("Publish", RequestTracer.HELPER).getTotalCount());
+        Assert.assertTrue(total.getValueAtPercentile(99) > total.getMin());
+        // the successful requests spend all their time in the three hops
+        long sumOfHops = tracer.getLatencies("Publish", RequestTracer.STORE).getMax()
+                + tracer.getLatencies("Publish", RequestTracer.HELPER).getMax()
+                + tracer.getLatencies("Publish", RequestTracer.WORKER).getMax();
+        Assert.assertEquals(total.getMax(), sumOfHops);
+        Assert.assertEquals(1, tracer.getLatencies("SearchMessages", RequestTracer.HELPER).getTotalCount());
+        Assert.assertTrue(tracer.summary().contains("Publish total: count 11, p50 "));
+    }
+}
@@ -0,0 +1,128 @@
+package at.tugraz.ist.qs2021;
+
+import at.tugraz.ist.qs2021.actorsystem.*;
+import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
+import at.tugraz.ist.qs2021.messageboard.dispatchermessages.Stop;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MailboxTest {
+
+    static class SequencedMessage implements Message {
+        final int producer;
+        final int sequenceNumber;
+
+        SequencedMessage(int producer, int sequenceNumber) {
+            this.producer = producer;
+            this.sequenceNumber = sequenceNumber;
+        }
+
+        @Override
+        public int getDuration() {
+            return 1;
+        }
+    }
+
+    private static void testFifo(IMailbox mailbox) {
+        Assert.assertTrue(mailbox.isEmpty());
+        Assert.assertNull(mailbox.poll());
+        for (int i = 0; i < 10; i++) {
+            mailbox.offer(new SequencedMessage(0, i));
+        }
+        Assert.assertEquals(10, mailbox.size());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(i, ((SequencedMessage) mailbox.poll()).sequenceNumber);
+        }
+        Assert.assertTrue(mailbox.isEmpty());
+        Assert.assertNull(mailbox.poll());
+    }
+
+    @Test
+    public void testArrayDequeMailbox() {
+        testFifo(new ArrayDequeMailbox());
+    }
+
+    @Test
+    public void testMpscArrayMailboxSingleThreaded() {
+        // chunks smaller than the number of messages
+        testFifo(new MpscArrayMailbox(4));
+        testFifo(new MpscArrayMailbox(3));
+    }
+
+    @Test
+    public void testMpscArrayMailboxConcurrentProducers() throws InterruptedException {
+        int producers = 4;
+        int messagesPerProducer = 100_000;
+        MpscArrayMailbox mailbox = new MpscArrayMailbox(16);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < messagesPerProducer; i++) {
+                    mailbox.offer(new SequencedMessage(producer, i));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        // messages of each producer arrive in the order they have been sent
+        int[] expectedSequenceNumbers = new int[producers];
+        int received = 0;
+        while (received < producers * messagesPerProducer) {
+            SequencedMessage message = (SequencedMessage) mailbox.poll();
+            if (message == null) {
+                Thread.yield();
+                continue;
+            }
+            Assert.assertEquals(expectedSequenceNumbers[message.producer]++, message.sequenceNumber);
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertTrue(mailbox.isEmpty());
+        Assert.assertNull(mailbox.poll());
+    }
+
+    @Test
+    public void testPriorityMailboxLanes() {
+        testFifo(new PriorityMailbox());
+
+        PriorityMailbox mailbox = new PriorityMailbox();
+        Message first = new SequencedMessage(0, 0);
+        Message second = new SequencedMessage(0, 1);
+        Stop stop = new Stop();
+        mailbox.offer(first);
+        mailbox.offer(second);
+        mailbox.offer(stop);
+        Assert.assertEquals(1, mailbox.getDepth(PriorityMailbox.Lane.CONTROL));
+        Assert.assertEquals(2, mailbox.getDepth(PriorityMailbox.Lane.NORMAL));
+        Assert.assertSame(first, mailbox.dropOldest());
+        Assert.assertSame(stop, mailbox.poll());
+        Assert.assertSame(second, mailbox.poll());
+        Assert.assertNull(mailbox.poll());
+    }
+
+    @Test
+    public void testControlMessagesOvertakeBacklog() throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem();
+        TestClient actor = new TestClient();
+        actor.setMailbox(new PriorityMailbox());
+        system.spawn(actor);
+        for (int i = 0; i < 10; i++) {
+            actor.tell(new SequencedMessage(0, i));
+        }
+        Stop stop = new Stop();
+        actor.tell(stop);
+        system.runFor(100);
+        // all messages are delivered in the same tick, so the stop message is processed first
+        Assert.assertSame(stop, actor.receivedMessages.remove());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(i, ((SequencedMessage) actor.receivedMessages.remove()).sequenceNumber);
+        }
+    }
+}
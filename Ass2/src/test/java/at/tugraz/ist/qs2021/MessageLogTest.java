@@ -0,0 +1,127 @@
+package at.tugraz.ist.qs2021;
+
+import at.tugraz.ist.qs2021.actorsystem.*;
+import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class MessageLogTest {
+
+    private static List<Message> createMessages(int count) {
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int duration = i % 3 + 1;
+            messages.add(() -> duration);
+        }
+        return messages;
+    }
+
+    @Test
+    public void testRingBufferKeepsLatestMessages() {
+        RingBufferMessageLog log = new RingBufferMessageLog(3);
+        List<Message> messages = createMessages(5);
+        log.add(messages.get(0));
+        log.add(messages.get(1));
+        Assert.assertEquals(messages.subList(0, 2), log.getMessages());
+        for (Message message : messages.subList(2, 5)) {
+            log.add(message);
+        }
+        Assert.assertEquals(messages.subList(2, 5), log.getMessages());
+    }
+
+    @Test
+    public void testSamplingKeepsBoundedSampleInSendOrder() {
+        SamplingMessageLog log = new SamplingMessageLog(10, 42);
+        List<Message> messages = createMessages(1000);
+        for (Message message : messages) {
+            log.add(message);
+        }
+        List<Message> sample = log.getMessages();
+        Assert.assertEquals(10, sample.size());
+        int previousIndex = -1;
+        for (Message message : sample) {
+            int index = messages.indexOf(message);
+            Assert.assertTrue(index > previousIndex);
+            previousIndex = index;
+        }
+    }
+
+    @Test
+    public void testDisabledAndStreamingLogsKeepNothing() {
+        List<Message> streamed = new ArrayList<>();
+        List<Message> messages = createMessages(3);
+        IMessageLog disabled = new DisabledMessageLog();
+        IMessageLog streaming = new StreamingMessageLog(streamed::add);
+        for (Message message : messages) {
+            disabled.add(message);
+            streaming.add(message);
+        }
+        Assert.assertTrue(disabled.getMessages().isEmpty());
+        Assert.assertTrue(streaming.getMessages().isEmpty());
+        Assert.assertEquals(messages, streamed);
+    }
+
+    /**
+     * Actor ignoring all messages.
+     */
+    static class IgnoringActor extends SimulatedActor {
+        @Override
+        public void receive(Message message) {
+        }
+    }
+
+    @Test
+    public void testForkOfStreamingLogHasNoSink() {
+        List<Message> streamed = new ArrayList<>();
+        SimulatedActorSystem system = new SimulatedActorSystem();
+        system.setMessageLogFactory(() -> new StreamingMessageLog(streamed::add));
+        SimulatedActor actor = new IgnoringActor();
+        system.spawn(actor);
+        List<Message> messages = createMessages(2);
+        actor.tell(messages.get(0));
+
+        SimulatedActorSystem fork = system.snapshot().fork();
+        fork.getActor(actor.getId()).tell(messages.get(1));
+        Assert.assertEquals(messages.subList(0, 1), streamed);
+    }
+
+    @Test
+    public void testMessageLogFactoryDoesNotChangeBehaviour() throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem();
+        system.setMessageLogFactory(DisabledMessageLog::new);
+        List<String> withoutLog = BoardScenario.run(system);
+        List<String> withFullLog = BoardScenario.run(new SimulatedActorSystem());
+        Assert.assertEquals(withoutReceivedMessages(withFullLog), withoutReceivedMessages(withoutLog));
+        for (String line : withoutLog) {
+            if (!line.startsWith("client") && !line.startsWith("time"))
+                Assert.assertTrue(line, line.endsWith(" log "));
+        }
+    }
+
+    /**
+     * @return only the lines of the trace which do not depend on the message logs
+     */
+    private static List<String> withoutReceivedMessages(List<String> trace) {
+        return trace.stream()
+                .filter(line -> line.startsWith("client") || line.startsWith("time"))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testFullLogIsDefault() {
+        SimulatedActorSystem system = new SimulatedActorSystem();
+        SimulatedActor actor = new SimulatedActor() {
+            @Override
+            public void receive(Message message) {
+            }
+        };
+        system.spawn(actor);
+        List<Message> messages = createMessages(2);
+        messages.forEach(actor::tell);
+        Assert.assertEquals(messages, actor.getMessageLog());
+    }
+}
@@ -0,0 +1,184 @@
+package at.tugraz.ist.qs2021;
+
+import at.tugraz.ist.qs2021.actorsystem.Message;
+import at.tugraz.ist.qs2021.actorsystem.SimulatedActorSystem;
+import at.tugraz.ist.qs2021.messageboard.MessageStore;
+import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
+import at.tugraz.ist.qs2021.messageboard.UserMessage;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.FoundMessages;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.OperationAck;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.OperationFailed;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.UserBanned;
+import at.tugraz.ist.qs2021.messageboard.messagestoremessages.AddLike;
+import at.tugraz.ist.qs2021.messageboard.messagestoremessages.AddReport;
+import at.tugraz.ist.qs2021.messageboard.messagestoremessages.MessageStoreMessage;
+import at.tugraz.ist.qs2021.messageboard.messagestoremessages.RetrieveFromStore;
+import at.tugraz.ist.qs2021.messageboard.messagestoremessages.SearchInStore;
+import at.tugraz.ist.qs2021.messageboard.messagestoremessages.UpdateMessageStore;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class MessageStoreTest {
+
+    /**
+     * Sends the requests to a new store one after the other.
+     *
+     * @return the replies of the store
+     */
+    static List<Message> send(MessageStoreMessage... requests) throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem();
+        MessageStore store = new MessageStore();
+        system.spawn(store);
+        TestClient client = new TestClient();
+        system.spawn(client);
+        for (MessageStoreMessage request : requests) {
+            request.storeClient = client;
+            store.tell(request);
+        }
+        system.runUntilQuiescent();
+        Assert.assertEquals(requests.length, client.receivedMessages.size());
+        return new ArrayList<>(client.receivedMessages);
+    }
+
+    static List<String> texts(Message foundMessages) {
+        List<String> texts = new ArrayList<>();
+        for (UserMessage message : ((FoundMessages) foundMessages).messages) {
+            texts.add(message.getMessage());
+        }
+        return texts;
+    }
+
+    @Test
+    public void testRetrieveReturnsMessagesOfAuthorInStoredOrder() throws UnknownClientException {
+        List<MessageStoreMessage> requests = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            requests.add(new UpdateMessageStore(new UserMessage(i % 3 == 0 ? "alice" : "bob", "message " + i), i));
+        }
+        // rejected duplicate
+        requests.add(new UpdateMessageStore(new UserMessage("alice", "message 0"), 100));
+        requests.add(new RetrieveFromStore("alice", 101));
+        requests.add(new RetrieveFromStore("carol", 102));
+        List<Message> replies = send(requests.toArray(new MessageStoreMessage[0]));
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i += 3) {
+            expected.add("message " + i);
+        }
+        Assert.assertEquals(expected, texts(replies.get(101)));
+        Assert.assertEquals(Arrays.asList(), texts(replies.get(102)));
+    }
+
+    @Test
+    public void testSearchMatchesSubstringsIgnoringCase() throws UnknownClientException {
+        Random random = new Random(42);
+        String alphabet = "abcAB \u00e4\u00c4\u0130";
+        List<UserMessage> stored = new ArrayList<>();
+        List<MessageStoreMessage> requests = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            UserMessage message = new UserMessage(randomText(random, alphabet, 4), randomText(random, alphabet, 12));
+            stored.add(new UserMessage(message.getAuthor(), message.getMessage()));
+            requests.add(new UpdateMessageStore(message, i));
+        }
+        List<String> searchTexts = new ArrayList<>(Arrays.asList("", "a", "Ab", "aaaa", "AbC", "xyz", "b a"));
+        for (int i = 0; i < 50; i++) {
+            searchTexts.add(randomText(random, alphabet, 5));
+        }
+        for (String searchText : searchTexts) {
+            requests.add(new SearchInStore(searchText, requests.size()));
+        }
+        List<Message> replies = send(requests.toArray(new MessageStoreMessage[0]));
+
+        for (int i = 0; i < searchTexts.size(); i++) {
+            String searchText = searchTexts.get(i).toLowerCase();
+            List<String> expected = new ArrayList<>();
+            for (UserMessage message : stored) {
+                // rejected duplicates are not stored
+                if (!isStoredBefore(stored, message) && (message.getAuthor().toLowerCase().contains(searchText) ||
+                        message.getMessage().toLowerCase().contains(searchText)))
+                    expected.add(message.getMessage());
+            }
+            Assert.assertEquals(searchTexts.get(i), expected, texts(replies.get(200 + i)));
+        }
+    }
+
+    private static boolean isStoredBefore(List<UserMessage> stored, UserMessage message) {
+        for (UserMessage other : stored) {
+            if (other == message)
+                return false;
+            if (other.getAuthor().equals(message.getAuthor()) && other.getMessage().equals(message.getMessage()))
+                return true;
+        }
+        return false;
+    }
+
+    private static String randomText(Random random, String alphabet, int maxLength) {
+        StringBuilder text = new StringBuilder();
+        for (int length = random.nextInt(maxLength + 1); length > 0; length--) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void testPublishingSameMessageAgainIsRejected() throws UnknownClientException {
+        List<Message> replies = send(
+                new UpdateMessageStore(new UserMessage("alice", "Hello"), 1),
+                new UpdateMessageStore(new UserMessage("bob", "Hello"), 2),
+                new UpdateMessageStore(new UserMessage("alice", "Hello"), 3),
+                new UpdateMessageStore(new UserMessage("alice", "hello"), 4),
+                new RetrieveFromStore("alice", 5));
+        Assert.assertTrue(replies.get(0) instanceof OperationAck);
+        Assert.assertTrue(replies.get(1) instanceof OperationAck);
+        Assert.assertTrue(replies.get(2) instanceof OperationFailed);
+        Assert.assertTrue(replies.get(3) instanceof OperationAck);
+        Assert.assertEquals(Arrays.asList("Hello", "hello"), texts(replies.get(4)));
+    }
+
+    @Test
+    public void testUserIsBannedAfterReportsOfDifferentUsers() throws UnknownClientException {
+        List<MessageStoreMessage> requests = new ArrayList<>();
+        requests.add(new UpdateMessageStore(new UserMessage("mallory", "spam"), 0));
+        for (int i = 0; i < MessageStore.USER_BLOCKED_AT_COUNT - 1; i++) {
+            requests.add(new AddReport("reporter " + i, requests.size(), "mallory"));
+        }
+        // reporting twice does not count
+        requests.add(new AddReport("reporter 0", requests.size(), "mallory"));
+        requests.add(new AddLike("mallory", 0, requests.size()));
+        requests.add(new AddReport("reporter " + MessageStore.USER_BLOCKED_AT_COUNT, requests.size(), "mallory"));
+        requests.add(new AddLike("mallory", 0, requests.size()));
+        requests.add(new UpdateMessageStore(new UserMessage("mallory", "more spam"), requests.size()));
+        requests.add(new AddLike("reporter 0", 0, requests.size()));
+        List<Message> replies = send(requests.toArray(new MessageStoreMessage[0]));
+
+        int reports = MessageStore.USER_BLOCKED_AT_COUNT;
+        Assert.assertTrue(replies.get(reports) instanceof OperationFailed);
+        Assert.assertTrue(replies.get(reports + 1) instanceof OperationAck);
+        Assert.assertTrue(replies.get(reports + 2) instanceof OperationAck);
+        Assert.assertTrue(replies.get(reports + 3) instanceof UserBanned);
+        Assert.assertTrue(replies.get(reports + 4) instanceof UserBanned);
+        Assert.assertTrue(replies.get(reports + 5) instanceof OperationAck);
+    }
+
+    @Test
+    public void testVotesOfClientMessagesAreKeptWhenStored() throws UnknownClientException {
+        UserMessage message = new UserMessage("alice", "hi");
+        message.addLike("bob");
+        List<Message> replies = send(
+                new UpdateMessageStore(message, 0),
+                new AddLike("bob", 0, 1),
+                new AddLike("carol", 0, 2),
+                new RetrieveFromStore("alice", 3));
+        Assert.assertTrue(replies.get(0) instanceof OperationAck);
+        Assert.assertTrue(replies.get(1) instanceof OperationFailed);
+        Assert.assertTrue(replies.get(2) instanceof OperationAck);
+        UserMessage stored = ((FoundMessages) replies.get(3)).messages.get(0);
+        Assert.assertTrue(stored.getLikes().contains("bob"));
+        Assert.assertTrue(stored.getLikes().contains("carol"));
+        Assert.assertEquals(2, stored.getLikes().size());
+    }
+}
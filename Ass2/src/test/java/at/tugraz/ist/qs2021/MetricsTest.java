@@ -0,0 +1,128 @@
+package at.tugraz.ist.qs2021;
+
+import at.tugraz.ist.qs2021.actorsystem.*;
+import at.tugraz.ist.qs2021.messageboard.MessageStore;
+import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
+import at.tugraz.ist.qs2021.messageboard.UserMessage;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.InitAck;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.InitCommunication;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.Publish;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+public class MetricsTest {
+
+    /**
+     * Actor which takes <c>duration</c> ticks to process each message.
+     */
+    static class SlowActor extends SimulatedActor {
+        @Override
+        public void receive(Message message) {
+        }
+    }
+
+    static Message message(int duration) {
+        return () -> duration;
+    }
+
+    private static SimulatedActor publishAll(SUTMessageBoard sut, int numberOfMessages) throws UnknownClientException {
+        sut.getDispatcher().tell(new InitCommunication(sut.getClient(), sut.getCommId()));
+        sut.getSystem().runUntil(system -> !sut.getClient().receivedMessages.isEmpty());
+        SimulatedActor worker = ((InitAck) sut.getClient().receivedMessages.remove()).worker;
+        for (int i = 0; i < numberOfMessages; i++) {
+            worker.tell(new Publish(new UserMessage("Alice", "message " + i), sut.getCommId()));
+        }
+        sut.getSystem().runUntil(system -> sut.getClient().receivedMessages.size() >= numberOfMessages);
+        return worker;
+    }
+
+    @Test
+    public void testActorMetrics() throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem();
+        SlowActor actor = new SlowActor();
+        system.spawn(actor);
+        system.runFor(10);
+        for (int i = 0; i < 3; i++) {
+            actor.tell(message(4));
+        }
+        system.runFor(2);
+
+        ActorMetrics metrics = actor.getMetrics();
+        Assert.assertEquals(12, metrics.getTicksAlive());
+        Assert.assertEquals(1, metrics.getBusyTicks());
+        Assert.assertEquals(2, metrics.getMailboxDepth());
+        Assert.assertEquals(0, metrics.getMessagesInTransit());
+        Assert.assertEquals(1, metrics.getTotalProcessedMessages());
+
+        // each message keeps the actor busy for its duration, one tick to start and one tick to receive it
+        system.runFor(100);
+        metrics = actor.getMetrics();
+        Assert.assertEquals(112, metrics.getTicksAlive());
+        Assert.assertEquals(3 * 6, metrics.getBusyTicks());
+        Assert.assertEquals(0, metrics.getMailboxDepth());
+        Assert.assertEquals(3, metrics.getTotalProcessedMessages());
+        Assert.assertEquals(18.0 / 112, metrics.getUtilization(), 1e-9);
+    }
+
+    @Test
+    public void testSkippedTicksAreCounted() throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem(SchedulingMode.EVENT_DRIVEN);
+        SlowActor actor = new SlowActor();
+        system.spawn(actor);
+        actor.tell(message(50));
+        system.runFor(200);
+        Assert.assertEquals(52, actor.getMetrics().getBusyTicks());
+        Assert.assertEquals(200, actor.getMetrics().getTicksAlive());
+    }
+
+    @Test
+    public void testBottleneckOfMessageBoard() throws UnknownClientException {
+        SUTMessageBoard sut = new SUTMessageBoard();
+        SimulatedActor worker = publishAll(sut, 20);
+
+        SystemMetrics metrics = sut.getSystem().getMetrics();
+        Assert.assertEquals(sut.getSystem().getCurrentTime(), metrics.getCurrentTime());
+        Assert.assertEquals(sut.getSystem().getActors().size(), metrics.getLiveActors());
+        // one worker helper per request, which stops after the reply
+        Assert.assertEquals(metrics.getLiveActors() + 20, metrics.getSpawnedActors());
+        Assert.assertEquals(20, metrics.getStoppedActors());
+
+        ActorMetrics workerMetrics = metrics.getActors().get((int) worker.getId());
+        Assert.assertEquals(Long.valueOf(20), workerMetrics.getProcessedMessages().get("Publish"));
+        // publishing takes longer than storing, so the worker is the bottleneck
+        Assert.assertEquals(worker.getId(), metrics.getBusiestActor().getId());
+        ActorMetrics storeMetrics = null;
+        for (ActorMetrics actorMetrics : metrics.getActors()) {
+            if (actorMetrics.getType().equals(MessageStore.class.getSimpleName()))
+                storeMetrics = actorMetrics;
+        }
+        Assert.assertNotNull(storeMetrics);
+        Assert.assertEquals(Long.valueOf(20), storeMetrics.getProcessedMessages().get("UpdateMessageStore"));
+        Assert.assertTrue(storeMetrics.getUtilization() < workerMetrics.getUtilization());
+    }
+
+    @Test
+    public void testMetricsAreExportedAsMBean() throws Exception {
+        SUTMessageBoard sut = new SUTMessageBoard();
+        SimulationMetrics mbean = sut.getSystem().publishMetrics(10);
+        ObjectName name = mbean.register("metrics-test");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Assert.assertEquals(0, server.getAttribute(name, "CurrentTime"));
+            publishAll(sut, 5);
+            int time = sut.getSystem().getCurrentTime();
+            int published = (int) server.getAttribute(name, "CurrentTime");
+            Assert.assertTrue(published <= time && published > time - 10);
+            Assert.assertEquals(mbean.getMetrics().getLiveActors(), server.getAttribute(name, "LiveActors"));
+            Assert.assertNotNull(server.getAttribute(name, "BusiestActor"));
+            Assert.assertEquals(mbean.getMetrics().getLiveActors(),
+                    ((Object[]) server.getAttribute(name, "Actors")).length);
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package at.tugraz.ist.qs2021;
+
+import at.tugraz.ist.qs2021.actorsystem.Message;
+import at.tugraz.ist.qs2021.actorsystem.OverflowPolicy;
+import at.tugraz.ist.qs2021.actorsystem.ParallelSimulatedActorSystem;
+import at.tugraz.ist.qs2021.actorsystem.SimulatedActor;
+import at.tugraz.ist.qs2021.actorsystem.SimulatedActorSystem;
+import at.tugraz.ist.qs2021.messageboard.MessageStore;
+import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
+import at.tugraz.ist.qs2021.messageboard.UserMessage;
+import at.tugraz.ist.qs2021.messageboard.WorkerHelper;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.OperationAck;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.OperationFailed;
+import at.tugraz.ist.qs2021.messageboard.dispatchermessages.Stop;
+import at.tugraz.ist.qs2021.messageboard.messagestoremessages.UpdateMessageStore;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class OverflowPolicyTest {
+
+    private static List<Message> sendMessages(TestClient receiver, int count, boolean expectAccepted) {
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int duration = i + 1;
+            Message message = () -> duration;
+            messages.add(message);
+            Assert.assertEquals(expectAccepted, receiver.offer(message));
+        }
+        return messages;
+    }
+
+    @Test
+    public void testDropNewest() throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem();
+        TestClient client = new TestClient();
+        client.setCapacity(2, OverflowPolicy.DROP_NEWEST);
+        system.spawn(client);
+        List<Message> accepted = sendMessages(client, 2, true);
+        sendMessages(client, 2, true);
+        Assert.assertEquals(2, client.getDroppedMessages());
+        Assert.assertEquals(accepted, client.getMessageLog());
+        system.runFor(20);
+        Assert.assertEquals(accepted, new ArrayList<>(client.receivedMessages));
+    }
+
+    @Test
+    public void testDropOldest() throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem();
+        TestClient client = new TestClient();
+        client.setCapacity(2, OverflowPolicy.DROP_OLDEST);
+        system.spawn(client);
+        List<Message> messages = sendMessages(client, 4, true);
+        Assert.assertEquals(2, client.getDroppedMessages());
+        system.runFor(20);
+        Assert.assertEquals(messages.subList(2, 4), new ArrayList<>(client.receivedMessages));
+    }
+
+    @Test
+    public void testControlMessagesAreNotDropped() throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem();
+        TestClient client = new TestClient();
+        client.setCapacity(2, OverflowPolicy.DROP_OLDEST);
+        system.spawn(client);
+        Stop stop = new Stop();
+        Assert.assertTrue(client.offer(stop));
+        List<Message> messages = sendMessages(client, 3, true);
+        system.runFor(20);
+        Assert.assertEquals(Arrays.asList(stop, messages.get(2)), new ArrayList<>(client.receivedMessages));
+    }
+
+    @Test
+    public void testReject() throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem();
+        TestClient client = new TestClient();
+        client.setCapacity(2, OverflowPolicy.REJECT);
+        system.spawn(client);
+        List<Message> accepted = sendMessages(client, 2, true);
+        sendMessages(client, 1, false);
+        Assert.assertEquals(1, client.getDroppedMessages());
+        system.runFor(20);
+        Assert.assertEquals(accepted, new ArrayList<>(client.receivedMessages));
+        // room again after the messages have been processed
+        sendMessages(client, 2, true);
+    }
+
+    @Test
+    public void testOnlyAcceptedMessagesAreReported() throws UnknownClientException {
+        for (OverflowPolicy policy : OverflowPolicy.values()) {
+            SimulatedActorSystem system = new SimulatedActorSystem();
+            List<Message> reported = new ArrayList<>();
+            system.setTellListener((senderId, receiver, message, tick) -> reported.add(message));
+            TestClient client = new TestClient();
+            client.setCapacity(2, policy);
+            system.spawn(client);
+            List<Message> accepted = sendMessages(client, 2, true);
+            List<Message> overflowing = sendMessages(client, 2, policy != OverflowPolicy.REJECT);
+            if (policy == OverflowPolicy.DROP_OLDEST)
+                accepted.addAll(overflowing);
+            Assert.assertEquals(accepted, reported);
+        }
+    }
+
+    @Test
+    public void testWorkerHelperFailsFastIfStoreRejects() throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem();
+        MessageStore store = new MessageStore();
+        store.setCapacity(1, OverflowPolicy.REJECT);
+        system.spawn(store);
+        TestClient first = new TestClient();
+        TestClient second = new TestClient();
+        system.spawn(first);
+        system.spawn(second);
+        system.spawn(new WorkerHelper(store, first, new UpdateMessageStore(new UserMessage("a", "first"), 1), system));
+        system.spawn(new WorkerHelper(store, second, new UpdateMessageStore(new UserMessage("b", "second"), 2), system));
+
+        // the rejected helper stops immediately
+        Assert.assertEquals(Arrays.asList(store, first, second), system.getActors().subList(0, 3));
+        Assert.assertEquals(4, system.getActors().size());
+        system.runFor(10);
+        Assert.assertTrue(first.receivedMessages.remove() instanceof OperationAck);
+        Assert.assertTrue(second.receivedMessages.remove() instanceof OperationFailed);
+        Assert.assertEquals(3, system.getActors().size());
+    }
+
+    /**
+     * Actor which forwards every message it receives to another actor.
+     */
+    static class ForwardingActor extends SimulatedActor {
+        private final SimulatedActor receiver;
+
+        ForwardingActor(SimulatedActor receiver) {
+            this.receiver = receiver;
+        }
+
+        @Override
+        public void receive(Message message) {
+            receiver.offer(message);
+        }
+    }
+
+    /**
+     * Actor which forwards every message it receives twice to another actor and counts the rejected messages.
+     */
+    static class RejectionCountingActor extends SimulatedActor {
+        private final SimulatedActor receiver;
+        int rejected = 0;
+
+        RejectionCountingActor(SimulatedActor receiver) {
+            this.receiver = receiver;
+        }
+
+        @Override
+        public void receive(Message message) {
+            receiver.offer(message, () -> rejected++);
+            receiver.offer(message, () -> rejected++);
+        }
+    }
+
+    private static int countRejections(SimulatedActorSystem system) throws UnknownClientException {
+        TestClient client = new TestClient();
+        client.setCapacity(1, OverflowPolicy.REJECT);
+        RejectionCountingActor forwarder = new RejectionCountingActor(client);
+        system.spawn(client);
+        system.spawn(forwarder);
+        for (int i = 0; i < 5; i++) {
+            forwarder.tell(() -> 2);
+        }
+        system.runFor(50);
+        Assert.assertEquals(10, forwarder.rejected + client.receivedMessages.size());
+        return forwarder.rejected;
+    }
+
+    @Test
+    public void testRejectionHandlerDuringParallelTick() throws UnknownClientException {
+        int expected = countRejections(new SimulatedActorSystem());
+        Assert.assertTrue(expected > 0);
+        try (ParallelSimulatedActorSystem system = new ParallelSimulatedActorSystem(2)) {
+            // the messages are rejected at the end of the tick, as the sequential system rejects them
+            Assert.assertEquals(expected, countRejections(system));
+        }
+    }
+
+    @Test
+    public void testDispatcherWithCapacityInParallelSystem() throws UnknownClientException {
+        List<String> expected = BoardScenario.run(new SimulatedActorSystem(), 1);
+        Assert.assertTrue(expected.stream().anyMatch(line -> line.contains("OperationFailed")));
+        for (int parallelism : new int[]{1, 2, 4}) {
+            try (ParallelSimulatedActorSystem system = new ParallelSimulatedActorSystem(parallelism)) {
+                Assert.assertEquals(expected, BoardScenario.run(system, 1));
+            }
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testNoRejectDuringParallelTick() throws UnknownClientException {
+        try (ParallelSimulatedActorSystem system = new ParallelSimulatedActorSystem(2)) {
+            TestClient client = new TestClient();
+            client.setCapacity(1, OverflowPolicy.REJECT);
+            ForwardingActor forwarder = new ForwardingActor(client);
+            system.spawn(client);
+            system.spawn(forwarder);
+            // the client may still reject messages sent from outside of a tick
+            sendMessages(client, 1, true);
+            sendMessages(client, 1, false);
+            forwarder.tell(() -> 1);
+            system.runFor(10);
+        }
+    }
+}
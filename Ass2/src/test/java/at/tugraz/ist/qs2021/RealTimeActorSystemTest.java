@@ -0,0 +1,72 @@
+package at.tugraz.ist.qs2021;
+
+import at.tugraz.ist.qs2021.actorsystem.Message;
+import at.tugraz.ist.qs2021.actorsystem.RealTimeActorSystem;
+import at.tugraz.ist.qs2021.actorsystem.SimulatedActor;
+import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RealTimeActorSystemTest {
+
+    /**
+     * Actor which takes the given time to process every message.
+     */
+    static class SlowActor extends SimulatedActor {
+        private final long millis;
+        final AtomicInteger received = new AtomicInteger();
+
+        SlowActor(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public void receive(Message message) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void testWaitingDoesNotPoll() throws UnknownClientException {
+        try (RealTimeActorSystem system = new RealTimeActorSystem(1)) {
+            SlowActor actor = new SlowActor(50);
+            system.spawn(actor);
+            for (int i = 0; i < 3; i++) {
+                actor.tell(() -> 1);
+            }
+            AtomicInteger checks = new AtomicInteger();
+            Assert.assertFalse(system.runUntil(s -> checks.incrementAndGet() < 0));
+            Assert.assertEquals(3, actor.received.get());
+            // checked when waiting starts, after every processed message and when the result is returned
+            Assert.assertTrue("checked " + checks.get() + " times", checks.get() <= 5);
+
+            actor.tell(() -> 1);
+            system.runUntilQuiescent();
+            Assert.assertEquals(4, actor.received.get());
+            Assert.assertTrue(system.isQuiescent());
+        }
+    }
+
+    @Test
+    public void testRunUntilWakesUpWhenConditionHolds() throws UnknownClientException {
+        try (RealTimeActorSystem system = new RealTimeActorSystem(1)) {
+            SlowActor actor = new SlowActor(20);
+            system.spawn(actor);
+            for (int i = 0; i < 10; i++) {
+                actor.tell(() -> 1);
+            }
+            Assert.assertTrue(system.runUntil(s -> actor.received.get() >= 3));
+            Assert.assertTrue(actor.received.get() < 10);
+            Assert.assertFalse(system.runUntil(s -> actor.received.get() > 10));
+            Assert.assertEquals(10, actor.received.get());
+            Assert.assertTrue(system.awaitIdle(0));
+        }
+    }
+}
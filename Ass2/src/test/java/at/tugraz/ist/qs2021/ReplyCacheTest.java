@@ -0,0 +1,24 @@
+package at.tugraz.ist.qs2021;
+
+import at.tugraz.ist.qs2021.messageboard.clientmessages.OperationAck;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.ReplyCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReplyCacheTest {
+
+    @Test
+    public void testRepliesAreShared() {
+        ReplyCache cache = new ReplyCache();
+        OperationAck ack = cache.operationAck(5);
+        Assert.assertSame(ack, cache.operationAck(5));
+        Assert.assertEquals(5L, (long) ack.communicationId);
+        Assert.assertEquals(5L, (long) cache.operationFailed(5).communicationId);
+        Assert.assertEquals(5L, (long) cache.userBanned(5).communicationId);
+
+        // communications sharing a slot replace each other's replies
+        OperationAck other = cache.operationAck(5 + 256);
+        Assert.assertEquals(5L + 256, (long) other.communicationId);
+        Assert.assertNotSame(ack, cache.operationAck(5));
+    }
+}
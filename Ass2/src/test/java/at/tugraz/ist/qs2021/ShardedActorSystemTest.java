@@ -0,0 +1,168 @@
+package at.tugraz.ist.qs2021;
+
+import at.tugraz.ist.qs2021.actorsystem.ISimulatedActorSystem;
+import at.tugraz.ist.qs2021.actorsystem.Message;
+import at.tugraz.ist.qs2021.actorsystem.ShardedActorSystem;
+import at.tugraz.ist.qs2021.actorsystem.SimulatedActor;
+import at.tugraz.ist.qs2021.actorsystem.SimulatedActorSystem;
+import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ShardedActorSystemTest {
+
+    @Test
+    public void testSameTraceAsSequentialSystem() throws IOException, UnknownClientException {
+        List<String> expected = BoardScenario.run(new SimulatedActorSystem());
+        try (ShardedActorSystem system = new ShardedActorSystem(2)) {
+            // the dispatcher and its workers run in one process, the clients are distributed across both
+            Assert.assertEquals(expected, BoardScenario.run(system, system::fetch));
+        }
+    }
+
+    @Test
+    public void testSpawnsOfDifferentPartitionsGetSequentialIds() throws IOException, UnknownClientException {
+        List<Long> expected = spawnChildren(new SimulatedActorSystem());
+        try (ShardedActorSystem system = new ShardedActorSystem(2)) {
+            Assert.assertEquals(expected, spawnChildren(system));
+        }
+    }
+
+    @Test
+    public void testFailureIsRethrown() throws IOException, UnknownClientException {
+        int expected = runUntilFailure(new SimulatedActorSystem());
+        try (ShardedActorSystem system = new ShardedActorSystem(2)) {
+            Assert.assertEquals(expected, runUntilFailure(system));
+            // the actors of the other partition are still reachable
+            Assert.assertNotNull(system.fetch(system.getActor(0)));
+        }
+    }
+
+    /**
+     * @return the time of the system after the failing tick
+     */
+    private static int runUntilFailure(SimulatedActorSystem system) throws UnknownClientException {
+        system.spawn(new Collector());
+        system.spawn(new FailingActor());
+        system.getActor(1).tell(new Ping());
+        for (int tick = 0; tick < 5; tick++) {
+            try {
+                system.runFor(1);
+            } catch (IllegalStateException e) {
+                Assert.assertEquals("failed", e.getMessage());
+                return system.getCurrentTime();
+            }
+        }
+        Assert.fail("the failure of the actor must be rethrown");
+        return -1;
+    }
+
+    /**
+     * Lets spawners in both partitions spawn children in the same ticks, which introduce themselves to a collector.
+     *
+     * @return the IDs of the children in the order the collector has received them
+     */
+    private static List<Long> spawnChildren(SimulatedActorSystem system) throws UnknownClientException {
+        Collector collector = new Collector();
+        system.spawn(collector);
+        List<SimulatedActor> spawners = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Spawner spawner = new Spawner(collector, system);
+            system.spawn(spawner);
+            spawners.add(spawner);
+        }
+        for (int tick = 0; tick < 5; tick++) {
+            for (int i = tick % 2; i < spawners.size(); i++) {
+                spawners.get(i).tell(new Ping());
+            }
+            system.runFor(1);
+        }
+        system.runUntilQuiescent();
+        Collector state = system instanceof ShardedActorSystem ? ((ShardedActorSystem) system).fetch(collector) : collector;
+        Assert.assertEquals(36, state.ids.size());
+        List<Long> ids = new ArrayList<>(state.ids);
+        ids.add((long) state.getTimeSinceSystemStart());
+        return ids;
+    }
+
+    static class Ping implements Message {
+        @Override
+        public int getDuration() {
+            return 0;
+        }
+    }
+
+    static class Hello implements Message {
+        final long id;
+
+        Hello(long id) {
+            this.id = id;
+        }
+
+        @Override
+        public int getDuration() {
+            return 0;
+        }
+    }
+
+    static class Collector extends SimulatedActor {
+        final List<Long> ids = new ArrayList<>();
+
+        @Override
+        public void receive(Message message) {
+            ids.add(((Hello) message).id);
+        }
+    }
+
+    /**
+     * Spawns a child for every message, which itself spawns a grandchild.
+     */
+    static class Spawner extends SimulatedActor {
+        private final SimulatedActor collector;
+        private final ISimulatedActorSystem system;
+
+        Spawner(SimulatedActor collector, ISimulatedActorSystem system) {
+            this.collector = collector;
+            this.system = system;
+        }
+
+        @Override
+        public void receive(Message message) {
+            system.spawn(new Child(collector, system, true));
+        }
+    }
+
+    static class Child extends SimulatedActor {
+        private final SimulatedActor collector;
+        private final ISimulatedActorSystem system;
+        private final boolean spawnsGrandchild;
+
+        Child(SimulatedActor collector, ISimulatedActorSystem system, boolean spawnsGrandchild) {
+            this.collector = collector;
+            this.system = system;
+            this.spawnsGrandchild = spawnsGrandchild;
+        }
+
+        @Override
+        public void atStartUp() {
+            collector.tell(new Hello(getId()));
+            if (spawnsGrandchild)
+                system.spawn(new Child(collector, system, false));
+        }
+
+        @Override
+        public void receive(Message message) {
+        }
+    }
+
+    static class FailingActor extends SimulatedActor {
+        @Override
+        public void receive(Message message) {
+            throw new IllegalStateException("failed");
+        }
+    }
+}
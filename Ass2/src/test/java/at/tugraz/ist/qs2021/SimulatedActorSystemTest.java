@@ -0,0 +1,262 @@
+package at.tugraz.ist.qs2021;
+
+import at.tugraz.ist.qs2021.actorsystem.Message;
+import at.tugraz.ist.qs2021.actorsystem.ParallelSimulatedActorSystem;
+import at.tugraz.ist.qs2021.actorsystem.SchedulingMode;
+import at.tugraz.ist.qs2021.actorsystem.SimulatedActor;
+import at.tugraz.ist.qs2021.actorsystem.SimulatedActorSystem;
+import at.tugraz.ist.qs2021.messageboard.Dispatcher;
+import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.InitAck;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.InitCommunication;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class SimulatedActorSystemTest {
+
+    @Test
+    public void testEventDrivenMatchesTickByTick() throws UnknownClientException {
+        List<String> expected = BoardScenario.run(new SimulatedActorSystem(SchedulingMode.TICK_BY_TICK));
+        List<String> actual = BoardScenario.run(new SimulatedActorSystem(SchedulingMode.EVENT_DRIVEN));
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testParallelMatchesSequential() throws UnknownClientException {
+        List<String> expected = BoardScenario.run(new SimulatedActorSystem());
+        for (int parallelism : new int[]{1, 2, 4}) {
+            try (ParallelSimulatedActorSystem system = new ParallelSimulatedActorSystem(parallelism)) {
+                Assert.assertEquals(expected, BoardScenario.run(system));
+            }
+        }
+        try (ParallelSimulatedActorSystem system = new ParallelSimulatedActorSystem(SchedulingMode.EVENT_DRIVEN, 4)) {
+            Assert.assertEquals(expected, BoardScenario.run(system));
+        }
+    }
+
+    @Test
+    public void testEventDrivenSkipsIdleTicks() throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem(SchedulingMode.EVENT_DRIVEN);
+        TestClient client = new TestClient();
+        system.spawn(client);
+        system.runFor(1_000_000_000);
+        Assert.assertEquals(1_000_000_000, system.getCurrentTime());
+        Assert.assertEquals(1_000_000_000, client.getTimeSinceSystemStart());
+
+        // a board only has to be ticked while the communication is initiated, the remaining time is skipped
+        int eventDrivenTicks = runBoardUntil(SchedulingMode.EVENT_DRIVEN, 1000);
+        Assert.assertEquals(1001, runBoardUntil(SchedulingMode.TICK_BY_TICK, 1000));
+        Assert.assertTrue("ticks: " + eventDrivenTicks, eventDrivenTicks < 10);
+    }
+
+    /**
+     * Initiates a communication with a board and runs its system until the given time.
+     *
+     * @return the number of ticks which have been simulated
+     */
+    private static int runBoardUntil(SchedulingMode schedulingMode, int endTime) throws UnknownClientException {
+        int[] ticks = {0};
+        SimulatedActorSystem system = new SimulatedActorSystem(schedulingMode) {
+            @Override
+            public void tick() throws UnknownClientException {
+                ticks[0]++;
+                super.tick();
+            }
+        };
+        Dispatcher dispatcher = new Dispatcher(system, 2);
+        TestClient client = new TestClient();
+        system.spawn(dispatcher);
+        system.spawn(client);
+        dispatcher.tell(new InitCommunication(client, 1));
+        system.runUntil(endTime);
+        Assert.assertEquals(endTime + 1, system.getCurrentTime());
+        Assert.assertEquals(endTime + 1, client.getTimeSinceSystemStart());
+        Assert.assertTrue(client.receivedMessages.remove() instanceof InitAck);
+        return ticks[0];
+    }
+
+    /**
+     * Actor which counts its ticks and stops another actor and spawns a new one in its first tick.
+     */
+    static class SpawningActor extends SimulatedActor {
+        private final SimulatedActorSystem system;
+        SimulatedActor toStop = null;
+        SimulatedActor spawned = null;
+        int ticks = 0;
+
+        SpawningActor(SimulatedActorSystem system) {
+            this.system = system;
+        }
+
+        @Override
+        public void tick() throws UnknownClientException {
+            super.tick();
+            if (ticks++ == 0) {
+                system.stop(toStop);
+                spawned = new SpawningActor(system);
+                system.spawn(spawned);
+            }
+        }
+
+        /**
+         * The first tick has to be simulated, as it spawns and stops actors.
+         */
+        @Override
+        public int getIdleTicks() {
+            return ticks == 0 ? 0 : super.getIdleTicks();
+        }
+
+        @Override
+        public void receive(Message message) {
+        }
+    }
+
+    @Test
+    public void testSpawnAndStopDuringTick() throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem();
+        SpawningActor first = new SpawningActor(system);
+        SpawningActor second = new SpawningActor(system);
+        system.spawn(first);
+        system.spawn(second);
+        first.toStop = second;
+        second.toStop = first;
+        system.tick();
+
+        // both actors are ticked in the tick in which they are stopped, spawned actors only from the next tick on
+        Assert.assertEquals(1, first.ticks);
+        Assert.assertEquals(1, second.ticks);
+        Assert.assertEquals(0, ((SpawningActor) first.spawned).ticks);
+        Assert.assertEquals(Arrays.asList(first.spawned, second.spawned), system.getActors());
+        Assert.assertNull(system.getActor(first.getId()));
+        Assert.assertSame(second.spawned, system.getActor(second.spawned.getId()));
+    }
+
+    /**
+     * Actor which counts how often it is ticked.
+     */
+    static class CountingActor extends SimulatedActor {
+        int ticks = 0;
+        int received = 0;
+
+        @Override
+        public void tick() throws UnknownClientException {
+            super.tick();
+            ticks++;
+        }
+
+        @Override
+        public void receive(Message message) {
+            received++;
+        }
+    }
+
+    @Test
+    public void testAllActorsAreTickedTickByTick() throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem(SchedulingMode.TICK_BY_TICK);
+        CountingActor actor = new CountingActor();
+        system.spawn(actor);
+        system.runFor(100);
+        Assert.assertEquals(100, actor.ticks);
+        Assert.assertEquals(100, actor.getTimeSinceSystemStart());
+    }
+
+    @Test
+    public void testIdleActorsAreNotTicked() throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem(SchedulingMode.EVENT_DRIVEN);
+        CountingActor actor = new CountingActor();
+        system.spawn(actor);
+        system.runFor(100);
+        // the actor is not ticked until a message is sent to it
+        Assert.assertEquals(0, actor.ticks);
+        Assert.assertEquals(100, actor.getTimeSinceSystemStart());
+
+        actor.tell(() -> 2);
+        system.runFor(100);
+        // only ticked when the message is delivered and processed, the ticks in between are skipped
+        Assert.assertEquals(1, actor.received);
+        Assert.assertEquals(2, actor.ticks);
+        Assert.assertEquals(200, actor.getTimeSinceSystemStart());
+    }
+
+    /**
+     * Actor which counts how often its idle ticks are skipped.
+     */
+    static class SkipCountingActor extends SimulatedActor {
+        int skips = 0;
+
+        @Override
+        public void skipIdleTicks(int ticks) {
+            super.skipIdleTicks(ticks);
+            skips++;
+        }
+
+        @Override
+        public void receive(Message message) {
+        }
+    }
+
+    @Test
+    public void testReadingTheTimeDoesNotAdvanceIdleActors() throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem(SchedulingMode.EVENT_DRIVEN);
+        SkipCountingActor actor = new SkipCountingActor();
+        system.spawn(actor);
+        // the actor becomes idle after processing the message and misses the following ticks
+        actor.tell(() -> 2);
+        system.runFor(10);
+        int skips = actor.skips;
+        system.runFor(100);
+        Assert.assertEquals(110, actor.getTimeSinceSystemStart());
+        Assert.assertEquals(110, actor.getMetrics().getTicksAlive());
+        Assert.assertEquals(skips, actor.skips);
+
+        // the missed ticks are skipped at once when the actor is resumed
+        actor.tell(() -> 2);
+        Assert.assertEquals(skips + 1, actor.skips);
+        Assert.assertEquals(110, actor.getTimeSinceSystemStart());
+    }
+
+    @Test
+    public void testRunUntilStopsAsSoonAsConditionHolds() throws UnknownClientException {
+        SimulatedActorSystem polled = new SimulatedActorSystem();
+        TestClient polledClient = initCommunication(polled);
+        while (polledClient.receivedMessages.isEmpty())
+            polled.runFor(1);
+
+        for (SchedulingMode mode : SchedulingMode.values()) {
+            SimulatedActorSystem system = new SimulatedActorSystem(mode);
+            TestClient client = initCommunication(system);
+            Assert.assertTrue(system.runUntil(s -> !client.receivedMessages.isEmpty()));
+            Assert.assertEquals(polled.getCurrentTime(), system.getCurrentTime());
+            Assert.assertTrue(client.receivedMessages.remove() instanceof InitAck);
+        }
+    }
+
+    private static TestClient initCommunication(SimulatedActorSystem system) {
+        Dispatcher dispatcher = new Dispatcher(system, 2);
+        TestClient client = new TestClient();
+        system.spawn(dispatcher);
+        system.spawn(client);
+        dispatcher.tell(new InitCommunication(client, 1));
+        return client;
+    }
+
+    @Test
+    public void testRunUntilQuiescent() throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem(SchedulingMode.EVENT_DRIVEN);
+        CountingActor actor = new CountingActor();
+        system.spawn(actor);
+        Assert.assertTrue(system.isQuiescent());
+
+        actor.tell(() -> 1000);
+        Assert.assertFalse(system.isQuiescent());
+        system.runUntilQuiescent();
+        Assert.assertTrue(system.isQuiescent());
+        Assert.assertEquals(1, actor.received);
+        Assert.assertTrue(system.getCurrentTime() > 1000);
+        // nothing happens anymore, so the condition can never hold
+        Assert.assertFalse(system.runUntil(s -> s.getCurrentTime() > 2000));
+    }
+}
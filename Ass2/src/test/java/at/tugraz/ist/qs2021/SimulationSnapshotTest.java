@@ -0,0 +1,170 @@
+package at.tugraz.ist.qs2021;
+
+import at.tugraz.ist.qs2021.actorsystem.Message;
+import at.tugraz.ist.qs2021.actorsystem.ParallelSimulatedActorSystem;
+import at.tugraz.ist.qs2021.actorsystem.SimulatedActor;
+import at.tugraz.ist.qs2021.actorsystem.SimulatedActorSystem;
+import at.tugraz.ist.qs2021.actorsystem.SimulationSnapshot;
+import at.tugraz.ist.qs2021.messageboard.Dispatcher;
+import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
+import at.tugraz.ist.qs2021.messageboard.UserMessage;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class SimulationSnapshotTest {
+
+    private static final long COMM_ID = 1;
+
+    private static Message awaitReply(SimulatedActorSystem system, TestClient client) throws UnknownClientException {
+        Assert.assertTrue(system.runUntil(s -> !client.receivedMessages.isEmpty()));
+        return client.receivedMessages.remove();
+    }
+
+    private static SimulatedActor getWorker(SimulatedActorSystem system, SimulatedActor dispatcher, TestClient client)
+            throws UnknownClientException {
+        dispatcher.tell(new InitCommunication(client, COMM_ID));
+        return ((InitAck) awaitReply(system, client)).worker;
+    }
+
+    private static List<UserMessage> retrieve(SimulatedActorSystem system, SimulatedActor dispatcher,
+                                              TestClient client, String author) throws UnknownClientException {
+        getWorker(system, dispatcher, client).tell(new RetrieveMessages(author, COMM_ID));
+        return ((FoundMessages) awaitReply(system, client)).messages;
+    }
+
+    @Test
+    public void testForksAreIndependent() throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem();
+        Dispatcher dispatcher = new Dispatcher(system, 2);
+        TestClient client = new TestClient();
+        system.spawn(dispatcher);
+        system.spawn(client);
+        SimulatedActor worker = getWorker(system, dispatcher, client);
+        worker.tell(new Publish(new UserMessage("Alice", "first"), COMM_ID));
+        Assert.assertTrue(awaitReply(system, client) instanceof OperationAck);
+
+        SimulationSnapshot<SimulatedActorSystem> snapshot = system.snapshot();
+        SimulatedActorSystem first = snapshot.fork();
+        SimulatedActorSystem second = snapshot.fork();
+        Assert.assertEquals(system.getCurrentTime(), first.getCurrentTime());
+        SimulatedActor firstDispatcher = first.getActor(dispatcher.getId());
+        Assert.assertNotSame(dispatcher, firstDispatcher);
+        Assert.assertTrue(firstDispatcher instanceof Dispatcher);
+
+        // the worker of a fork refers to the message store of the fork
+        TestClient firstClient = (TestClient) first.getActor(client.getId());
+        getWorker(first, firstDispatcher, firstClient).tell(new Publish(new UserMessage("Alice", "second"), COMM_ID));
+        Assert.assertTrue(awaitReply(first, firstClient) instanceof OperationAck);
+        Assert.assertEquals(2, retrieve(first, firstDispatcher, firstClient, "Alice").size());
+        Assert.assertEquals(1, retrieve(second, second.getActor(dispatcher.getId()),
+                (TestClient) second.getActor(client.getId()), "Alice").size());
+        Assert.assertEquals(1, retrieve(system, dispatcher, client, "Alice").size());
+    }
+
+    @Test
+    public void testMessagesInTransitAreForked() throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem();
+        Dispatcher dispatcher = new Dispatcher(system, 2);
+        TestClient client = new TestClient();
+        system.spawn(dispatcher);
+        system.spawn(client);
+        dispatcher.tell(new InitCommunication(client, COMM_ID));
+        SimulatedActorSystem fork = system.snapshot().fork();
+
+        InitAck original = (InitAck) awaitReply(system, client);
+        InitAck forked = (InitAck) awaitReply(fork, (TestClient) fork.getActor(client.getId()));
+        Assert.assertEquals(system.getCurrentTime(), fork.getCurrentTime());
+        Assert.assertEquals(original.worker.getId(), forked.worker.getId());
+        Assert.assertSame(forked.worker, fork.getActor(forked.worker.getId()));
+    }
+
+    /**
+     * Actor counting the messages it received.
+     */
+    static class CountingActor extends SimulatedActor {
+        int received = 0;
+
+        @Override
+        public void receive(Message message) {
+            received++;
+        }
+    }
+
+    static class CountedMessage implements Message {
+        @Override
+        public int getDuration() {
+            return 1;
+        }
+    }
+
+    @Test
+    public void testManyMessagesInTransitAreForked() throws UnknownClientException {
+        final int messages = 100_000;
+        SimulatedActorSystem system = new SimulatedActorSystem();
+        CountingActor actor = new CountingActor();
+        system.spawn(actor);
+        for (int i = 0; i < messages; i++) {
+            actor.tell(new CountedMessage());
+        }
+
+        SimulatedActorSystem fork = system.snapshot().fork();
+        CountingActor forkedActor = (CountingActor) fork.getActor(actor.getId());
+        Assert.assertEquals(0, forkedActor.received);
+        fork.runUntilQuiescent();
+        system.runUntilQuiescent();
+        Assert.assertEquals(messages, forkedActor.received);
+        Assert.assertEquals(messages, actor.received);
+        Assert.assertEquals(system.getCurrentTime(), fork.getCurrentTime());
+    }
+
+    @Test
+    public void testParallelSystemIsForked() throws UnknownClientException {
+        try (ParallelSimulatedActorSystem system = new ParallelSimulatedActorSystem(2)) {
+            CountingActor actor = new CountingActor();
+            system.spawn(actor);
+            for (int i = 0; i < 100; i++) {
+                actor.tell(new CountedMessage());
+            }
+            try (ParallelSimulatedActorSystem fork = (ParallelSimulatedActorSystem) system.snapshot().fork()) {
+                fork.runUntilQuiescent();
+                Assert.assertEquals(100, ((CountingActor) fork.getActor(actor.getId())).received);
+                Assert.assertEquals(0, actor.received);
+            }
+        }
+    }
+
+    /**
+     * Actor which tries to take a snapshot of its system while it is ticked.
+     */
+    static class SnapshotTakingActor extends SimulatedActor {
+        @Override
+        public void receive(Message message) {
+            ((SimulatedActorSystemHolder) message).system.snapshot();
+        }
+    }
+
+    static class SimulatedActorSystemHolder implements Message {
+        final SimulatedActorSystem system;
+
+        SimulatedActorSystemHolder(SimulatedActorSystem system) {
+            this.system = system;
+        }
+
+        @Override
+        public int getDuration() {
+            return 1;
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNoSnapshotDuringTick() throws UnknownClientException {
+        SimulatedActorSystem system = new SimulatedActorSystem();
+        SnapshotTakingActor actor = new SnapshotTakingActor();
+        system.spawn(actor);
+        actor.tell(new SimulatedActorSystemHolder(system));
+        system.runFor(10);
+    }
+}
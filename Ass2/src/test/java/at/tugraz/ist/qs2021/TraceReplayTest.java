@@ -0,0 +1,104 @@
+package at.tugraz.ist.qs2021;
+
+import at.tugraz.ist.qs2021.actorsystem.*;
+import at.tugraz.ist.qs2021.messageboard.Dispatcher;
+import at.tugraz.ist.qs2021.messageboard.MessageBoardCodecs;
+import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
+import at.tugraz.ist.qs2021.messageboard.UserMessage;
+import at.tugraz.ist.qs2021.messageboard.clientmessages.Publish;
+import at.tugraz.ist.qs2021.messageboard.messagestoremessages.RetrieveFromStore;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TraceReplayTest {
+
+    @Test
+    public void testReplayedClientRequestsProduceSameReplies() throws IOException, UnknownClientException {
+        Path path = Files.createTempFile("board", ".trace");
+        try {
+            SimulatedActorSystem recorded = new SimulatedActorSystem();
+            List<String> trace;
+            try (TraceRecorder recorder = new TraceRecorder(path, MessageBoardCodecs.create())) {
+                recorded.setTellListener(recorder);
+                trace = BoardScenario.run(recorded);
+                Assert.assertTrue(recorder.getNumberOfRecords() > 100);
+            }
+            List<TraceRecord> records = TraceReplayer.read(path);
+
+            // the scripted clients are replaced by passive clients with the same IDs,
+            // which do not send anything, so all client requests come from the trace
+            SimulatedActorSystem system = new SimulatedActorSystem();
+            system.spawn(new Dispatcher(system, BoardScenario.NUMBER_OF_WORKERS));
+            List<TestClient> clients = new ArrayList<>();
+            for (int i = 0; i < BoardScenario.NUMBER_OF_CLIENTS; i++) {
+                TestClient client = new TestClient();
+                system.spawn(client);
+                clients.add(client);
+            }
+            new TraceReplayer(MessageBoardCodecs.create()).replay(records, system, record ->
+                    record.getSenderId() == ITellListener.EXTERNAL_SENDER
+                            || system.getActor(record.getSenderId()) instanceof TestClient);
+            system.runUntil(recorded.getCurrentTime() - 1);
+
+            Assert.assertEquals(recorded.getCurrentTime(), system.getCurrentTime());
+            for (int i = 0; i < clients.size(); i++) {
+                String received = BoardScenario.describe(new ArrayList<>(clients.get(i).receivedMessages));
+                Assert.assertTrue(trace.contains("client " + i + " received " + received));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testActorReferencesAreResolvedInReplayingSystem() throws IOException, UnknownClientException {
+        Path path = Files.createTempFile("refs", ".trace");
+        try {
+            SimulatedActorSystem recorded = new SimulatedActorSystem();
+            TestClient sender = new TestClient();
+            TestClient receiver = new TestClient();
+            recorded.spawn(sender);
+            recorded.spawn(receiver);
+            try (TraceRecorder recorder = new TraceRecorder(path, MessageBoardCodecs.create())) {
+                recorded.setTellListener(recorder);
+                recorded.runFor(3);
+                // message store messages have no compact codec and are serialized
+                RetrieveFromStore retrieve = new RetrieveFromStore("Alice", 7);
+                retrieve.storeClient = sender;
+                receiver.tell(retrieve);
+                recorded.runFor(2);
+                receiver.tell(new Publish(new UserMessage("Alice", "hi"), 8));
+            }
+            List<TraceRecord> records = TraceReplayer.read(path);
+            Assert.assertEquals(2, records.size());
+            Assert.assertEquals(3, records.get(0).getTick());
+            Assert.assertEquals(5, records.get(1).getTick());
+            Assert.assertEquals(receiver.getId(), records.get(0).getReceiverId());
+            Assert.assertTrue(records.get(1).getPayloadSize() < records.get(0).getPayloadSize());
+
+            SimulatedActorSystem system = new SimulatedActorSystem();
+            TestClient replayedSender = new TestClient();
+            TestClient replayedReceiver = new TestClient();
+            system.spawn(replayedSender);
+            system.spawn(replayedReceiver);
+            new TraceReplayer(MessageBoardCodecs.create()).replay(records, system, record -> true);
+            system.runFor(10);
+
+            Assert.assertEquals(2, replayedReceiver.receivedMessages.size());
+            RetrieveFromStore retrieve = (RetrieveFromStore) replayedReceiver.receivedMessages.remove();
+            Assert.assertSame(replayedSender, retrieve.storeClient);
+            Assert.assertEquals("Alice", retrieve.author);
+            Publish publish = (Publish) replayedReceiver.receivedMessages.remove();
+            Assert.assertEquals("Alice: hi; Likes: ; Dislikes: ", publish.message.toString());
+            Assert.assertEquals(Long.valueOf(8), publish.communicationId);
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
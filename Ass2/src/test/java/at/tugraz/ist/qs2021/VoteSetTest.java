@@ -0,0 +1,151 @@
+package at.tugraz.ist.qs2021;
+
+import at.tugraz.ist.qs2021.messageboard.UserDictionary;
+import at.tugraz.ist.qs2021.messageboard.UserMessage;
+import at.tugraz.ist.qs2021.messageboard.VoteSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class VoteSetTest {
+
+    private final UserDictionary dictionary = new UserDictionary();
+
+    private void assertSameVotes(Set<Integer> expected, VoteSet votes, int maxId) {
+        Assert.assertEquals(expected.size(), votes.size());
+        for (int userId = 0; userId <= maxId; userId++) {
+            Assert.assertEquals(expected.contains(userId), votes.containsId(userId));
+        }
+        Set<Integer> iterated = new HashSet<>();
+        for (String name : votes) {
+            Assert.assertTrue(iterated.add(dictionary.find(name)));
+        }
+        Assert.assertEquals(expected, iterated);
+    }
+
+    @Test
+    public void testVotesMatchHashSet() {
+        Random random = new Random(42);
+        for (int maxId : new int[]{10, 1000, 100_000}) {
+            List<Integer> userIds = new ArrayList<>();
+            for (int i = 0; i <= maxId; i++) {
+                userIds.add(dictionary.intern("voter " + maxId + " " + i));
+            }
+            int largestId = 0;
+            for (int i = 0; i < 300_000; i++) {
+                largestId = dictionary.intern("other voter " + maxId + " " + i);
+            }
+            Set<Integer> expected = new HashSet<>();
+            VoteSet votes = new VoteSet(dictionary);
+            // dense votes switch to a bitmap, a much larger ID afterwards back to a hash table
+            for (int i = 0; i < 2 * maxId; i++) {
+                int userId = userIds.get(random.nextInt(maxId / 2 + 1));
+                Assert.assertEquals(expected.add(userId), votes.addId(userId));
+            }
+            assertSameVotes(expected, votes, largestId);
+            Assert.assertEquals(expected.add(largestId), votes.addId(largestId));
+            assertSameVotes(expected, votes, largestId);
+            for (int i = 0; i < maxId; i++) {
+                int userId = userIds.get(random.nextInt(maxId + 1));
+                Assert.assertEquals(expected.add(userId), votes.addId(userId));
+            }
+            assertSameVotes(expected, votes, largestId);
+        }
+    }
+
+    @Test
+    public void testRemovedVotesMatchHashSet() {
+        Random random = new Random(7);
+        // sparse IDs are stored in a hash table, dense IDs in a bitmap
+        for (int spread : new int[]{1000, 1}) {
+            List<Integer> userIds = new ArrayList<>();
+            for (int i = 0; i < 2000 * spread; i++) {
+                int userId = dictionary.intern("removed voter " + spread + " " + i);
+                if (i % spread == 0)
+                    userIds.add(userId);
+            }
+            Set<Integer> expected = new HashSet<>();
+            VoteSet votes = new VoteSet(dictionary);
+            for (int i = 0; i < 20_000; i++) {
+                int userId = userIds.get(random.nextInt(userIds.size()));
+                if (random.nextBoolean()) {
+                    Assert.assertEquals(expected.add(userId), votes.addId(userId));
+                } else {
+                    Assert.assertEquals(expected.remove(userId), votes.removeId(userId));
+                }
+            }
+            assertSameVotes(expected, votes, userIds.get(userIds.size() - 1));
+        }
+    }
+
+    @Test
+    public void testNamesOfVotes() throws IOException, ClassNotFoundException {
+        VoteSet votes = new VoteSet();
+        Assert.assertTrue(votes.add("alice"));
+        Assert.assertTrue(votes.add("bob"));
+        Assert.assertFalse(votes.add("alice"));
+        Assert.assertTrue(votes.contains("bob"));
+        Assert.assertFalse(votes.contains("never interned name"));
+        Assert.assertEquals(2, votes.size());
+        Assert.assertEquals(List.of("alice", "bob"), votes.toSortedList());
+        Assert.assertTrue(votes.add("carol"));
+        Assert.assertTrue(votes.remove("carol"));
+        Assert.assertFalse(votes.remove("carol"));
+        Assert.assertFalse(votes.remove("never interned name"));
+        Assert.assertEquals(2, votes.size());
+
+        // names are serialized, as IDs are only valid in the current process
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(votes);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            VoteSet copy = (VoteSet) in.readObject();
+            Assert.assertEquals(votes.toSortedList(), copy.toSortedList());
+        }
+    }
+
+    @Test
+    public void testMessagesWithSameVotersHaveEqualVotes() {
+        UserMessage first = new UserMessage("alice", "hi");
+        UserMessage second = new UserMessage("alice", "hi");
+        List<String> voters = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            voters.add("voter " + i);
+        }
+        for (String voter : voters) {
+            first.addLike(voter);
+            first.addDislike(voter);
+        }
+        Collections.shuffle(voters, new Random(3));
+        for (String voter : voters) {
+            second.addLike(voter);
+        }
+        Collections.reverse(voters);
+        for (String voter : voters) {
+            second.addDislike(voter);
+        }
+        Assert.assertEquals(first.getLikes(), second.getLikes());
+        Assert.assertEquals(first.getLikes().hashCode(), second.getLikes().hashCode());
+        Assert.assertEquals(first.getDislikes(), second.getDislikes());
+        Assert.assertEquals(first.toString(), second.toString());
+
+        // the votes are returned sorted, as an unmodifiable copy
+        List<String> likes = first.getLikes();
+        Collections.sort(voters);
+        Assert.assertEquals(voters, likes);
+        Assert.assertThrows(UnsupportedOperationException.class, () -> likes.add("bob"));
+        Assert.assertEquals(100, first.getLikes().size());
+    }
+}
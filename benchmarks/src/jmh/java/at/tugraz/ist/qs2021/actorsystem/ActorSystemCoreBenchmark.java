@@ -0,0 +1,184 @@
+package at.tugraz.ist.qs2021.actorsystem;
+
+import at.tugraz.ist.qs2021.messageboard.UnknownClientException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Baseline for the core operations of the actor system, which only uses the API shared by both
+ * assignments, so the same benchmark can be run against both implementations. The source is shared by
+ * the JMH source sets of both builds.
+ * <p>
+ * All states are parameterized by the number of actors, the number of messages in flight and the delay of the
+ * channels of the actors, as far as the parameters apply to the measured operation. Messages in flight are
+ * spread evenly over the actors, which forward every received message to the next actor, so their number
+ * stays the same while the system is ticked. Operations which do not reach a steady state, i.e. sending
+ * messages without ticking and spawning actors, are measured in batches of {@link #BATCH_SIZE} operations
+ * on a fresh system each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ActorSystemCoreBenchmark {
+
+    static final int BATCH_SIZE = 10000;
+
+    /**
+     * System of forwarding actors with messages in flight.
+     */
+    @State(Scope.Thread)
+    public static class SystemState {
+
+        @Param({"10", "1000"})
+        public int actors;
+
+        @Param({"100", "10000"})
+        public int messagesInFlight;
+
+        @Param({"1", "10", "100"})
+        public int delay;
+
+        SimulatedActorSystem system;
+
+        Queue<SimulatedActor> spawned;
+
+        int nextReceiver;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            system = new SimulatedActorSystem();
+            spawned = new ArrayDeque<>();
+            ForwardingActor previous = null;
+            ForwardingActor first = null;
+            for (int i = 0; i < actors; i++) {
+                ForwardingActor actor = new ForwardingActor(delay);
+                system.spawn(actor);
+                spawned.add(actor);
+                if (previous != null)
+                    previous.next = actor;
+                else
+                    first = actor;
+                previous = actor;
+            }
+            previous.next = first;
+            int i = 0;
+            for (SimulatedActor actor : spawned) {
+                for (int j = i * messagesInFlight / actors; j < (i + 1) * messagesInFlight / actors; j++) {
+                    actor.tell(MESSAGE);
+                }
+                i++;
+            }
+            nextReceiver = 0;
+        }
+    }
+
+    /**
+     * Single channel with messages in flight, which are replaced by new messages as they are delivered.
+     */
+    @State(Scope.Thread)
+    public static class ChannelState {
+
+        @Param({"100", "10000"})
+        public int messagesInFlight;
+
+        @Param({"1", "10", "100"})
+        public int delay;
+
+        CommunicationChannel channel;
+
+        int messagesPerTick;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            channel = new DeterministicChannel(delay);
+            messagesPerTick = Math.max(1, messagesInFlight / (delay + 1));
+            for (int i = 0; i <= delay; i++) {
+                for (int j = 0; j < messagesPerTick; j++) {
+                    channel.send(MESSAGE);
+                }
+                channel.tick();
+            }
+        }
+    }
+
+    private static final Message MESSAGE = new Message() {
+        @Override
+        public int getDuration() {
+            return 0;
+        }
+    };
+
+    /**
+     * Ticks all actors once, which forward the messages they receive.
+     */
+    @Benchmark
+    public void systemTick(SystemState state) throws UnknownClientException {
+        state.system.tick();
+    }
+
+    /**
+     * Sends and delivers the messages of one tick of a channel.
+     */
+    @Benchmark
+    public void channelTick(ChannelState state, Blackhole blackhole) {
+        for (int i = 0; i < state.messagesPerTick; i++) {
+            state.channel.send(MESSAGE);
+        }
+        List<Message> delivered = state.channel.tick();
+        blackhole.consume(delivered);
+    }
+
+    /**
+     * Sends {@link #BATCH_SIZE} messages to the actors of the system without ticking it.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 20)
+    public void tell(SystemState state) {
+        List<SimulatedActor> actors = state.system.getActors();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            actors.get(i % actors.size()).tell(MESSAGE);
+        }
+    }
+
+    /**
+     * Spawns {@link #BATCH_SIZE} actors, each replacing the oldest actor, which is stopped,
+     * with a tick after every <c>actors</c> replacements.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 20)
+    public void spawnStopChurn(SystemState state) throws UnknownClientException {
+        for (int i = 1; i <= BATCH_SIZE; i++) {
+            ForwardingActor actor = new ForwardingActor(state.delay);
+            actor.next = actor;
+            state.system.spawn(actor);
+            state.spawned.add(actor);
+            state.system.stop(state.spawned.remove());
+            if (i % state.actors == 0)
+                state.system.tick();
+        }
+    }
+
+    /**
+     * Actor forwarding every message to the next actor.
+     */
+    static class ForwardingActor extends SimulatedActor {
+        SimulatedActor next;
+
+        ForwardingActor(int delay) {
+            channel = new DeterministicChannel(delay);
+        }
+
+        @Override
+        public void receive(Message message) {
+            next.tell(message);
+        }
+    }
+}